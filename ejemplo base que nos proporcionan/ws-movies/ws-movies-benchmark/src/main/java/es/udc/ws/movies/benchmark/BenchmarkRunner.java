@@ -0,0 +1,48 @@
+package es.udc.ws.movies.benchmark;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks selected by the usual JMH command line once per
+ * thread count in the <code>benchmark.threads</code> system property
+ * (comma-separated, "1,4,16" by default), writing the results of each run
+ * as JSON to the directory in <code>benchmark.results</code>
+ * ("jmh-results" by default).
+ */
+public class BenchmarkRunner {
+
+    private static final String THREADS_PROPERTY = "benchmark.threads";
+    private static final String RESULTS_PROPERTY = "benchmark.results";
+
+    private BenchmarkRunner() {}
+
+    public static void main(String[] args) throws Exception {
+
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        String[] threadCounts = System.getProperty(THREADS_PROPERTY, "1,4,16").split(",");
+        Path resultsDirectory = Path.of(System.getProperty(RESULTS_PROPERTY, "jmh-results"));
+        Files.createDirectories(resultsDirectory);
+
+        for (String threadCount : threadCounts) {
+            int threads = Integer.parseInt(threadCount.trim());
+
+            Options options = new OptionsBuilder()
+                    .parent(commandLineOptions)
+                    .threads(threads)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(resultsDirectory.resolve("movies-" + threads + "-threads.json").toString())
+                    .build();
+
+            new Runner(options).run();
+        }
+
+    }
+
+}
@@ -0,0 +1,111 @@
+package es.udc.ws.movies.benchmark;
+
+import static es.udc.ws.movies.model.util.ModelConstants.MOVIE_DATA_SOURCE;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import es.udc.ws.movies.model.movie.Movie;
+import es.udc.ws.movies.model.movieservice.MovieService;
+import es.udc.ws.movies.model.movieservice.MovieServiceFactory;
+import es.udc.ws.movies.model.sale.Sale;
+import es.udc.ws.util.sql.DataSourceLocator;
+import es.udc.ws.util.sql.PooledDataSource;
+
+/**
+ * Throughput of the <code>MovieService</code> operations on the hot path of
+ * the REST and Thrift services, against the test database.
+ * <p>
+ * <code>movies</code> is the number of movies matching the keywords used by
+ * <code>findMovies</code> (all of them are candidates for
+ * <code>buyMovie</code>). The thread count is set when running (see
+ * <code>BenchmarkRunner</code>).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class MovieServiceBenchmark {
+
+    private static final String USER_ID = "benchmark";
+    private static final String CREDIT_CARD_NUMBER = "1234567890123456";
+
+    @Param({"10", "1000"})
+    public int movies;
+
+    private PooledDataSource dataSource;
+    private MovieService movieService;
+    private String keywords;
+    private List<Long> movieIds;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+
+        dataSource = new PooledDataSource();
+        DataSourceLocator.addDataSource(MOVIE_DATA_SOURCE, dataSource);
+        movieService = MovieServiceFactory.getService();
+
+        keywords = "benchmark" + System.currentTimeMillis();
+        movieIds = new ArrayList<>(movies);
+
+        for (int i = 0; i < movies; i++) {
+            Movie movie = movieService.addMovie(new Movie(keywords + " movie " + i,
+                    (short) 90, "Benchmark movie", 10.0F));
+            movieIds.add(movie.getMovieId());
+        }
+
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+
+        /* Sales prevent removing movies, so they are removed first. */
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement preparedStatement = connection.prepareStatement(
+                        "DELETE FROM Sale WHERE movieId = ?")) {
+            for (Long movieId : movieIds) {
+                preparedStatement.setLong(1, movieId);
+                preparedStatement.executeUpdate();
+            }
+        }
+
+        for (Long movieId : movieIds) {
+            movieService.removeMovie(movieId);
+        }
+
+        dataSource.close();
+
+    }
+
+    @Benchmark
+    public List<Movie> findMovies() {
+        return movieService.findMovies(keywords);
+    }
+
+    @Benchmark
+    public Sale buyMovie() throws Exception {
+        Long movieId = movieIds.get(ThreadLocalRandom.current().nextInt(movieIds.size()));
+        return movieService.buyMovie(movieId, USER_ID, CREDIT_CARD_NUMBER);
+    }
+
+}
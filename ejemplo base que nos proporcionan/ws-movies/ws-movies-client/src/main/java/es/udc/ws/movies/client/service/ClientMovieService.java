@@ -1,6 +1,7 @@
 package es.udc.ws.movies.client.service;
 
 import es.udc.ws.movies.client.service.dto.ClientMovieDto;
+import es.udc.ws.movies.client.service.dto.ClientPurchaseDto;
 import es.udc.ws.movies.client.service.exceptions.ClientMovieNotRemovableException;
 import es.udc.ws.movies.client.service.exceptions.ClientSaleExpirationException;
 import es.udc.ws.util.exceptions.InputValidationException;
@@ -20,9 +21,14 @@ public interface ClientMovieService {
 
     public List<ClientMovieDto> findMovies(String keywords);
 
+    public List<ClientMovieDto> findMoviesByIds(List<Long> movieIds);
+
     public Long buyMovie(Long movieId, String userId, String creditCardNumber)
             throws InstanceNotFoundException, InputValidationException;
 
+    public List<Long> buyMovies(List<ClientPurchaseDto> purchases)
+            throws InstanceNotFoundException, InputValidationException;
+
     public String getMovieUrl(Long saleId)
             throws InstanceNotFoundException, ClientSaleExpirationException;
 
@@ -0,0 +1,47 @@
+package es.udc.ws.movies.client.service.dto;
+
+public class ClientPurchaseDto {
+
+    private Long movieId;
+    private String userId;
+    private String creditCardNumber;
+
+    public ClientPurchaseDto() {
+    }
+
+    public ClientPurchaseDto(Long movieId, String userId, String creditCardNumber) {
+        this.movieId = movieId;
+        this.userId = userId;
+        this.creditCardNumber = creditCardNumber;
+    }
+
+    public Long getMovieId() {
+        return movieId;
+    }
+
+    public void setMovieId(Long movieId) {
+        this.movieId = movieId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getCreditCardNumber() {
+        return creditCardNumber;
+    }
+
+    public void setCreditCardNumber(String creditCardNumber) {
+        this.creditCardNumber = creditCardNumber;
+    }
+
+    @Override
+    public String toString() {
+        return "ClientPurchaseDto [movieId=" + movieId + ", userId=" + userId + "]";
+    }
+
+}
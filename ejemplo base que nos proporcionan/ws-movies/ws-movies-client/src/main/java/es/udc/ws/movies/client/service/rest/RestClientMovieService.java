@@ -1,48 +1,80 @@
 package es.udc.ws.movies.client.service.rest;
 
-import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import es.udc.ws.movies.client.service.ClientMovieService;
 import es.udc.ws.movies.client.service.dto.ClientMovieDto;
+import es.udc.ws.movies.client.service.dto.ClientPurchaseDto;
+import es.udc.ws.movies.client.service.dto.ClientSaleDto;
 import es.udc.ws.movies.client.service.exceptions.ClientMovieNotRemovableException;
 import es.udc.ws.movies.client.service.exceptions.ClientSaleExpirationException;
 import es.udc.ws.movies.client.service.rest.json.JsonToClientExceptionConversor;
 import es.udc.ws.movies.client.service.rest.json.JsonToClientMovieDtoConversor;
+import es.udc.ws.movies.client.service.rest.json.JsonToClientPurchaseDtoConversor;
 import es.udc.ws.movies.client.service.rest.json.JsonToClientSaleDtoConversor;
 import es.udc.ws.util.configuration.ConfigurationParametersManager;
 import es.udc.ws.util.exceptions.InputValidationException;
 import es.udc.ws.util.exceptions.InstanceNotFoundException;
+import es.udc.ws.util.http.PooledHttpClientFactory;
 import es.udc.ws.util.json.ObjectMapperFactory;
-import org.apache.hc.client5.http.fluent.Form;
-import org.apache.hc.client5.http.fluent.Request;
+import org.apache.hc.client5.http.classic.methods.HttpDelete;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.client5.http.classic.methods.HttpPut;
+import org.apache.hc.client5.http.entity.UrlEncodedFormEntity;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.core5.http.ClassicHttpRequest;
 import org.apache.hc.core5.http.ClassicHttpResponse;
 import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpHeaders;
 import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.io.entity.EntityTemplate;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.http.message.BasicNameValuePair;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
-
+import java.util.stream.Collectors;
+
+/**
+ * Documents are exchanged in the media type given by the optional
+ * <code>RestClientMovieService.mediaType</code> parameter: JSON (the
+ * default) or one of the binary formats of <code>ObjectMapperFactory</code>
+ * (CBOR or Smile), which are smaller and cheaper to process. Responses are
+ * read in the media type chosen by the server.
+ */
 public class RestClientMovieService implements ClientMovieService {
 
-    private final static String ENDPOINT_ADDRESS_PARAMETER = "RestClientMovieService.endpointAddress";
+    private final static String CONFIGURATION_PREFIX = "RestClientMovieService";
+    private final static String ENDPOINT_ADDRESS_PARAMETER = CONFIGURATION_PREFIX + ".endpointAddress";
+    private final static String MEDIA_TYPE_PARAMETER = CONFIGURATION_PREFIX + ".mediaType";
+
+    private static CloseableHttpClient httpClient = null;
+
     private String endpointAddress;
+    private String mediaType;
+
+    @FunctionalInterface
+    private interface ResponseReader<T> {
+        T read(InputStream content, ObjectMapper objectMapper) throws IOException;
+    }
 
     @Override
     public Long addMovie(ClientMovieDto movie) throws InputValidationException {
 
         try {
 
-            ClassicHttpResponse response = (ClassicHttpResponse) Request.post(getEndpointAddress() + "movies").
-                    bodyStream(toInputStream(movie), ContentType.create("application/json")).
-                    execute().returnResponse();
-
-            validateStatusCode(HttpStatus.SC_CREATED, response);
+            HttpPost request = new HttpPost(getEndpointAddress() + "movies");
+            request.setEntity(toEntity(JsonToClientMovieDtoConversor.toObjectNode(movie)));
 
-            return JsonToClientMovieDtoConversor.toClientMovieDto(response.getEntity().getContent()).getMovieId();
+            return execute(request, HttpStatus.SC_CREATED,
+                    (content, objectMapper) -> JsonToClientMovieDtoConversor.toClientMovieDto(content,
+                            objectMapper).getMovieId());
 
         } catch (InputValidationException e) {
             throw e;
@@ -58,12 +90,10 @@ public class RestClientMovieService implements ClientMovieService {
 
         try {
 
-            ClassicHttpResponse response = (ClassicHttpResponse) Request.put(getEndpointAddress() +
-                            "movies/" + movie.getMovieId()).
-                    bodyStream(toInputStream(movie), ContentType.create("application/json")).
-                    execute().returnResponse();
+            HttpPut request = new HttpPut(getEndpointAddress() + "movies/" + movie.getMovieId());
+            request.setEntity(toEntity(JsonToClientMovieDtoConversor.toObjectNode(movie)));
 
-            validateStatusCode(HttpStatus.SC_NO_CONTENT, response);
+            execute(request, HttpStatus.SC_NO_CONTENT, null);
 
         } catch (InputValidationException | InstanceNotFoundException e) {
             throw e;
@@ -78,11 +108,8 @@ public class RestClientMovieService implements ClientMovieService {
 
         try {
 
-            ClassicHttpResponse response = (ClassicHttpResponse) Request.delete(getEndpointAddress() +
-                            "movies/" + movieId).
-                    execute().returnResponse();
-
-            validateStatusCode(HttpStatus.SC_NO_CONTENT, response);
+            execute(new HttpDelete(getEndpointAddress() + "movies/" + movieId),
+                    HttpStatus.SC_NO_CONTENT, null);
 
         } catch (InstanceNotFoundException | ClientMovieNotRemovableException e) {
             throw e;
@@ -97,14 +124,26 @@ public class RestClientMovieService implements ClientMovieService {
 
         try {
 
-            ClassicHttpResponse response = (ClassicHttpResponse) Request.get(getEndpointAddress() + "movies?keywords="
-                            + URLEncoder.encode(keywords, "UTF-8")).
-                    execute().returnResponse();
+            return execute(new HttpGet(getEndpointAddress() + "movies?keywords="
+                            + URLEncoder.encode(keywords, StandardCharsets.UTF_8)),
+                    HttpStatus.SC_OK, JsonToClientMovieDtoConversor::toClientMovieDtos);
+
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+
+    }
+
+    @Override
+    public List<ClientMovieDto> findMoviesByIds(List<Long> movieIds) {
+
+        try {
 
-            validateStatusCode(HttpStatus.SC_OK, response);
+            String ids = movieIds.stream().map(String::valueOf).collect(Collectors.joining(","));
 
-            return JsonToClientMovieDtoConversor.toClientMovieDtos(response.getEntity()
-                    .getContent());
+            return execute(new HttpGet(getEndpointAddress() + "movies?ids="
+                            + URLEncoder.encode(ids, StandardCharsets.UTF_8)),
+                    HttpStatus.SC_OK, JsonToClientMovieDtoConversor::toClientMovieDtos);
 
         } catch (Exception e) {
             throw new RuntimeException(e);
@@ -118,19 +157,41 @@ public class RestClientMovieService implements ClientMovieService {
 
         try {
 
-            ClassicHttpResponse response = (ClassicHttpResponse) Request.post(getEndpointAddress() + "sales").
-                    bodyForm(
-                            Form.form().
-                                    add("movieId", Long.toString(movieId)).
-                                    add("userId", userId).
-                                    add("creditCardNumber", creditCardNumber).
-                                    build()).
-                    execute().returnResponse();
+            HttpPost request = new HttpPost(getEndpointAddress() + "sales");
+            request.setEntity(new UrlEncodedFormEntity(List.of(
+                    new BasicNameValuePair("movieId", Long.toString(movieId)),
+                    new BasicNameValuePair("userId", userId),
+                    new BasicNameValuePair("creditCardNumber", creditCardNumber)),
+                    StandardCharsets.UTF_8));
+
+            return execute(request, HttpStatus.SC_CREATED,
+                    (content, objectMapper) -> JsonToClientSaleDtoConversor.toClientSaleDto(content,
+                            objectMapper).getSaleId());
+
+        } catch (InputValidationException | InstanceNotFoundException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+
+    }
+
+    @Override
+    public List<Long> buyMovies(List<ClientPurchaseDto> purchases)
+            throws InstanceNotFoundException, InputValidationException {
+
+        try {
 
-            validateStatusCode(HttpStatus.SC_CREATED, response);
+            HttpPost request = new HttpPost(getEndpointAddress() + "sales");
+            request.setEntity(toEntity(JsonToClientPurchaseDtoConversor.toArrayNode(purchases)));
 
-            return JsonToClientSaleDtoConversor.toClientSaleDto(
-                    response.getEntity().getContent()).getSaleId();
+            return execute(request, HttpStatus.SC_CREATED, (content, objectMapper) -> {
+                List<Long> saleIds = new ArrayList<>(purchases.size());
+                for (ClientSaleDto sale : JsonToClientSaleDtoConversor.toClientSaleDtos(content, objectMapper)) {
+                    saleIds.add(sale.getSaleId());
+                }
+                return saleIds;
+            });
 
         } catch (InputValidationException | InstanceNotFoundException e) {
             throw e;
@@ -146,13 +207,10 @@ public class RestClientMovieService implements ClientMovieService {
 
         try {
 
-            ClassicHttpResponse response = (ClassicHttpResponse) Request.get(getEndpointAddress() + "sales/" + saleId).
-                    execute().returnResponse();
-
-            validateStatusCode(HttpStatus.SC_OK, response);
-
-            return JsonToClientSaleDtoConversor.toClientSaleDto(
-                    response.getEntity().getContent()).getMovieUrl();
+            return execute(new HttpGet(getEndpointAddress() + "sales/" + saleId),
+                    HttpStatus.SC_OK,
+                    (content, objectMapper) -> JsonToClientSaleDtoConversor.toClientSaleDto(content,
+                            objectMapper).getMovieUrl());
 
         } catch (InstanceNotFoundException | ClientSaleExpirationException e) {
             throw e;
@@ -170,23 +228,70 @@ public class RestClientMovieService implements ClientMovieService {
         return endpointAddress;
     }
 
-    private InputStream toInputStream(ClientMovieDto movie) {
+    private synchronized String getMediaType() {
+        if (mediaType == null) {
+            String mediaTypeParameter = ConfigurationParametersManager.getParameter(MEDIA_TYPE_PARAMETER);
+            mediaType = mediaTypeParameter != null ? mediaTypeParameter.trim()
+                    : ObjectMapperFactory.JSON_MEDIA_TYPE;
+        }
+        return mediaType;
+    }
+
+    private synchronized static CloseableHttpClient getHttpClient() {
 
-        try {
+        if (httpClient == null) {
+            httpClient = PooledHttpClientFactory.fromConfiguration(CONFIGURATION_PREFIX);
+        }
+        return httpClient;
 
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            ObjectMapper objectMapper = ObjectMapperFactory.instance();
-            objectMapper.writer(new DefaultPrettyPrinter()).writeValue(outputStream,
-                    JsonToClientMovieDtoConversor.toObjectNode(movie));
+    }
 
-            return new ByteArrayInputStream(outputStream.toByteArray());
+    /*
+     * Sends "request" and reads the body of a "successCode" response with
+     * "reader" (if not null), using the mapper of its content type. The
+     * response body is always consumed, so that its connection goes back to
+     * the pool.
+     */
+    private <T> T execute(ClassicHttpRequest request, int successCode, ResponseReader<T> reader)
+            throws Exception {
+
+        request.setHeader(HttpHeaders.ACCEPT, getMediaType());
+
+        try (ClassicHttpResponse response = getHttpClient().executeOpen(null, request, null)) {
+
+            try {
+
+                validateStatusCode(successCode, response);
+
+                return reader != null ? reader.read(response.getEntity().getContent(),
+                        getObjectMapper(response)) : null;
+
+            } finally {
+                EntityUtils.consume(response.getEntity());
+            }
 
-        } catch (IOException e) {
-            throw new RuntimeException(e);
         }
 
     }
 
+    /*
+     * The document is serialized straight into the request body when it is
+     * sent (or resent), without an intermediate byte array.
+     */
+    private HttpEntity toEntity(JsonNode node) {
+
+        String entityMediaType = getMediaType();
+
+        return new EntityTemplate(-1, ContentType.create(entityMediaType), null,
+                outputStream -> ObjectMapperFactory.instance(entityMediaType).writeValue(outputStream, node));
+
+    }
+
+    private ObjectMapper getObjectMapper(ClassicHttpResponse response) {
+        HttpEntity entity = response.getEntity();
+        return ObjectMapperFactory.instance(entity != null ? entity.getContentType() : null);
+    }
+
     private void validateStatusCode(int successCode, ClassicHttpResponse response) throws Exception {
 
         try {
@@ -198,16 +303,18 @@ public class RestClientMovieService implements ClientMovieService {
                 return;
             }
 
+            ObjectMapper objectMapper = getObjectMapper(response);
+
             /* Handler error. */
             switch (statusCode) {
                 case HttpStatus.SC_NOT_FOUND -> throw JsonToClientExceptionConversor.fromNotFoundErrorCode(
-                        response.getEntity().getContent());
+                        response.getEntity().getContent(), objectMapper);
                 case HttpStatus.SC_BAD_REQUEST -> throw JsonToClientExceptionConversor.fromBadRequestErrorCode(
-                        response.getEntity().getContent());
+                        response.getEntity().getContent(), objectMapper);
                 case HttpStatus.SC_FORBIDDEN -> throw JsonToClientExceptionConversor.fromForbiddenErrorCode(
-                        response.getEntity().getContent());
+                        response.getEntity().getContent(), objectMapper);
                 case HttpStatus.SC_GONE -> throw JsonToClientExceptionConversor.fromGoneErrorCode(
-                        response.getEntity().getContent());
+                        response.getEntity().getContent(), objectMapper);
                 default -> throw new RuntimeException("HTTP error; status code = "
                         + statusCode);
             }
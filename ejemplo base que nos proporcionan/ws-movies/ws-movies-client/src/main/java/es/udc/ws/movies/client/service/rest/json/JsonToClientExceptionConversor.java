@@ -7,7 +7,6 @@ import es.udc.ws.movies.client.service.exceptions.ClientMovieNotRemovableExcepti
 import es.udc.ws.movies.client.service.exceptions.ClientSaleExpirationException;
 import es.udc.ws.util.exceptions.InputValidationException;
 import es.udc.ws.util.exceptions.InstanceNotFoundException;
-import es.udc.ws.util.json.ObjectMapperFactory;
 import es.udc.ws.util.json.exceptions.ParsingException;
 
 import java.io.InputStream;
@@ -15,9 +14,9 @@ import java.time.LocalDateTime;
 
 public class JsonToClientExceptionConversor {
 
-    public static Exception fromBadRequestErrorCode(InputStream ex) throws ParsingException {
+    public static Exception fromBadRequestErrorCode(InputStream ex, ObjectMapper objectMapper)
+            throws ParsingException {
         try {
-            ObjectMapper objectMapper = ObjectMapperFactory.instance();
             JsonNode rootNode = objectMapper.readTree(ex);
             if (rootNode.getNodeType() != JsonNodeType.OBJECT) {
                 throw new ParsingException("Unrecognized JSON (object expected)");
@@ -41,9 +40,9 @@ public class JsonToClientExceptionConversor {
         return new InputValidationException(message);
     }
 
-	public static Exception fromNotFoundErrorCode(InputStream ex) throws ParsingException {
+	public static Exception fromNotFoundErrorCode(InputStream ex, ObjectMapper objectMapper)
+			throws ParsingException {
 		try {
-			ObjectMapper objectMapper = ObjectMapperFactory.instance();
 			JsonNode rootNode = objectMapper.readTree(ex);
 			if (rootNode.getNodeType() != JsonNodeType.OBJECT) {
 				throw new ParsingException("Unrecognized JSON (object expected)");
@@ -68,9 +67,9 @@ public class JsonToClientExceptionConversor {
         return new InstanceNotFoundException(instanceId, instanceType);
     }
 
-	public static Exception fromForbiddenErrorCode(InputStream ex) throws ParsingException {
+	public static Exception fromForbiddenErrorCode(InputStream ex, ObjectMapper objectMapper)
+			throws ParsingException {
 		try {
-			ObjectMapper objectMapper = ObjectMapperFactory.instance();
 			JsonNode rootNode = objectMapper.readTree(ex);
 			if (rootNode.getNodeType() != JsonNodeType.OBJECT) {
 				throw new ParsingException("Unrecognized JSON (object expected)");
@@ -93,9 +92,9 @@ public class JsonToClientExceptionConversor {
         return new ClientMovieNotRemovableException(movieId);
     }
 
-	public static Exception fromGoneErrorCode(InputStream ex) throws ParsingException {
+	public static Exception fromGoneErrorCode(InputStream ex, ObjectMapper objectMapper)
+			throws ParsingException {
 		try {
-			ObjectMapper objectMapper = ObjectMapperFactory.instance();
 			JsonNode rootNode = objectMapper.readTree(ex);
 			if (rootNode.getNodeType() != JsonNodeType.OBJECT) {
 				throw new ParsingException("Unrecognized JSON (object expected)");
@@ -13,7 +13,6 @@ import com.fasterxml.jackson.databind.node.JsonNodeType;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import es.udc.ws.movies.client.service.dto.ClientMovieDto;
-import es.udc.ws.util.json.ObjectMapperFactory;
 import es.udc.ws.util.json.exceptions.ParsingException;
 
 public class JsonToClientMovieDtoConversor {
@@ -32,10 +31,9 @@ public class JsonToClientMovieDtoConversor {
 		return movieObject;
 	}
 
-	public static ClientMovieDto toClientMovieDto(InputStream jsonMovie) throws ParsingException {
+	public static ClientMovieDto toClientMovieDto(InputStream jsonMovie, ObjectMapper objectMapper)
+			throws ParsingException {
 		try {
-
-			ObjectMapper objectMapper = ObjectMapperFactory.instance();
 			JsonNode rootNode = objectMapper.readTree(jsonMovie);
 			if (rootNode.getNodeType() != JsonNodeType.OBJECT) {
 				throw new ParsingException("Unrecognized JSON (object expected)");
@@ -49,10 +47,9 @@ public class JsonToClientMovieDtoConversor {
 		}
 	}
 
-	public static List<ClientMovieDto> toClientMovieDtos(InputStream jsonMovies) throws ParsingException {
+	public static List<ClientMovieDto> toClientMovieDtos(InputStream jsonMovies, ObjectMapper objectMapper)
+			throws ParsingException {
 		try {
-
-			ObjectMapper objectMapper = ObjectMapperFactory.instance();
 			JsonNode rootNode = objectMapper.readTree(jsonMovies);
 			if (rootNode.getNodeType() != JsonNodeType.ARRAY) {
 				throw new ParsingException("Unrecognized JSON (array expected)");
@@ -0,0 +1,25 @@
+package es.udc.ws.movies.client.service.rest.json;
+
+import java.util.List;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+
+import es.udc.ws.movies.client.service.dto.ClientPurchaseDto;
+
+public class JsonToClientPurchaseDtoConversor {
+
+	public static ArrayNode toArrayNode(List<ClientPurchaseDto> purchases) {
+
+		ArrayNode purchasesNode = JsonNodeFactory.instance.arrayNode();
+		for (ClientPurchaseDto purchase : purchases) {
+			purchasesNode.addObject().
+					put("movieId", purchase.getMovieId()).
+					put("userId", purchase.getUserId()).
+					put("creditCardNumber", purchase.getCreditCardNumber());
+		}
+
+		return purchasesNode;
+	}
+
+}
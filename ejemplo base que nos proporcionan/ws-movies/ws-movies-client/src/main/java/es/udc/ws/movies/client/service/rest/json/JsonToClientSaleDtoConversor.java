@@ -2,6 +2,8 @@ package es.udc.ws.movies.client.service.rest.json;
 
 import java.io.InputStream;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -9,30 +11,41 @@ import com.fasterxml.jackson.databind.node.JsonNodeType;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import es.udc.ws.movies.client.service.dto.ClientSaleDto;
-import es.udc.ws.util.json.ObjectMapperFactory;
 import es.udc.ws.util.json.exceptions.ParsingException;
 
 public class JsonToClientSaleDtoConversor {
 
-	public static ClientSaleDto toClientSaleDto(InputStream jsonSale) throws ParsingException {
+	public static ClientSaleDto toClientSaleDto(InputStream jsonSale, ObjectMapper objectMapper)
+			throws ParsingException {
 		try {
-
-			ObjectMapper objectMapper = ObjectMapperFactory.instance();
 			JsonNode rootNode = objectMapper.readTree(jsonSale);
 			if (rootNode.getNodeType() != JsonNodeType.OBJECT) {
 				throw new ParsingException("Unrecognized JSON (object expected)");
 			} else {
-				ObjectNode movieObject = (ObjectNode) rootNode;
-
-				JsonNode saleIdNode = movieObject.get("saleId");
-				Long saleId = (saleIdNode != null) ? saleIdNode.longValue() : null;
-
-				Long movieId = movieObject.get("movieId").longValue();
-				String movieUrl = movieObject.get("movieUrl").textValue().trim();
-				String expirationDate = movieObject.get("expirationDate").textValue().trim();
-	
-				return new ClientSaleDto(saleId, movieId, LocalDateTime.parse(expirationDate), movieUrl);
+				return toClientSaleDto((ObjectNode) rootNode);
+			}
+		} catch (ParsingException ex) {
+			throw ex;
+		} catch (Exception e) {
+			throw new ParsingException(e);
+		}
+	}
 
+	public static List<ClientSaleDto> toClientSaleDtos(InputStream jsonSales, ObjectMapper objectMapper)
+			throws ParsingException {
+		try {
+			JsonNode rootNode = objectMapper.readTree(jsonSales);
+			if (rootNode.getNodeType() != JsonNodeType.ARRAY) {
+				throw new ParsingException("Unrecognized JSON (array expected)");
+			} else {
+				List<ClientSaleDto> saleDtos = new ArrayList<>(rootNode.size());
+				for (JsonNode saleNode : rootNode) {
+					if (saleNode.getNodeType() != JsonNodeType.OBJECT) {
+						throw new ParsingException("Unrecognized JSON (object expected)");
+					}
+					saleDtos.add(toClientSaleDto((ObjectNode) saleNode));
+				}
+				return saleDtos;
 			}
 		} catch (ParsingException ex) {
 			throw ex;
@@ -41,4 +54,17 @@ public class JsonToClientSaleDtoConversor {
 		}
 	}
 
+	private static ClientSaleDto toClientSaleDto(ObjectNode saleObject) {
+
+		JsonNode saleIdNode = saleObject.get("saleId");
+		Long saleId = (saleIdNode != null) ? saleIdNode.longValue() : null;
+
+		Long movieId = saleObject.get("movieId").longValue();
+		String movieUrl = saleObject.get("movieUrl").textValue().trim();
+		String expirationDate = saleObject.get("expirationDate").textValue().trim();
+
+		return new ClientSaleDto(saleId, movieId, LocalDateTime.parse(expirationDate), movieUrl);
+
+	}
+
 }
@@ -2,41 +2,33 @@ package es.udc.ws.movies.client.service.thrift;
 
 import es.udc.ws.movies.client.service.ClientMovieService;
 import es.udc.ws.movies.client.service.dto.ClientMovieDto;
+import es.udc.ws.movies.client.service.dto.ClientPurchaseDto;
 import es.udc.ws.movies.client.service.exceptions.ClientMovieNotRemovableException;
 import es.udc.ws.movies.client.service.exceptions.ClientSaleExpirationException;
 import es.udc.ws.movies.thrift.*;
-import es.udc.ws.util.configuration.ConfigurationParametersManager;
 import es.udc.ws.util.exceptions.InputValidationException;
 import es.udc.ws.util.exceptions.InstanceNotFoundException;
-import org.apache.thrift.protocol.TBinaryProtocol;
-import org.apache.thrift.protocol.TProtocol;
-import org.apache.thrift.transport.THttpClient;
-import org.apache.thrift.transport.TTransport;
-import org.apache.thrift.transport.TTransportException;
+import es.udc.ws.util.thrift.ThriftClientPool;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.List;
 
 public class ThriftClientMovieService implements ClientMovieService {
 
-    private final static String ENDPOINT_ADDRESS_PARAMETER =
-            "ThriftClientMovieService.endpointAddress";
+    private final static String CONFIGURATION_PREFIX = "ThriftClientMovieService";
 
-    private final static String endpointAddress =
-            ConfigurationParametersManager.getParameter(ENDPOINT_ADDRESS_PARAMETER);
+    private static ThriftClientPool<ThriftMovieService.Client> clientPool = null;
 
     @Override
     public Long addMovie(ClientMovieDto movie) throws InputValidationException {
 
-        ThriftMovieService.Client client = getClient();
-
-
-        try (TTransport transport = client.getInputProtocol().getTransport()) {
-
-            transport.open();
+        try {
 
-            return client.addMovie(ClientMovieDtoToThriftMovieDtoConversor.toThriftMovieDto(movie)).getMovieId();
+            return getClientPool().execute(client -> client.addMovie(
+                    ClientMovieDtoToThriftMovieDtoConversor.toThriftMovieDto(movie))).getMovieId();
 
         } catch (ThriftInputValidationException e) {
             throw new InputValidationException(e.getMessage());
@@ -48,12 +40,12 @@ public class ThriftClientMovieService implements ClientMovieService {
     @Override
     public void updateMovie(ClientMovieDto movie) throws InputValidationException, InstanceNotFoundException {
 
-        ThriftMovieService.Client client = getClient();
-
-        try (TTransport transport = client.getInputProtocol().getTransport()) {
+        try {
 
-            transport.open();
-            client.updateMovie(ClientMovieDtoToThriftMovieDtoConversor.toThriftMovieDto(movie));
+            getClientPool().execute(client -> {
+                client.updateMovie(ClientMovieDtoToThriftMovieDtoConversor.toThriftMovieDto(movie));
+                return null;
+            });
 
         } catch (ThriftInputValidationException e) {
             throw new InputValidationException(e.getMessage());
@@ -68,12 +60,12 @@ public class ThriftClientMovieService implements ClientMovieService {
     @Override
     public void removeMovie(Long movieId) throws InstanceNotFoundException, ClientMovieNotRemovableException {
 
-        ThriftMovieService.Client client = getClient();
-
-        try (TTransport transport = client.getInputProtocol().getTransport()) {
+        try {
 
-            transport.open();
-            client.removeMovie(movieId);
+            getClientPool().execute(client -> {
+                client.removeMovie(movieId);
+                return null;
+            });
 
         } catch (ThriftInstanceNotFoundException e) {
             throw new InstanceNotFoundException(e.getInstanceId(), e.getInstanceType());
@@ -88,13 +80,24 @@ public class ThriftClientMovieService implements ClientMovieService {
     @Override
     public List<ClientMovieDto> findMovies(String keywords) {
 
-        ThriftMovieService.Client client = getClient();
+        try {
 
-        try (TTransport transport = client.getInputProtocol().getTransport()) {
+            return ClientMovieDtoToThriftMovieDtoConversor.toClientMovieDtos(
+                    getClientPool().execute(client -> client.findMovies(keywords)));
 
-            transport.open();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+
+    }
+
+    @Override
+    public List<ClientMovieDto> findMoviesByIds(List<Long> movieIds) {
 
-            return ClientMovieDtoToThriftMovieDtoConversor.toClientMovieDtos(client.findMovies(keywords));
+        try {
+
+            return ClientMovieDtoToThriftMovieDtoConversor.toClientMovieDtos(
+                    getClientPool().execute(client -> client.findMoviesByIds(movieIds)));
 
         } catch (Exception e) {
             throw new RuntimeException(e);
@@ -106,13 +109,9 @@ public class ThriftClientMovieService implements ClientMovieService {
     public Long buyMovie(Long movieId, String userId, String creditCardNumber) throws InstanceNotFoundException,
             InputValidationException {
 
-        ThriftMovieService.Client client = getClient();
-
-        try (TTransport transport = client.getInputProtocol().getTransport()) {
-
-            transport.open();
+        try {
 
-            return client.buyMovie(movieId, userId, creditCardNumber).getSaleId();
+            return getClientPool().execute(client -> client.buyMovie(movieId, userId, creditCardNumber)).getSaleId();
 
         } catch (ThriftInputValidationException e) {
             throw new InputValidationException(e.getMessage());
@@ -125,39 +124,61 @@ public class ThriftClientMovieService implements ClientMovieService {
     }
 
     @Override
-    public String getMovieUrl(Long saleId) throws InstanceNotFoundException, ClientSaleExpirationException {
-
-        ThriftMovieService.Client client = getClient();
+    public List<Long> buyMovies(List<ClientPurchaseDto> purchases) throws InstanceNotFoundException,
+            InputValidationException {
 
-        try (TTransport transport = client.getInputProtocol().getTransport()) {
+        List<ThriftPurchaseDto> purchaseDtos = new ArrayList<>(purchases.size());
+        for (ClientPurchaseDto purchase : purchases) {
+            purchaseDtos.add(new ThriftPurchaseDto(purchase.getMovieId(), purchase.getUserId(),
+                    purchase.getCreditCardNumber()));
+        }
 
-            transport.open();
+        try {
 
-            return client.findSale(saleId).getMovieUrl();
+            List<ThriftSaleDto> sales = getClientPool().execute(client -> client.buyMovies(purchaseDtos));
+            List<Long> saleIds = new ArrayList<>(sales.size());
+            for (ThriftSaleDto sale : sales) {
+                saleIds.add(sale.getSaleId());
+            }
+            return saleIds;
 
+        } catch (ThriftInputValidationException e) {
+            throw new InputValidationException(e.getMessage());
         } catch (ThriftInstanceNotFoundException e) {
             throw new InstanceNotFoundException(e.getInstanceId(), e.getInstanceType());
-        } catch (ThriftSaleExpirationException e) {
-            throw new ClientSaleExpirationException(e.getSaleId(), LocalDateTime.parse(e.getExpirationDate()));
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
 
     }
 
-    private ThriftMovieService.Client getClient() {
+    @Override
+    public String getMovieUrl(Long saleId) throws InstanceNotFoundException, ClientSaleExpirationException {
 
         try {
 
-            TTransport transport = new THttpClient(endpointAddress);
-            TProtocol protocol = new TBinaryProtocol(transport);
+            return getClientPool().execute(client -> client.findSale(saleId)).getMovieUrl();
 
-            return new ThriftMovieService.Client(protocol);
-
-        } catch (TTransportException e) {
+        } catch (ThriftInstanceNotFoundException e) {
+            throw new InstanceNotFoundException(e.getInstanceId(), e.getInstanceType());
+        } catch (ThriftSaleExpirationException e) {
+            throw new ClientSaleExpirationException(e.getSaleId(), e.isSetExpirationTime() ?
+                    LocalDateTime.ofInstant(Instant.ofEpochMilli(e.getExpirationTime()), ZoneId.systemDefault()) :
+                    LocalDateTime.parse(e.getExpirationDate()));
+        } catch (Exception e) {
             throw new RuntimeException(e);
         }
 
     }
 
+    private synchronized static ThriftClientPool<ThriftMovieService.Client> getClientPool() {
+
+        if (clientPool == null) {
+            clientPool = ThriftClientPool.fromConfiguration(CONFIGURATION_PREFIX,
+                    new ThriftMovieService.Client.Factory());
+        }
+        return clientPool;
+
+    }
+
 }
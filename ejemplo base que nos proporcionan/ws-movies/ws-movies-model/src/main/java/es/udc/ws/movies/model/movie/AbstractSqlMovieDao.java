@@ -7,29 +7,99 @@ import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 
+import es.udc.ws.util.configuration.ConfigurationParametersManager;
 import es.udc.ws.util.exceptions.InstanceNotFoundException;
+import es.udc.ws.util.sql.FullTextSearch;
+import es.udc.ws.util.sql.ResultSetCursor;
 
 /**
  * A partial implementation of
  * <code>SQLMovieDAO</code> that leaves
  * <code>create(Connection, Movie)</code> as abstract.
+ * <p>
+ * <code>findByKeywords(Connection, String)</code> uses the
+ * <code>FULLTEXT</code> index on <code>title</code> when the configuration
+ * parameter <code>SqlMovieDao.keywordSearch</code> is <code>FULLTEXT</code>
+ * (or the strategy given to <code>AbstractSqlMovieDao(boolean)</code> is),
+ * and <code>LIKE</code> otherwise (or when some keyword is too short to be
+ * indexed, or the index does not exist).
+ * <p>
+ * The two strategies do not find the same movies. <code>LIKE</code> requires
+ * every keyword as a substring of the title and sorts by title.
+ * <code>FULLTEXT</code> requires every keyword as the prefix of a word of the
+ * title (so "itle" no longer finds "Movie title"), ignores the InnoDB
+ * stopwords (e.g. "the" or "about") and sorts by relevance.
+ * <p>
+ * <code>streamByKeywords(Connection, String)</code> runs the same query but
+ * returns the rows through an open cursor instead of a list.
+ * <p>
+ * <code>findByIds(Connection, Collection)</code> reads up to
+ * <code>MAX_IN_LIST_SIZE</code> movies per query with
+ * <code>movieId IN (...)</code>. The list is padded to a power of two so
+ * that the number of distinct SQL texts (and cached statements) stays small.
+ * <code>findVersionsByIds(Connection, Collection)</code> does the same but
+ * only reads <code>movieId</code> and <code>version</code>.
+ * <p>
+ * <code>update(Connection, Movie)</code> increments the <code>version</code>
+ * column, so that clients can tell whether a movie changed (e.g. with
+ * entity tags) without comparing its contents.
  */
 public abstract class AbstractSqlMovieDao implements SqlMovieDao {
 
+    private static final String KEYWORD_SEARCH_PARAMETER =
+            "SqlMovieDao.keywordSearch";
+
+    private static final String FIND_QUERY = "SELECT title, runtime, "
+            + " description, price, creationDate, version FROM Movie WHERE movieId = ?";
+
+    private static final int MAX_IN_LIST_SIZE = 1024;
+
+    private static final String FIND_BY_IDS_QUERY = "SELECT movieId, title, runtime, "
+            + " description, price, creationDate, version FROM Movie WHERE movieId IN (";
+
+    private static final String FIND_VERSIONS_BY_IDS_QUERY =
+            "SELECT movieId, version FROM Movie WHERE movieId IN (";
+
+    private static final String FIND_BY_FULL_TEXT_QUERY =
+            "SELECT movieId, title, runtime, "
+            + " description, price, creationDate, version FROM Movie"
+            + " WHERE MATCH(title) AGAINST(? IN BOOLEAN MODE)"
+            + " ORDER BY MATCH(title) AGAINST(? IN BOOLEAN MODE) DESC, title";
+
+    private static final String FIND_ALL_QUERY = "SELECT movieId, title, runtime, "
+            + " description, price, creationDate, version FROM Movie ORDER BY title";
+
+    private static final String UPDATE_QUERY = "UPDATE Movie"
+            + " SET title = ?, runtime = ?, description = ?, "
+            + "price = ?, version = version + 1 WHERE movieId = ?";
+
+    private static final String REMOVE_QUERY = "DELETE FROM Movie WHERE movieId = ?";
+
+    private volatile boolean fullTextSearch;
+
     protected AbstractSqlMovieDao() {
+        this("FULLTEXT".equalsIgnoreCase(
+                ConfigurationParametersManager.getParameter(KEYWORD_SEARCH_PARAMETER)));
+    }
+
+    protected AbstractSqlMovieDao(boolean fullTextSearch) {
+        this.fullTextSearch = fullTextSearch;
     }
 
     @Override
     public Movie find(Connection connection, Long movieId)
             throws InstanceNotFoundException {
 
-        /* Create "queryString". */
-        String queryString = "SELECT title, runtime, "
-                + " description, price, creationDate FROM Movie WHERE movieId = ?";
-
-        try (PreparedStatement preparedStatement = connection.prepareStatement(queryString)) {
+        try (PreparedStatement preparedStatement = connection.prepareStatement(FIND_QUERY)) {
 
             /* Fill "preparedStatement". */
             int i = 1;
@@ -51,10 +121,13 @@ public abstract class AbstractSqlMovieDao implements SqlMovieDao {
             float price = resultSet.getFloat(i++);
             Timestamp creationDateAsTimestamp = resultSet.getTimestamp(i++);
             LocalDateTime creationDate = creationDateAsTimestamp.toLocalDateTime();
+            long version = resultSet.getLong(i++);
 
             /* Return movie. */
-            return new Movie(movieId, title, runtime, description, price,
+            Movie movie = new Movie(movieId, title, runtime, description, price,
                     creationDate);
+            movie.setVersion(version);
+            return movie;
 
         } catch (SQLException e) {
             throw new RuntimeException(e);
@@ -62,25 +135,176 @@ public abstract class AbstractSqlMovieDao implements SqlMovieDao {
 
     }
 
+    @Override
+    public List<Movie> findByIds(Connection connection, Collection<Long> movieIds) {
+
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(movieIds));
+        Map<Long, Movie> foundMovies = findByIds(connection, ids, FIND_BY_IDS_QUERY,
+                AbstractSqlMovieDao::readMovie);
+
+        /* Return movies in the requested order. */
+        List<Movie> movies = new ArrayList<>(foundMovies.size());
+        for (Long movieId : ids) {
+            Movie movie = foundMovies.get(movieId);
+            if (movie != null) {
+                movies.add(movie);
+            }
+        }
+
+        return movies;
+
+    }
+
+    @Override
+    public Map<Long, Long> findVersionsByIds(Connection connection, Collection<Long> movieIds) {
+
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(movieIds));
+        Map<Long, Long> foundVersions = findByIds(connection, ids, FIND_VERSIONS_BY_IDS_QUERY,
+                resultSet -> resultSet.getLong(2));
+
+        /* Return versions in the requested order. */
+        Map<Long, Long> versions = new LinkedHashMap<>();
+        for (Long movieId : ids) {
+            Long version = foundVersions.get(movieId);
+            if (version != null) {
+                versions.put(movieId, version);
+            }
+        }
+
+        return versions;
+
+    }
+
+    /*
+     * Runs "queryPrefix" (ending in "movieId IN (") for "ids", in batches, and
+     * returns the rows found by movieId (read from the first column).
+     */
+    private static <T> Map<Long, T> findByIds(Connection connection, List<Long> ids,
+            String queryPrefix, ResultSetCursor.RowMapper<T> rowMapper) {
+
+        Map<Long, T> found = new HashMap<>();
+
+        for (int start = 0; start < ids.size(); start += MAX_IN_LIST_SIZE) {
+
+            List<Long> batch = ids.subList(start, Math.min(start + MAX_IN_LIST_SIZE, ids.size()));
+            int inListSize = getInListSize(batch.size());
+            String queryString = queryPrefix
+                    + String.join(", ", Collections.nCopies(inListSize, "?")) + ")";
+
+            try (PreparedStatement preparedStatement = connection.prepareStatement(queryString)) {
+
+                /* Fill "preparedStatement" (repeating the last id as padding). */
+                for (int i = 0; i < inListSize; i++) {
+                    preparedStatement.setLong(i + 1, batch.get(Math.min(i, batch.size() - 1)));
+                }
+
+                /* Execute query. */
+                ResultSet resultSet = preparedStatement.executeQuery();
+
+                /* Get results. */
+                while (resultSet.next()) {
+                    found.put(resultSet.getLong(1), rowMapper.map(resultSet));
+                }
+
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+
+        }
+
+        return found;
+
+    }
+
+    private static int getInListSize(int ids) {
+        return ids <= 1 ? 1 : Integer.highestOneBit(ids - 1) << 1;
+    }
+
     @Override
     public List<Movie> findByKeywords(Connection connection, String keywords) {
 
-        /* Create "queryString". */
-        String[] words = keywords != null ? keywords.split(" ") : null;
-        String queryString = "SELECT movieId, title, runtime, "
-                + " description, price, creationDate FROM Movie";
-        if (words != null && words.length > 0) {
-            queryString += " WHERE";
-            for (int i = 0; i < words.length; i++) {
-                if (i > 0) {
-                    queryString += " AND";
+        try (ResultSetCursor<Movie> movies = openKeywordsQuery(connection, keywords, false)) {
+            return movies.toList();
+        }
+
+    }
+
+    @Override
+    public ResultSetCursor<Movie> streamByKeywords(Connection connection,
+            String keywords) {
+
+        return openKeywordsQuery(connection, keywords, true);
+
+    }
+
+    private ResultSetCursor<Movie> openKeywordsQuery(Connection connection,
+            String keywords, boolean streaming) {
+
+        String booleanModeQuery = fullTextSearch
+                ? FullTextSearch.toBooleanModeQuery(keywords) : null;
+
+        if (booleanModeQuery != null) {
+            try {
+                return openFullTextQuery(connection, booleanModeQuery, streaming);
+            } catch (SQLException e) {
+                if (!FullTextSearch.isMissingIndex(e)) {
+                    throw new RuntimeException(e);
                 }
-                queryString += " LOWER(title) LIKE LOWER(?)";
+                /* Schema without the FULLTEXT index: use LIKE from now on. */
+                fullTextSearch = false;
             }
         }
-        queryString += " ORDER BY title";
 
-        try (PreparedStatement preparedStatement = connection.prepareStatement(queryString)) {
+        try {
+            return openLikeQuery(connection, keywords, streaming);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+
+    }
+
+    private ResultSetCursor<Movie> openFullTextQuery(Connection connection,
+            String booleanModeQuery, boolean streaming) throws SQLException {
+
+        PreparedStatement preparedStatement =
+                connection.prepareStatement(FIND_BY_FULL_TEXT_QUERY);
+
+        try {
+
+            /* Fill "preparedStatement". */
+            preparedStatement.setString(1, booleanModeQuery);
+            preparedStatement.setString(2, booleanModeQuery);
+
+            /* Execute query. */
+            return openCursor(preparedStatement, streaming);
+
+        } catch (SQLException | RuntimeException e) {
+            preparedStatement.close();
+            throw e;
+        }
+
+    }
+
+    private ResultSetCursor<Movie> openLikeQuery(Connection connection,
+            String keywords, boolean streaming) throws SQLException {
+
+        /*
+         * Create "queryString" (one SQL text per number of keywords, so that
+         * each one can still be reused from the statement cache).
+         */
+        String[] words = keywords != null ? keywords.split(" ") : null;
+        String queryString = FIND_ALL_QUERY;
+        if (words != null && words.length > 0) {
+            String[] conditions = new String[words.length];
+            Arrays.fill(conditions, "LOWER(title) LIKE LOWER(?)");
+            queryString = "SELECT movieId, title, runtime, "
+                    + " description, price, creationDate, version FROM Movie WHERE "
+                    + String.join(" AND ", conditions) + " ORDER BY title";
+        }
+
+        PreparedStatement preparedStatement = connection.prepareStatement(queryString);
+
+        try {
 
             if (words != null) {
                 /* Fill "preparedStatement". */
@@ -90,33 +314,44 @@ public abstract class AbstractSqlMovieDao implements SqlMovieDao {
             }
 
             /* Execute query. */
-            ResultSet resultSet = preparedStatement.executeQuery();
+            return openCursor(preparedStatement, streaming);
 
-            /* Read movies. */
-            List<Movie> movies = new ArrayList<Movie>();
+        } catch (SQLException | RuntimeException e) {
+            preparedStatement.close();
+            throw e;
+        }
 
-            while (resultSet.next()) {
+    }
 
-                int i = 1;
-                Long movieId = Long.valueOf(resultSet.getLong(i++));
-                String title = resultSet.getString(i++);
-                short runtime = resultSet.getShort(i++);
-                String description = resultSet.getString(i++);
-                float price = resultSet.getFloat(i++);
-                Timestamp creationDateAsTimestamp = resultSet.getTimestamp(i++);
-                LocalDateTime creationDate = creationDateAsTimestamp.toLocalDateTime();
+    private static ResultSetCursor<Movie> openCursor(
+            PreparedStatement preparedStatement, boolean streaming)
+            throws SQLException {
 
-                movies.add(new Movie(movieId, title, runtime, description,
-                        price, creationDate));
+        if (streaming) {
+            ResultSetCursor.enableStreaming(preparedStatement);
+        }
 
-            }
+        return new ResultSetCursor<>(preparedStatement,
+                preparedStatement.executeQuery(), AbstractSqlMovieDao::readMovie);
 
-            /* Return movies. */
-            return movies;
+    }
 
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
+    private static Movie readMovie(ResultSet resultSet) throws SQLException {
+
+        int i = 1;
+        Long movieId = Long.valueOf(resultSet.getLong(i++));
+        String title = resultSet.getString(i++);
+        short runtime = resultSet.getShort(i++);
+        String description = resultSet.getString(i++);
+        float price = resultSet.getFloat(i++);
+        Timestamp creationDateAsTimestamp = resultSet.getTimestamp(i++);
+        LocalDateTime creationDate = creationDateAsTimestamp.toLocalDateTime();
+        long version = resultSet.getLong(i++);
+
+        Movie movie = new Movie(movieId, title, runtime, description,
+                price, creationDate);
+        movie.setVersion(version);
+        return movie;
 
     }
 
@@ -124,12 +359,7 @@ public abstract class AbstractSqlMovieDao implements SqlMovieDao {
     public void update(Connection connection, Movie movie)
             throws InstanceNotFoundException {
 
-        /* Create "queryString". */
-        String queryString = "UPDATE Movie"
-                + " SET title = ?, runtime = ?, description = ?, "
-                + "price = ? WHERE movieId = ?";
-
-        try (PreparedStatement preparedStatement = connection.prepareStatement(queryString)) {
+        try (PreparedStatement preparedStatement = connection.prepareStatement(UPDATE_QUERY)) {
 
             /* Fill "preparedStatement". */
             int i = 1;
@@ -157,10 +387,7 @@ public abstract class AbstractSqlMovieDao implements SqlMovieDao {
     public void remove(Connection connection, Long movieId)
             throws InstanceNotFoundException {
 
-        /* Create "queryString". */
-        String queryString = "DELETE FROM Movie WHERE" + " movieId = ?";
-
-        try (PreparedStatement preparedStatement = connection.prepareStatement(queryString)) {
+        try (PreparedStatement preparedStatement = connection.prepareStatement(REMOVE_QUERY)) {
 
             /* Fill "preparedStatement". */
             int i = 1;
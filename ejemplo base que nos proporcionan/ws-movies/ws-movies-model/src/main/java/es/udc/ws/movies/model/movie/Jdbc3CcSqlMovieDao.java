@@ -9,16 +9,22 @@ import java.sql.Timestamp;
 
 public class Jdbc3CcSqlMovieDao extends AbstractSqlMovieDao {
 
+    private static final String CREATE_QUERY = "INSERT INTO Movie"
+            + " (title, runtime, description, price, creationDate)"
+            + " VALUES (?, ?, ?, ?, ?)";
+
+    public Jdbc3CcSqlMovieDao() {
+    }
+
+    public Jdbc3CcSqlMovieDao(boolean fullTextSearch) {
+        super(fullTextSearch);
+    }
+
     @Override
     public Movie create(Connection connection, Movie movie) {
 
-        /* Create "queryString". */
-        String queryString = "INSERT INTO Movie"
-                + " (title, runtime, description, price, creationDate)"
-                + " VALUES (?, ?, ?, ?, ?)";
-
         try (PreparedStatement preparedStatement = connection.prepareStatement(
-                        queryString, Statement.RETURN_GENERATED_KEYS)) {
+                        CREATE_QUERY, Statement.RETURN_GENERATED_KEYS)) {
 
             /* Fill "preparedStatement". */
             int i = 1;
@@ -10,6 +10,7 @@ public class Movie {
 	private String description;
 	private float price;
 	private LocalDateTime creationDate;
+	private long version;
 
 	public Movie(String title, short runtime, String description, float price) {
 		this.title = title;
@@ -76,6 +77,18 @@ public class Movie {
 		this.creationDate = (creationDate != null) ? creationDate.withNano(0) : null;
 	}
 
+	/**
+	 * Incremented by the DAO on every update (it does not take part in
+	 * <code>equals</code>).
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	public void setVersion(long version) {
+		this.version = version;
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
@@ -1,9 +1,12 @@
 package es.udc.ws.movies.model.movie;
 
 import java.sql.Connection;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import es.udc.ws.util.exceptions.InstanceNotFoundException;
+import es.udc.ws.util.sql.ResultSetCursor;
 
 public interface SqlMovieDao {
 
@@ -12,9 +15,18 @@ public interface SqlMovieDao {
     public Movie find(Connection connection, Long movieId)
             throws InstanceNotFoundException;
 
+    public List<Movie> findByIds(Connection connection,
+            Collection<Long> movieIds);
+
+    public Map<Long, Long> findVersionsByIds(Connection connection,
+            Collection<Long> movieIds);
+
     public List<Movie> findByKeywords(Connection connection,
             String keywords);
 
+    public ResultSetCursor<Movie> streamByKeywords(Connection connection,
+            String keywords);
+
     public void update(Connection connection, Movie movie)
             throws InstanceNotFoundException;
 
@@ -0,0 +1,38 @@
+package es.udc.ws.movies.model.movieservice;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import es.udc.ws.movies.model.movie.Movie;
+import es.udc.ws.movies.model.sale.Sale;
+
+/**
+ * Asynchronous variant of <code>MovieService</code>. Each operation returns
+ * immediately; the returned future is completed with the result of the
+ * corresponding <code>MovieService</code> operation or, exceptionally, with
+ * the exception it throws (e.g. <code>InstanceNotFoundException</code>).
+ * <p>
+ * <code>streamMovies(String)</code> has no asynchronous variant: its cursor
+ * keeps a connection open after the operation returns.
+ */
+public interface AsyncMovieService {
+
+    public CompletableFuture<Movie> addMovie(Movie movie);
+
+    public CompletableFuture<Void> updateMovie(Movie movie);
+
+    public CompletableFuture<Void> removeMovie(Long movieId);
+
+    public CompletableFuture<Movie> findMovie(Long movieId);
+
+    public CompletableFuture<List<Movie>> findMoviesByIds(List<Long> movieIds);
+
+    public CompletableFuture<List<Movie>> findMovies(String keywords);
+
+    public CompletableFuture<Sale> buyMovie(Long movieId, String userId,
+            String creditCardNumber);
+
+    public CompletableFuture<List<Sale>> buyMovies(List<Purchase> purchases);
+
+    public CompletableFuture<Sale> findSale(Long saleId);
+}
@@ -0,0 +1,114 @@
+package es.udc.ws.movies.model.movieservice;
+
+import static es.udc.ws.movies.model.util.ModelConstants.MOVIE_DATA_SOURCE;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import es.udc.ws.movies.model.movie.Movie;
+import es.udc.ws.movies.model.sale.Sale;
+import es.udc.ws.util.concurrent.BoundedVirtualThreadExecutor;
+import es.udc.ws.util.configuration.ConfigurationParametersManager;
+import es.udc.ws.util.sql.DataSourceLocator;
+
+/**
+ * Runs the operations of the <code>MovieService</code> returned by
+ * <code>MovieServiceFactory.getService()</code> on virtual threads.
+ * <p>
+ * At most <code>AsyncMovieServiceImpl.maxConcurrency</code> operations run
+ * at the same time (by default, the maximum size of the movie data source
+ * if it is a <code>PooledDataSource</code>, or
+ * <code>DEFAULT_MAX_CONCURRENCY</code>), so that waiting callers cost a
+ * virtual thread and not a platform thread blocked in the connection pool.
+ */
+public class AsyncMovieServiceImpl implements AsyncMovieService {
+
+    private static final String MAX_CONCURRENCY_PARAMETER =
+            "AsyncMovieServiceImpl.maxConcurrency";
+
+    /* Default maximum size of the DBCP data source used by the service. */
+    private static final int DEFAULT_MAX_CONCURRENCY = 8;
+
+    private final MovieService movieService;
+    private final BoundedVirtualThreadExecutor executor;
+
+    public AsyncMovieServiceImpl() {
+        this(MovieServiceFactory.getService(), createExecutor());
+    }
+
+    public AsyncMovieServiceImpl(MovieService movieService,
+            BoundedVirtualThreadExecutor executor) {
+        this.movieService = movieService;
+        this.executor = executor;
+    }
+
+    private static BoundedVirtualThreadExecutor createExecutor() {
+
+        String maxConcurrency = ConfigurationParametersManager.getParameter(
+                MAX_CONCURRENCY_PARAMETER);
+
+        if (maxConcurrency != null) {
+            return new BoundedVirtualThreadExecutor("movie-service",
+                    Integer.parseInt(maxConcurrency.trim()));
+        }
+
+        return BoundedVirtualThreadExecutor.forDataSource("movie-service",
+                DataSourceLocator.getDataSource(MOVIE_DATA_SOURCE),
+                DEFAULT_MAX_CONCURRENCY);
+
+    }
+
+    @Override
+    public CompletableFuture<Movie> addMovie(Movie movie) {
+        return executor.submit(() -> movieService.addMovie(movie));
+    }
+
+    @Override
+    public CompletableFuture<Void> updateMovie(Movie movie) {
+        return executor.submit(() -> {
+            movieService.updateMovie(movie);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> removeMovie(Long movieId) {
+        return executor.submit(() -> {
+            movieService.removeMovie(movieId);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Movie> findMovie(Long movieId) {
+        return executor.submit(() -> movieService.findMovie(movieId));
+    }
+
+    @Override
+    public CompletableFuture<List<Movie>> findMoviesByIds(List<Long> movieIds) {
+        return executor.submit(() -> movieService.findMoviesByIds(movieIds));
+    }
+
+    @Override
+    public CompletableFuture<List<Movie>> findMovies(String keywords) {
+        return executor.submit(() -> movieService.findMovies(keywords));
+    }
+
+    @Override
+    public CompletableFuture<Sale> buyMovie(Long movieId, String userId,
+            String creditCardNumber) {
+        return executor.submit(() ->
+                movieService.buyMovie(movieId, userId, creditCardNumber));
+    }
+
+    @Override
+    public CompletableFuture<List<Sale>> buyMovies(List<Purchase> purchases) {
+        return executor.submit(() -> movieService.buyMovies(purchases));
+    }
+
+    @Override
+    public CompletableFuture<Sale> findSale(Long saleId) {
+        return executor.submit(() -> movieService.findSale(saleId));
+    }
+
+}
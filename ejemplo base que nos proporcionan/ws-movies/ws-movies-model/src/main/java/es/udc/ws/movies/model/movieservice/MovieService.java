@@ -3,11 +3,13 @@ package es.udc.ws.movies.model.movieservice;
 import es.udc.ws.movies.model.movieservice.exceptions.MovieNotRemovableException;
 import es.udc.ws.movies.model.movieservice.exceptions.SaleExpirationException;
 import java.util.List;
+import java.util.Map;
 
 import es.udc.ws.movies.model.movie.Movie;
 import es.udc.ws.movies.model.sale.Sale;
 import es.udc.ws.util.exceptions.InputValidationException;
 import es.udc.ws.util.exceptions.InstanceNotFoundException;
+import es.udc.ws.util.sql.ResultSetCursor;
 
 public interface MovieService {
 
@@ -21,11 +23,36 @@ public interface MovieService {
 
     public Movie findMovie(Long movieId) throws InstanceNotFoundException;
 
+    /**
+     * Returns the movies with the given identifiers, in the same order
+     * (without duplicates), using a single query. Unknown identifiers are
+     * skipped.
+     */
+    public List<Movie> findMoviesByIds(List<Long> movieIds);
+
+    /**
+     * Returns the versions of the movies with the given identifiers, by
+     * identifier and in the same order as <code>findMoviesByIds</code>,
+     * without reading the rest of their columns (e.g. to check whether a
+     * client's copy of them is still valid).
+     */
+    public Map<Long, Long> findMovieVersions(List<Long> movieIds);
+
     public List<Movie> findMovies(String keywords);
 
+    public ResultSetCursor<Movie> streamMovies(String keywords);
+
     public Sale buyMovie(Long movieId, String userId, String creditCardNumber)
             throws InstanceNotFoundException, InputValidationException;
 
+    /**
+     * Buys several movies in a single transaction: if some purchase is not
+     * valid (or its movie does not exist), no sale is created. Sales are
+     * returned in the same order as <code>purchases</code>.
+     */
+    public List<Sale> buyMovies(List<Purchase> purchases)
+            throws InstanceNotFoundException, InputValidationException;
+
     public Sale findSale(Long saleId) throws InstanceNotFoundException,
             SaleExpirationException;
 }
@@ -5,7 +5,10 @@ import es.udc.ws.util.configuration.ConfigurationParametersManager;
 public class MovieServiceFactory {
 
     private final static String CLASS_NAME_PARAMETER = "MovieServiceFactory.className";
+    private final static String ASYNC_CLASS_NAME_PARAMETER =
+            "MovieServiceFactory.asyncClassName";
     private static MovieService service = null;
+    private static AsyncMovieService asyncService = null;
 
     private MovieServiceFactory() {
     }
@@ -31,4 +34,28 @@ public class MovieServiceFactory {
         return service;
 
     }
+
+    @SuppressWarnings("rawtypes")
+    private static AsyncMovieService getAsyncInstance() {
+        try {
+            String serviceClassName = ConfigurationParametersManager
+                    .getParameter(ASYNC_CLASS_NAME_PARAMETER);
+            Class serviceClass = serviceClassName != null
+                    ? Class.forName(serviceClassName)
+                    : AsyncMovieServiceImpl.class;
+            return (AsyncMovieService) serviceClass.getDeclaredConstructor().newInstance();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+
+    }
+
+    public synchronized static AsyncMovieService getAsyncService() {
+
+        if (asyncService == null) {
+            asyncService = getAsyncInstance();
+        }
+        return asyncService;
+
+    }
 }
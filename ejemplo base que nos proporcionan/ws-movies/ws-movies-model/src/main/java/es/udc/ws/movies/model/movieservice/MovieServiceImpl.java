@@ -9,7 +9,10 @@ import static es.udc.ws.movies.model.util.ModelConstants.SALE_EXPIRATION_DAYS;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import javax.sql.DataSource;
@@ -22,9 +25,12 @@ import es.udc.ws.movies.model.movieservice.exceptions.SaleExpirationException;
 import es.udc.ws.movies.model.sale.Sale;
 import es.udc.ws.movies.model.sale.SqlSaleDao;
 import es.udc.ws.movies.model.sale.SqlSaleDaoFactory;
+import es.udc.ws.util.cache.SearchResultCache;
+import es.udc.ws.util.configuration.ConfigurationParametersManager;
 import es.udc.ws.util.exceptions.InputValidationException;
 import es.udc.ws.util.exceptions.InstanceNotFoundException;
 import es.udc.ws.util.sql.DataSourceLocator;
+import es.udc.ws.util.sql.ResultSetCursor;
 import es.udc.ws.util.validation.PropertyValidator;
 
 public class MovieServiceImpl implements MovieService {
@@ -33,14 +39,47 @@ public class MovieServiceImpl implements MovieService {
 	 * before "setAutoCommit".
 	 */
 
+	private static final String SEARCH_CACHE_SIZE_PARAMETER = "MovieServiceImpl.searchCacheSize";
+	private static final String SEARCH_CACHE_TTL_PARAMETER = "MovieServiceImpl.searchCacheTtl";
+	private static final int DEFAULT_SEARCH_CACHE_SIZE = 1000;
+	private static final long DEFAULT_SEARCH_CACHE_TTL = 60000;
+
 	private final DataSource dataSource;
 	private SqlMovieDao movieDao = null;
 	private SqlSaleDao saleDao = null;
+	private final SearchResultCache<Movie> searchCache;
 
 	public MovieServiceImpl() {
 		dataSource = DataSourceLocator.getDataSource(MOVIE_DATA_SOURCE);
 		movieDao = SqlMovieDaoFactory.getDao();
 		saleDao = SqlSaleDaoFactory.getDao();
+		searchCache = createSearchCache();
+	}
+
+	/*
+	 * Results of "findMovies", invalidated after every committed write to
+	 * "Movie" (see "SearchResultCache").
+	 */
+	private static SearchResultCache<Movie> createSearchCache() {
+
+		String size = ConfigurationParametersManager.getParameter(SEARCH_CACHE_SIZE_PARAMETER);
+		String ttl = ConfigurationParametersManager.getParameter(SEARCH_CACHE_TTL_PARAMETER);
+
+		return new SearchResultCache<>("MovieService.findMovies",
+				size != null ? Integer.parseInt(size.trim()) : DEFAULT_SEARCH_CACHE_SIZE,
+				ttl != null ? Long.parseLong(ttl.trim()) : DEFAULT_SEARCH_CACHE_TTL,
+				Movie::getMovieId,
+				MovieServiceImpl::copyMovie);
+
+	}
+
+	private static Movie copyMovie(Movie movie) {
+
+		Movie copy = new Movie(movie.getMovieId(), movie.getTitle(), movie.getRuntime(), movie.getDescription(),
+				movie.getPrice(), movie.getCreationDate());
+		copy.setVersion(movie.getVersion());
+		return copy;
+
 	}
 
 	private void validateMovie(Movie movie) throws InputValidationException {
@@ -71,6 +110,7 @@ public class MovieServiceImpl implements MovieService {
 
 				/* Commit. */
 				connection.commit();
+				searchCache.invalidateMatching(createdMovie.getTitle());
 
 				return createdMovie;
 
@@ -106,6 +146,8 @@ public class MovieServiceImpl implements MovieService {
 
 				/* Commit. */
 				connection.commit();
+				searchCache.invalidate(movie.getMovieId());
+				searchCache.invalidateMatching(movie.getTitle());
 
 			} catch (InstanceNotFoundException e) {
 				connection.commit();
@@ -143,6 +185,7 @@ public class MovieServiceImpl implements MovieService {
 
 				/* Commit. */
 				connection.commit();
+				searchCache.invalidate(movieId);
 
 			} catch (InstanceNotFoundException | MovieNotRemovableException e) {
 				connection.commit();
@@ -172,16 +215,77 @@ public class MovieServiceImpl implements MovieService {
 
 	}
 
+	@Override
+	public List<Movie> findMoviesByIds(List<Long> movieIds) {
+
+		try (Connection connection = dataSource.getConnection()) {
+			return movieDao.findByIds(connection, movieIds);
+		} catch (SQLException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	@Override
+	public Map<Long, Long> findMovieVersions(List<Long> movieIds) {
+
+		try (Connection connection = dataSource.getConnection()) {
+			return movieDao.findVersionsByIds(connection, movieIds);
+		} catch (SQLException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
 	@Override
 	public List<Movie> findMovies(String keywords) {
 
+		if (keywords != null) {
+			List<Movie> cachedMovies = searchCache.get(keywords, false);
+			if (cachedMovies != null) {
+				return cachedMovies;
+			}
+		}
+
+		/* Read before querying, so that concurrent writes discard the result. */
+		long version = searchCache.getVersion();
+
 		try (Connection connection = dataSource.getConnection()) {
-			return movieDao.findByKeywords(connection, keywords);
+			List<Movie> movies = movieDao.findByKeywords(connection, keywords);
+			if (keywords != null) {
+				searchCache.put(keywords, false, movies, version, Long.MAX_VALUE);
+			}
+			return movies;
 		} catch (SQLException e) {
 			throw new RuntimeException(e);
 		}
 	}
 
+	@Override
+	public ResultSetCursor<Movie> streamMovies(String keywords) {
+
+		Connection connection = null;
+
+		try {
+			connection = dataSource.getConnection();
+			return movieDao.streamByKeywords(connection, keywords).closing(connection);
+		} catch (SQLException e) {
+			closeQuietly(connection);
+			throw new RuntimeException(e);
+		} catch (RuntimeException | Error e) {
+			closeQuietly(connection);
+			throw e;
+		}
+	}
+
+	private static void closeQuietly(Connection connection) {
+		if (connection != null) {
+			try {
+				connection.close();
+			} catch (SQLException e) {
+				/* The original exception is more relevant. */
+			}
+		}
+	}
+
 	@Override
 	public Sale buyMovie(Long movieId, String userId, String creditCardNumber)
 			throws InstanceNotFoundException, InputValidationException {
@@ -224,6 +328,65 @@ public class MovieServiceImpl implements MovieService {
 
 	}
 
+	@Override
+	public List<Sale> buyMovies(List<Purchase> purchases)
+			throws InstanceNotFoundException, InputValidationException {
+
+		List<Long> movieIds = new ArrayList<>(purchases.size());
+		for (Purchase purchase : purchases) {
+			PropertyValidator.validateCreditCard(purchase.getCreditCardNumber());
+			movieIds.add(purchase.getMovieId());
+		}
+
+		try (Connection connection = dataSource.getConnection()) {
+
+			try {
+
+				/* Prepare connection. */
+				connection.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+				connection.setAutoCommit(false);
+
+				/* Do work. */
+				Map<Long, Movie> movies = new HashMap<>();
+				for (Movie movie : movieDao.findByIds(connection, movieIds)) {
+					movies.put(movie.getMovieId(), movie);
+				}
+				LocalDateTime saleDate = LocalDateTime.now();
+				LocalDateTime expirationDate = saleDate.plusDays(SALE_EXPIRATION_DAYS);
+				List<Sale> sales = new ArrayList<>(purchases.size());
+				for (Purchase purchase : purchases) {
+					Movie movie = movies.get(purchase.getMovieId());
+					if (movie == null) {
+						throw new InstanceNotFoundException(purchase.getMovieId(), Movie.class.getName());
+					}
+					sales.add(new Sale(purchase.getMovieId(), purchase.getUserId(), expirationDate,
+							purchase.getCreditCardNumber(), movie.getPrice(), getMovieUrl(purchase.getMovieId()),
+							saleDate));
+				}
+				List<Sale> createdSales = saleDao.createAll(connection, sales);
+
+				/* Commit. */
+				connection.commit();
+
+				return createdSales;
+
+			} catch (InstanceNotFoundException e) {
+				connection.commit();
+				throw e;
+			} catch (SQLException e) {
+				connection.rollback();
+				throw new RuntimeException(e);
+			} catch (RuntimeException | Error e) {
+				connection.rollback();
+				throw e;
+			}
+
+		} catch (SQLException e) {
+			throw new RuntimeException(e);
+		}
+
+	}
+
 	@Override
 	public Sale findSale(Long saleId) throws InstanceNotFoundException, SaleExpirationException {
 
@@ -11,6 +11,18 @@ import es.udc.ws.util.exceptions.InstanceNotFoundException;
 
 public abstract class AbstractSqlSaleDao implements SqlSaleDao {
 
+    private static final String FIND_QUERY = "SELECT movieId, userId, expirationDate,"
+            + " creditCardNumber, price, movieUrl, saleDate FROM Sale WHERE saleId = ?";
+
+    private static final String COUNT_BY_MOVIE_ID_QUERY =
+            "SELECT COUNT(*) FROM Sale WHERE movieId = ?";
+
+    private static final String UPDATE_QUERY = "UPDATE Sale"
+            + " SET movieId = ?, userId = ?, expirationDate = ?, "
+            + " creditCardNumber = ?, price = ? WHERE saleId = ?";
+
+    private static final String REMOVE_QUERY = "DELETE FROM Sale WHERE saleId = ?";
+
     protected AbstractSqlSaleDao() {
     }
 
@@ -18,11 +30,7 @@ public abstract class AbstractSqlSaleDao implements SqlSaleDao {
     public Sale find(Connection connection, Long saleId)
             throws InstanceNotFoundException {
 
-        /* Create "queryString". */
-        String queryString = "SELECT movieId, userId, expirationDate,"
-                + " creditCardNumber, price, movieUrl, saleDate FROM Sale WHERE saleId = ?";
-
-        try (PreparedStatement preparedStatement = connection.prepareStatement(queryString)) {
+        try (PreparedStatement preparedStatement = connection.prepareStatement(FIND_QUERY)) {
 
             /* Fill "preparedStatement". */
             int i = 1;
@@ -62,10 +70,8 @@ public abstract class AbstractSqlSaleDao implements SqlSaleDao {
 
     public boolean existsByMovieId(Connection connection, Long movieId) {
 
-        /* Create "queryString". */
-        String queryString = "SELECT COUNT(*) FROM Sale WHERE movieId = ?";
-
-        try (PreparedStatement preparedStatement = connection.prepareStatement(queryString)) {
+        try (PreparedStatement preparedStatement =
+                connection.prepareStatement(COUNT_BY_MOVIE_ID_QUERY)) {
 
             /* Fill "preparedStatement". */
             int i = 1;
@@ -95,12 +101,7 @@ public abstract class AbstractSqlSaleDao implements SqlSaleDao {
     public void update(Connection connection, Sale sale)
             throws InstanceNotFoundException {
 
-        /* Create "queryString". */
-        String queryString = "UPDATE Sale"
-                + " SET movieId = ?, userId = ?, expirationDate = ?, "
-                + " creditCardNumber = ?, price = ? WHERE saleId = ?";
-
-        try (PreparedStatement preparedStatement = connection.prepareStatement(queryString)) {
+        try (PreparedStatement preparedStatement = connection.prepareStatement(UPDATE_QUERY)) {
 
             /* Fill "preparedStatement". */
             int i = 1;
@@ -130,10 +131,7 @@ public abstract class AbstractSqlSaleDao implements SqlSaleDao {
     public void remove(Connection connection, Long saleId)
             throws InstanceNotFoundException {
 
-        /* Create "queryString". */
-        String queryString = "DELETE FROM Sale WHERE" + " saleId = ?";
-
-        try (PreparedStatement preparedStatement = connection.prepareStatement(queryString)) {
+        try (PreparedStatement preparedStatement = connection.prepareStatement(REMOVE_QUERY)) {
 
             /* Fill "preparedStatement". */
             int i = 1;
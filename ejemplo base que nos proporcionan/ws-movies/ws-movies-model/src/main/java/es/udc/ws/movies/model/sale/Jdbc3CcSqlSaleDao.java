@@ -6,31 +6,23 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
 
 public class Jdbc3CcSqlSaleDao extends AbstractSqlSaleDao {
 
+    private static final String CREATE_QUERY = "INSERT INTO Sale"
+            + " (movieId, userId, expirationDate, creditCardNumber,"
+            + " price, movieUrl, saleDate) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
     @Override
     public Sale create(Connection connection, Sale sale) {
 
-        /* Create "queryString". */
-        String queryString = "INSERT INTO Sale"
-                + " (movieId, userId, expirationDate, creditCardNumber,"
-                + " price, movieUrl, saleDate) VALUES (?, ?, ?, ?, ?, ?, ?)";
-
-
         try (PreparedStatement preparedStatement = connection.prepareStatement(
-                        queryString, Statement.RETURN_GENERATED_KEYS)) {
+                        CREATE_QUERY, Statement.RETURN_GENERATED_KEYS)) {
 
             /* Fill "preparedStatement". */
-            int i = 1;
-            preparedStatement.setLong(i++, sale.getMovieId());
-            preparedStatement.setString(i++, sale.getUserId());
-			Timestamp date = sale.getExpirationDate() != null ? Timestamp.valueOf(sale.getExpirationDate()) : null;
-            preparedStatement.setTimestamp(i++, date);
-            preparedStatement.setString(i++, sale.getCreditCardNumber());
-            preparedStatement.setFloat(i++, sale.getPrice());
-            preparedStatement.setString(i++, sale.getMovieUrl());
-            preparedStatement.setTimestamp(i++, Timestamp.valueOf(sale.getSaleDate()));
+            fillCreateStatement(preparedStatement, sale);
 
             /* Execute query. */
             preparedStatement.executeUpdate();
@@ -54,4 +46,62 @@ public class Jdbc3CcSqlSaleDao extends AbstractSqlSaleDao {
         }
 
     }
+
+    @Override
+    public List<Sale> createAll(Connection connection, List<Sale> sales) {
+
+        if (sales.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        try (PreparedStatement preparedStatement = connection.prepareStatement(
+                        CREATE_QUERY, Statement.RETURN_GENERATED_KEYS)) {
+
+            /* Fill "preparedStatement" (one batch entry per sale). */
+            for (Sale sale : sales) {
+                fillCreateStatement(preparedStatement, sale);
+                preparedStatement.addBatch();
+            }
+
+            /* Execute query. */
+            preparedStatement.executeBatch();
+
+            /* Get generated identifiers (in insertion order). */
+            ResultSet resultSet = preparedStatement.getGeneratedKeys();
+            List<Sale> createdSales = new ArrayList<>(sales.size());
+
+            for (Sale sale : sales) {
+                if (!resultSet.next()) {
+                    throw new SQLException(
+                            "JDBC driver did not return generated key.");
+                }
+                createdSales.add(new Sale(resultSet.getLong(1), sale.getMovieId(),
+                        sale.getUserId(), sale.getExpirationDate(),
+                        sale.getCreditCardNumber(), sale.getPrice(),
+                        sale.getMovieUrl(), sale.getSaleDate()));
+            }
+
+            /* Return sales. */
+            return createdSales;
+
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+
+    }
+
+    private static void fillCreateStatement(PreparedStatement preparedStatement,
+            Sale sale) throws SQLException {
+
+        int i = 1;
+        preparedStatement.setLong(i++, sale.getMovieId());
+        preparedStatement.setString(i++, sale.getUserId());
+        Timestamp date = sale.getExpirationDate() != null ? Timestamp.valueOf(sale.getExpirationDate()) : null;
+        preparedStatement.setTimestamp(i++, date);
+        preparedStatement.setString(i++, sale.getCreditCardNumber());
+        preparedStatement.setFloat(i++, sale.getPrice());
+        preparedStatement.setString(i++, sale.getMovieUrl());
+        preparedStatement.setTimestamp(i++, Timestamp.valueOf(sale.getSaleDate()));
+
+    }
 }
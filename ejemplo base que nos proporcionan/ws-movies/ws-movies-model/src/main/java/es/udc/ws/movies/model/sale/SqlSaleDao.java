@@ -1,6 +1,7 @@
 package es.udc.ws.movies.model.sale;
 
 import java.sql.Connection;
+import java.util.List;
 
 import es.udc.ws.util.exceptions.InstanceNotFoundException;
 
@@ -8,6 +9,8 @@ public interface SqlSaleDao {
 
     public Sale create(Connection connection, Sale sale);
 
+    public List<Sale> createAll(Connection connection, List<Sale> sales);
+
     public Sale find(Connection connection, Long saleId)
             throws InstanceNotFoundException;
 
@@ -12,13 +12,18 @@ DROP TABLE Sale;
 DROP TABLE Movie;
 
 -- --------------------------------- Movie ------------------------------------
+-- "title" uses a case-insensitive collation (it was latin1_bin) so that the
+-- FULLTEXT search on it ignores case, like the LIKE search did. As a side
+-- effect, ORDER BY title no longer sorts upper case before lower case.
 CREATE TABLE Movie ( movieId BIGINT NOT NULL AUTO_INCREMENT,
-    title VARCHAR(255) COLLATE latin1_bin NOT NULL,
+    title VARCHAR(255) COLLATE latin1_swedish_ci NOT NULL,
     runtime SMALLINT NOT NULL,
     description VARCHAR(1024) COLLATE latin1_bin NOT NULL,
     price FLOAT NOT NULL,
     creationDate DATETIME NOT NULL,
+    version BIGINT NOT NULL DEFAULT 0,
     CONSTRAINT MoviePK PRIMARY KEY(movieId), 
+    FULLTEXT INDEX MovieTitleFT (title),
     CONSTRAINT validRuntime CHECK ( runtime >= 0 AND runtime <= 1000 ),
     CONSTRAINT validPrice CHECK ( price >= 0 AND price <= 1000) ) ENGINE = InnoDB;
 
@@ -6,14 +6,24 @@ import static es.udc.ws.movies.model.util.ModelConstants.MAX_RUNTIME;
 import static es.udc.ws.movies.model.util.ModelConstants.MOVIE_DATA_SOURCE;
 import static es.udc.ws.movies.model.util.ModelConstants.SALE_EXPIRATION_DAYS;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import javax.sql.DataSource;
 
@@ -21,17 +31,24 @@ import es.udc.ws.movies.model.movieservice.exceptions.MovieNotRemovableException
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import es.udc.ws.movies.model.movie.Jdbc3CcSqlMovieDao;
 import es.udc.ws.movies.model.movie.Movie;
+import es.udc.ws.movies.model.movie.SqlMovieDao;
+import es.udc.ws.movies.model.movieservice.AsyncMovieService;
 import es.udc.ws.movies.model.movieservice.MovieService;
 import es.udc.ws.movies.model.movieservice.MovieServiceFactory;
+import es.udc.ws.movies.model.movieservice.Purchase;
 import es.udc.ws.movies.model.movieservice.exceptions.SaleExpirationException;
 import es.udc.ws.movies.model.sale.Sale;
 import es.udc.ws.movies.model.sale.SqlSaleDao;
 import es.udc.ws.movies.model.sale.SqlSaleDaoFactory;
+import es.udc.ws.util.cache.SearchResultCache;
 import es.udc.ws.util.exceptions.InputValidationException;
 import es.udc.ws.util.exceptions.InstanceNotFoundException;
 import es.udc.ws.util.sql.DataSourceLocator;
-import es.udc.ws.util.sql.SimpleDataSource;
+import es.udc.ws.util.sql.PooledDataSource;
+import es.udc.ws.util.sql.ResultSetCursor;
+import es.udc.ws.util.sql.StatementStatistics;
 
 
 public class MovieServiceTest {
@@ -47,17 +64,19 @@ public class MovieServiceTest {
 
 	private static SqlSaleDao saleDao = null;
 
+	private static PooledDataSource pooledDataSource = null;
+
 	@BeforeAll
 	public static void init() {
 
 		/*
-		 * Create a simple data source and add it to "DataSourceLocator" (this
+		 * Create a pooled data source and add it to "DataSourceLocator" (this
 		 * is needed to test "es.udc.ws.movies.model.movieservice.MovieService"
 		 */
-		DataSource dataSource = new SimpleDataSource();
+		pooledDataSource = new PooledDataSource();
 
-		/* Add "dataSource" to "DataSourceLocator". */
-		DataSourceLocator.addDataSource(MOVIE_DATA_SOURCE, dataSource);
+		/* Add "pooledDataSource" to "DataSourceLocator". */
+		DataSourceLocator.addDataSource(MOVIE_DATA_SOURCE, pooledDataSource);
 
 		movieService = MovieServiceFactory.getService();
 
@@ -95,6 +114,24 @@ public class MovieServiceTest {
 
 	}
 
+	private static Connection withoutFullTextIndex(Connection connection) {
+
+		return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+				new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+					if (method.getName().equals("prepareStatement")
+							&& ((String) args[0]).contains("MATCH")) {
+						throw new SQLException("Can't find FULLTEXT index matching the column list",
+								"HY000", 1191);
+					}
+					try {
+						return method.invoke(connection, args);
+					} catch (InvocationTargetException e) {
+						throw e.getCause();
+					}
+				});
+
+	}
+
 	private void removeSale(Long saleId) {
 
 		DataSource dataSource = DataSourceLocator.getDataSource(MOVIE_DATA_SOURCE);
@@ -286,6 +323,11 @@ public class MovieServiceTest {
 			
 			movieToUpdate.setCreationDate(movie.getCreationDate());
 			assertEquals(movieToUpdate, updatedMovie);
+			assertEquals(movie.getVersion() + 1, updatedMovie.getVersion());
+			assertEquals(List.of(updatedMovie.getVersion()), movieService.findMoviesByIds(List.of(movie.getMovieId()))
+					.stream().map(Movie::getVersion).toList());
+			assertEquals(Map.of(movie.getMovieId(), updatedMovie.getVersion()),
+					movieService.findMovieVersions(List.of(movie.getMovieId())));
 
 		} finally {
 			// Clear Database
@@ -385,6 +427,244 @@ public class MovieServiceTest {
 
 	}
 
+	@Test
+	public void testFindMoviesFullText() {
+
+		// Add movies
+		Movie movie1 = createMovie(getValidMovie("Ranking quest"));
+		Movie movie2 = createMovie(getValidMovie("Ranking ranking ranking zeta"));
+		Movie movie3 = createMovie(getValidMovie("Unrelated feature"));
+		Movie movie4 = createMovie(getValidMovie("Another feature"));
+
+		try {
+			// Ordered by relevance, not by title
+			assertEquals(List.of(movie2, movie1), movieService.findMovies("ranking"));
+
+			// Every word is required, as a case-insensitive prefix
+			assertEquals(List.of(movie1), movieService.findMovies("RANK QUEST"));
+			assertEquals(List.of(movie2), movieService.findMovies("ranking zet"));
+			assertEquals(0, movieService.findMovies("ranking feature").size());
+
+			// Words are matched from their start, unlike LIKE
+			assertEquals(0, movieService.findMovies("anking").size());
+
+			// A word shorter than 3 characters falls back to LIKE
+			assertEquals(List.of(movie1), movieService.findMovies("ng qu"));
+		} finally {
+			// Clear Database
+			removeMovie(movie1.getMovieId());
+			removeMovie(movie2.getMovieId());
+			removeMovie(movie3.getMovieId());
+			removeMovie(movie4.getMovieId());
+		}
+
+	}
+
+	@Test
+	public void testFindMoviesLike() throws SQLException {
+
+		// Add movies
+		Movie movie1 = createMovie(getValidMovie("Ranking quest"));
+		Movie movie2 = createMovie(getValidMovie("Ranking ranking ranking zeta"));
+
+		DataSource dataSource = DataSourceLocator.getDataSource(MOVIE_DATA_SOURCE);
+
+		try (Connection connection = dataSource.getConnection()) {
+
+			/* LIKE keeps the substring matching and title order. */
+			SqlMovieDao likeMovieDao = new Jdbc3CcSqlMovieDao(false);
+			assertEquals(List.of(movie1, movie2), likeMovieDao.findByKeywords(connection, "anking"));
+			assertEquals(List.of(movie1), likeMovieDao.findByKeywords(connection, "QUEST ank"));
+
+			/* Without the FULLTEXT index (error 1191) LIKE is used instead. */
+			SqlMovieDao fullTextMovieDao = new Jdbc3CcSqlMovieDao(true);
+			assertEquals(List.of(movie1, movie2),
+					fullTextMovieDao.findByKeywords(withoutFullTextIndex(connection), "ranking"));
+			assertEquals(List.of(movie1, movie2), fullTextMovieDao.findByKeywords(connection, "anking"));
+		} finally {
+			// Clear Database
+			removeMovie(movie1.getMovieId());
+			removeMovie(movie2.getMovieId());
+		}
+
+	}
+
+	@Test
+	public void testFindMoviesByIds() {
+
+		// Add movies
+		Movie movie1 = createMovie(getValidMovie("movie title 1"));
+		Movie movie2 = createMovie(getValidMovie("movie title 2"));
+		Movie movie3 = createMovie(getValidMovie("movie title 3"));
+
+		try {
+			// Requested order is kept, duplicates and unknown ids are skipped
+			List<Movie> foundMovies = movieService.findMoviesByIds(Arrays.asList(movie3.getMovieId(),
+					NON_EXISTENT_MOVIE_ID, movie1.getMovieId(), movie3.getMovieId(), movie2.getMovieId()));
+			assertEquals(Arrays.asList(movie3, movie1, movie2), foundMovies);
+
+			// Versions follow the same order
+			Map<Long, Long> versions = movieService.findMovieVersions(Arrays.asList(movie3.getMovieId(),
+					NON_EXISTENT_MOVIE_ID, movie1.getMovieId(), movie3.getMovieId(), movie2.getMovieId()));
+			assertEquals(Arrays.asList(movie3.getMovieId(), movie1.getMovieId(), movie2.getMovieId()),
+					new ArrayList<>(versions.keySet()));
+			assertEquals(Arrays.asList(movie3.getVersion(), movie1.getVersion(), movie2.getVersion()),
+					new ArrayList<>(versions.values()));
+
+			assertEquals(0, movieService.findMoviesByIds(new ArrayList<>()).size());
+			assertEquals(0, movieService.findMovieVersions(new ArrayList<>()).size());
+		} finally {
+			// Clear Database
+			removeMovie(movie1.getMovieId());
+			removeMovie(movie2.getMovieId());
+			removeMovie(movie3.getMovieId());
+		}
+
+	}
+
+	@Test
+	public void testFindMoviesCache() throws InputValidationException, InstanceNotFoundException {
+
+		SearchResultCache<?> searchCache = SearchResultCache.getCaches().stream()
+				.filter(c -> c.getName().equals("MovieService.findMovies"))
+				.findFirst().orElseThrow();
+
+		Movie movie1 = createMovie(getValidMovie("search cache title 1"));
+		Movie movie2 = null;
+
+		try {
+			/* Same normalized keywords: served from the cache, as a copy. */
+			List<Movie> foundMovies = movieService.findMovies("Search Cache");
+			assertEquals(List.of(movie1), foundMovies);
+			foundMovies.get(0).setTitle("modified");
+			long hits = searchCache.getHitCount();
+			assertEquals(List.of(movie1), movieService.findMovies("  search   CACHE "));
+			assertEquals(hits + 1, searchCache.getHitCount());
+
+			/* Writes invalidate the results they affect. */
+			movie2 = createMovie(getValidMovie("another search cache title"));
+			assertEquals(Set.of(movie1, movie2), new HashSet<>(movieService.findMovies("search cache")));
+
+			movie1.setTitle("search cache title 3");
+			movieService.updateMovie(movie1);
+			assertEquals(Set.of(movie1, movie2), new HashSet<>(movieService.findMovies("search cache")));
+			assertEquals(List.of(movie1), movieService.findMovies("search cache title 3"));
+
+			removeMovie(movie2.getMovieId());
+			movie2 = null;
+			assertEquals(List.of(movie1), movieService.findMovies("search cache"));
+		} finally {
+			// Clear Database
+			removeMovie(movie1.getMovieId());
+			if (movie2 != null) {
+				removeMovie(movie2.getMovieId());
+			}
+		}
+
+	}
+
+	@Test
+	public void testStreamMovies() {
+
+		// Add movies
+		List<Movie> movies = new LinkedList<Movie>();
+		Movie movie1 = createMovie(getValidMovie("streamed title 1"));
+		movies.add(movie1);
+		Movie movie2 = createMovie(getValidMovie("streamed title 2"));
+		movies.add(movie2);
+
+		try {
+			List<Movie> foundMovies = new LinkedList<Movie>();
+			try (ResultSetCursor<Movie> cursor = movieService.streamMovies("Streamed Title")) {
+				cursor.forEachRemaining(foundMovies::add);
+				assertFalse(cursor.hasNext());
+			}
+			assertEquals(movies, foundMovies);
+
+			try (ResultSetCursor<Movie> cursor = movieService.streamMovies("st title 2")) {
+				assertEquals(List.of(movie2), cursor.toList());
+			}
+
+			/* The connection is back in the pool and usable after closing the cursor. */
+			assertEquals(movies, movieService.findMovies("streamed title"));
+		} finally {
+			// Clear Database
+			for (Movie movie : movies) {
+				removeMovie(movie.getMovieId());
+			}
+		}
+
+	}
+
+	@Test
+	public void testStatementCache() throws InstanceNotFoundException {
+
+		Movie movie = createMovie(getValidMovie("cached title"));
+
+		try {
+			long hits = pooledDataSource.getStatementCacheHitCount();
+
+			/* At most one miss per pooled connection. */
+			for (int i = 0; i < 20; i++) {
+				assertEquals(movie, movieService.findMovie(movie.getMovieId()));
+			}
+			assertTrue(pooledDataSource.getStatementCacheHitCount() >=
+					hits + 20 - pooledDataSource.getMaxSize());
+
+			StatementStatistics findStatistics = pooledDataSource.getStatementStatistics().stream()
+					.filter(s -> s.getSql().endsWith("FROM Movie WHERE movieId = ?"))
+					.findFirst().orElseThrow();
+			assertTrue(findStatistics.getHitRate() > 0);
+
+			/* A cached statement used for streaming is reset before being reused. */
+			try (ResultSetCursor<Movie> cursor = movieService.streamMovies("cached title")) {
+				assertEquals(List.of(movie), cursor.toList());
+			}
+			assertEquals(List.of(movie), movieService.findMovies("cached title"));
+			assertEquals(List.of(movie), movieService.findMovies("cached title"));
+		} finally {
+			// Clear Database
+			removeMovie(movie.getMovieId());
+		}
+
+	}
+
+	@Test
+	public void testAsyncMovieService() throws InterruptedException, ExecutionException {
+
+		AsyncMovieService asyncMovieService = MovieServiceFactory.getAsyncService();
+
+		Movie movie = asyncMovieService.addMovie(getValidMovie("async title")).get();
+		List<Sale> sales = new LinkedList<Sale>();
+
+		try {
+			/* More purchases than connections in the pool. */
+			List<CompletableFuture<Sale>> futures = new LinkedList<CompletableFuture<Sale>>();
+			for (int i = 0; i < 50; i++) {
+				futures.add(asyncMovieService.buyMovie(movie.getMovieId(), USER_ID, VALID_CREDIT_CARD_NUMBER));
+			}
+			for (CompletableFuture<Sale> future : futures) {
+				sales.add(future.get());
+			}
+			assertEquals(50, sales.size());
+
+			assertEquals(movie, asyncMovieService.findMovie(movie.getMovieId()).get());
+			assertEquals(List.of(movie), asyncMovieService.findMovies("async title").get());
+
+			/* Exceptions are not wrapped by the service. */
+			ExecutionException e = assertThrows(ExecutionException.class,
+					() -> asyncMovieService.findMovie(NON_EXISTENT_MOVIE_ID).get());
+			assertTrue(e.getCause() instanceof InstanceNotFoundException);
+		} finally {
+			// Clear Database
+			for (Sale sale : sales) {
+				removeSale(sale.getSaleId());
+			}
+			removeMovie(movie.getMovieId());
+		}
+
+	}
+
 	@Test
 	public void testBuyMovieAndFindSale()
 			throws InstanceNotFoundException, InputValidationException, SaleExpirationException {
@@ -426,6 +706,62 @@ public class MovieServiceTest {
 
 	}
 
+	@Test
+	public void testBuyMovies()
+			throws InstanceNotFoundException, InputValidationException, SaleExpirationException {
+
+		Movie movie1 = createMovie(getValidMovie("movie title 1"));
+		Movie movie2 = createMovie(getValidMovie("movie title 2"));
+		List<Sale> sales = new ArrayList<>();
+
+		try {
+
+			// Buy movies
+			sales = movieService.buyMovies(Arrays.asList(
+					new Purchase(movie2.getMovieId(), USER_ID, VALID_CREDIT_CARD_NUMBER),
+					new Purchase(movie1.getMovieId(), USER_ID, VALID_CREDIT_CARD_NUMBER),
+					new Purchase(movie2.getMovieId(), "other-user", VALID_CREDIT_CARD_NUMBER)));
+
+			// Check sales
+			assertEquals(3, sales.size());
+			assertEquals(movie2.getMovieId(), sales.get(0).getMovieId());
+			assertEquals(movie1.getMovieId(), sales.get(1).getMovieId());
+			assertEquals(movie2.getMovieId(), sales.get(2).getMovieId());
+			assertEquals("other-user", sales.get(2).getUserId());
+			for (Sale sale : sales) {
+				assertEquals(sale, movieService.findSale(sale.getSaleId()));
+			}
+
+		} finally {
+			// Clear database
+			for (Sale sale : sales) {
+				removeSale(sale.getSaleId());
+			}
+			removeMovie(movie1.getMovieId());
+			removeMovie(movie2.getMovieId());
+		}
+
+	}
+
+	@Test
+	public void testBuyMoviesIsAtomic() {
+
+		Movie movie = createMovie(getValidMovie());
+
+		try {
+			assertThrows(InstanceNotFoundException.class, () -> movieService.buyMovies(Arrays.asList(
+					new Purchase(movie.getMovieId(), USER_ID, VALID_CREDIT_CARD_NUMBER),
+					new Purchase(NON_EXISTENT_MOVIE_ID, USER_ID, VALID_CREDIT_CARD_NUMBER))));
+			assertThrows(InputValidationException.class, () -> movieService.buyMovies(Arrays.asList(
+					new Purchase(movie.getMovieId(), USER_ID, VALID_CREDIT_CARD_NUMBER),
+					new Purchase(movie.getMovieId(), USER_ID, INVALID_CREDIT_CARD_NUMBER))));
+		} finally {
+			// Clear database (fails if some sale was created)
+			removeMovie(movie.getMovieId());
+		}
+
+	}
+
 	@Test
 	public void testBuyMovieWithInvalidCreditCard() {
 
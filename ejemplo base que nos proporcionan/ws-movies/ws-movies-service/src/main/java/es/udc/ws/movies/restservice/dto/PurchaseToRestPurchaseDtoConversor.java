@@ -0,0 +1,19 @@
+package es.udc.ws.movies.restservice.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import es.udc.ws.movies.model.movieservice.Purchase;
+
+public class PurchaseToRestPurchaseDtoConversor {
+
+    public static List<Purchase> toPurchases(List<RestPurchaseDto> purchaseDtos) {
+        List<Purchase> purchases = new ArrayList<>(purchaseDtos.size());
+        for (RestPurchaseDto purchaseDto : purchaseDtos) {
+            purchases.add(new Purchase(purchaseDto.getMovieId(), purchaseDto.getUserId(),
+                    purchaseDto.getCreditCardNumber()));
+        }
+        return purchases;
+    }
+
+}
@@ -0,0 +1,42 @@
+package es.udc.ws.movies.restservice.dto;
+
+public class RestPurchaseDto {
+
+    private Long movieId;
+    private String userId;
+    private String creditCardNumber;
+
+    public RestPurchaseDto() {
+    }
+
+    public RestPurchaseDto(Long movieId, String userId, String creditCardNumber) {
+        this.movieId = movieId;
+        this.userId = userId;
+        this.creditCardNumber = creditCardNumber;
+    }
+
+    public Long getMovieId() {
+        return movieId;
+    }
+
+    public void setMovieId(Long movieId) {
+        this.movieId = movieId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getCreditCardNumber() {
+        return creditCardNumber;
+    }
+
+    public void setCreditCardNumber(String creditCardNumber) {
+        this.creditCardNumber = creditCardNumber;
+    }
+
+}
@@ -1,10 +1,21 @@
 package es.udc.ws.movies.restservice.dto;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import es.udc.ws.movies.restservice.dto.RestSaleDto;
 import es.udc.ws.movies.model.sale.Sale;
 
 public class SaleToRestSaleDtoConversor {
 
+    public static List<RestSaleDto> toRestSaleDtos(List<Sale> sales) {
+        List<RestSaleDto> saleDtos = new ArrayList<>(sales.size());
+        for (Sale sale : sales) {
+            saleDtos.add(toRestSaleDto(sale));
+        }
+        return saleDtos;
+    }
+
     public static RestSaleDto toRestSaleDto(Sale sale) {
         return new RestSaleDto(sale.getSaleId(), sale.getMovieId(), sale
                 .getExpirationDate().toString(), sale.getMovieUrl());
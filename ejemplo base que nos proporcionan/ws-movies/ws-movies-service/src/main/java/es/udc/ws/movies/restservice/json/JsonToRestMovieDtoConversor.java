@@ -1,8 +1,10 @@
 package es.udc.ws.movies.restservice.json;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
@@ -11,7 +13,6 @@ import com.fasterxml.jackson.databind.node.JsonNodeType;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import es.udc.ws.movies.restservice.dto.RestMovieDto;
-import es.udc.ws.util.json.ObjectMapperFactory;
 import es.udc.ws.util.json.exceptions.ParsingException;
 
 public class JsonToRestMovieDtoConversor {
@@ -29,6 +30,17 @@ public class JsonToRestMovieDtoConversor {
 		return movieObject;
 	}
 
+	public static void writeRestMovieDto(JsonGenerator generator, RestMovieDto movie) throws IOException {
+
+		generator.writeStartObject();
+		generator.writeNumberField("movieId", movie.getMovieId());
+		generator.writeStringField("title", movie.getTitle());
+		generator.writeNumberField("runtime", movie.getRuntime());
+		generator.writeNumberField("price", movie.getPrice());
+		generator.writeStringField("description", movie.getDescription());
+		generator.writeEndObject();
+	}
+
 	public static ArrayNode toArrayNode(List<RestMovieDto> movies) {
 
 		ArrayNode moviesNode = JsonNodeFactory.instance.arrayNode();
@@ -41,9 +53,9 @@ public class JsonToRestMovieDtoConversor {
 		return moviesNode;
 	}
 
-	public static RestMovieDto toRestMovieDto(InputStream jsonMovie) throws ParsingException {
+	public static RestMovieDto toRestMovieDto(InputStream jsonMovie, ObjectMapper objectMapper)
+			throws ParsingException {
 		try {
-			ObjectMapper objectMapper = ObjectMapperFactory.instance();
 			JsonNode rootNode = objectMapper.readTree(jsonMovie);
 			
 			if (rootNode.getNodeType() != JsonNodeType.OBJECT) {
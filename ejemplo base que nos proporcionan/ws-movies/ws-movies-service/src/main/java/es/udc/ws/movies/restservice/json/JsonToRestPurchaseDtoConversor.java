@@ -0,0 +1,44 @@
+package es.udc.ws.movies.restservice.json;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeType;
+
+import es.udc.ws.movies.restservice.dto.RestPurchaseDto;
+import es.udc.ws.util.json.exceptions.ParsingException;
+
+public class JsonToRestPurchaseDtoConversor {
+
+	public static List<RestPurchaseDto> toRestPurchaseDtos(InputStream jsonPurchases, ObjectMapper objectMapper)
+			throws ParsingException {
+		try {
+			JsonNode rootNode = objectMapper.readTree(jsonPurchases);
+
+			if (rootNode.getNodeType() != JsonNodeType.ARRAY) {
+				throw new ParsingException("Unrecognized JSON (array expected)");
+			} else {
+				List<RestPurchaseDto> purchaseDtos = new ArrayList<>(rootNode.size());
+				for (JsonNode purchaseNode : rootNode) {
+					if (purchaseNode.getNodeType() != JsonNodeType.OBJECT) {
+						throw new ParsingException("Unrecognized JSON (object expected)");
+					}
+					Long movieId = purchaseNode.get("movieId").longValue();
+					String userId = purchaseNode.get("userId").textValue().trim();
+					String creditCardNumber = purchaseNode.get("creditCardNumber").textValue().trim();
+
+					purchaseDtos.add(new RestPurchaseDto(movieId, userId, creditCardNumber));
+				}
+				return purchaseDtos;
+			}
+		} catch (ParsingException ex) {
+			throw ex;
+		} catch (Exception e) {
+			throw new ParsingException(e);
+		}
+	}
+
+}
@@ -1,5 +1,8 @@
 package es.udc.ws.movies.restservice.json;
 
+import java.util.List;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
@@ -21,4 +24,14 @@ public class JsonToRestSaleDtoConversor {
         return saleNode;
     }
 
+	public static ArrayNode toArrayNode(List<RestSaleDto> sales) {
+
+		ArrayNode salesNode = JsonNodeFactory.instance.arrayNode();
+		for (RestSaleDto sale : sales) {
+			salesNode.add(toObjectNode(sale));
+		}
+
+		return salesNode;
+	}
+
 }
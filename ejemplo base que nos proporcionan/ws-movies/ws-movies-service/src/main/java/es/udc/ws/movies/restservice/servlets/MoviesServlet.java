@@ -1,7 +1,9 @@
 package es.udc.ws.movies.restservice.servlets;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -12,24 +14,28 @@ import es.udc.ws.movies.model.movieservice.exceptions.MovieNotRemovableException
 import es.udc.ws.movies.model.movieservice.exceptions.SaleExpirationException;
 import es.udc.ws.movies.restservice.dto.RestMovieDto;
 import es.udc.ws.movies.model.movie.Movie;
+import es.udc.ws.movies.model.movieservice.MovieService;
 import es.udc.ws.movies.model.movieservice.MovieServiceFactory;
 import es.udc.ws.movies.restservice.json.JsonToRestMovieDtoConversor;
 import es.udc.ws.movies.restservice.dto.MovieToRestMovieDtoConversor;
 import es.udc.ws.movies.restservice.json.MoviesExceptionToJsonConversor;
 import es.udc.ws.util.exceptions.InputValidationException;
 import es.udc.ws.util.exceptions.InstanceNotFoundException;
-import es.udc.ws.util.servlet.RestHttpServletTemplate;
+import es.udc.ws.util.json.ObjectMapperFactory;
+import es.udc.ws.util.servlet.AsyncRestHttpServletTemplate;
 import es.udc.ws.util.servlet.ServletUtils;
+import es.udc.ws.util.sql.ResultSetCursor;
 
 @SuppressWarnings("serial")
-public class MoviesServlet extends RestHttpServletTemplate {
+public class MoviesServlet extends AsyncRestHttpServletTemplate {
 
 	@Override
 	protected void processPost(HttpServletRequest req, HttpServletResponse resp) throws IOException,
 			InputValidationException {
 		ServletUtils.checkEmptyPath(req);
 
-		RestMovieDto movieDto = JsonToRestMovieDtoConversor.toRestMovieDto(req.getInputStream());
+		RestMovieDto movieDto = JsonToRestMovieDtoConversor.toRestMovieDto(req.getInputStream(),
+				ObjectMapperFactory.instance(req.getContentType()));
 		Movie movie = MovieToRestMovieDtoConversor.toMovie(movieDto);
 
 		movie = MovieServiceFactory.getService().addMovie(movie);
@@ -47,7 +53,8 @@ public class MoviesServlet extends RestHttpServletTemplate {
 			InputValidationException, InstanceNotFoundException {
 		Long movieId = ServletUtils.getIdFromPath(req, "movie");
 
-		RestMovieDto movieDto = JsonToRestMovieDtoConversor.toRestMovieDto(req.getInputStream());
+		RestMovieDto movieDto = JsonToRestMovieDtoConversor.toRestMovieDto(req.getInputStream(),
+				ObjectMapperFactory.instance(req.getContentType()));
 		if (!movieId.equals(movieDto.getMovieId())) {
 			throw new InputValidationException("Invalid Request: invalid movieId");
 		}
@@ -79,13 +86,80 @@ public class MoviesServlet extends RestHttpServletTemplate {
 	protected void processGet(HttpServletRequest req, HttpServletResponse resp) throws IOException,
 			InputValidationException {
 		ServletUtils.checkEmptyPath(req);
+
+		String ids = req.getParameter("ids");
+		if (ids != null) {
+			MovieService movieService = MovieServiceFactory.getService();
+			List<Long> movieIds = toMovieIds(ids);
+			/* Only the versions are read to validate the client's copy. */
+			if (ServletUtils.checkNotModified(req, resp,
+					toETag(resp.getContentType(), movieService.findMovieVersions(movieIds)), null)) {
+				return;
+			}
+			List<Movie> movies = movieService.findMoviesByIds(movieIds);
+			/* A movie may have been updated after its version was read. */
+			resp.setHeader("ETag", toETag(resp.getContentType(), toVersions(movies)));
+			ServletUtils.writeServiceResponse(resp, HttpServletResponse.SC_OK, movies.iterator(),
+					(generator, movie) -> JsonToRestMovieDtoConversor.writeRestMovieDto(generator,
+							MovieToRestMovieDtoConversor.toRestMovieDto(movie)), null);
+			return;
+		}
+
 		String keyWords = req.getParameter("keywords");
 
-		List<Movie> movies = MovieServiceFactory.getService().findMovies(keyWords);
+		/*
+		 * Movies are written as they are read, so the database connection is
+		 * held until the last one is handed to the container. Writes only
+		 * block when more than a few buffers are waiting for the client, so a
+		 * slow client holds the connection longer only for large results
+		 * (reading them all first with "findMovies" would free it earlier, at
+		 * the cost of memory). A failure after the first
+		 * ServletUtils.DEFAULT_STREAMING_BUFFER_SIZE bytes cannot change the
+		 * status any more: the response is aborted with the array unclosed.
+		 */
+		try (ResultSetCursor<Movie> movies = MovieServiceFactory.getService().streamMovies(keyWords)) {
+			ServletUtils.writeServiceResponse(resp, HttpServletResponse.SC_OK, movies,
+					(generator, movie) -> JsonToRestMovieDtoConversor.writeRestMovieDto(generator,
+							MovieToRestMovieDtoConversor.toRestMovieDto(movie)), null);
+		}
+	}
 
-		List<RestMovieDto> movieDtos = MovieToRestMovieDtoConversor.toRestMovieDtos(movies);
-		ServletUtils.writeServiceResponse(resp, HttpServletResponse.SC_OK,
-				JsonToRestMovieDtoConversor.toArrayNode(movieDtos), null);
+	/*
+	 * The media type and the identifiers and versions of the movies (in
+	 * order) determine the response, so the client's copy can be validated
+	 * without reading or serializing the movies.
+	 */
+	private static String toETag(String mediaType, Map<Long, Long> versions) {
+		Object[] parts = new Object[2 * versions.size() + 1];
+		parts[0] = mediaType;
+		int i = 1;
+		for (Map.Entry<Long, Long> version : versions.entrySet()) {
+			parts[i++] = version.getKey();
+			parts[i++] = version.getValue();
+		}
+		return ServletUtils.toETag(parts);
+	}
+
+	private static Map<Long, Long> toVersions(List<Movie> movies) {
+		Map<Long, Long> versions = new LinkedHashMap<>();
+		for (Movie movie : movies) {
+			versions.put(movie.getMovieId(), movie.getVersion());
+		}
+		return versions;
+	}
+
+	private static List<Long> toMovieIds(String ids) throws InputValidationException {
+		List<Long> movieIds = new ArrayList<>();
+		for (String id : ids.split(",")) {
+			if (!id.isBlank()) {
+				try {
+					movieIds.add(Long.valueOf(id.trim()));
+				} catch (NumberFormatException ex) {
+					throw new InputValidationException("Invalid Request: parameter 'ids' is invalid '" + ids + "'");
+				}
+			}
+		}
+		return movieIds;
 	}
 
 }
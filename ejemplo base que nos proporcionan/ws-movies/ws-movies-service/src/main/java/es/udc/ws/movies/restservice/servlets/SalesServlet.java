@@ -2,30 +2,41 @@ package es.udc.ws.movies.restservice.servlets;
 
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
+import es.udc.ws.movies.restservice.dto.PurchaseToRestPurchaseDtoConversor;
+import es.udc.ws.movies.restservice.dto.RestPurchaseDto;
 import es.udc.ws.movies.restservice.dto.RestSaleDto;
 import es.udc.ws.movies.model.movieservice.MovieServiceFactory;
 import es.udc.ws.movies.model.movieservice.exceptions.SaleExpirationException;
 import es.udc.ws.movies.model.sale.Sale;
 import es.udc.ws.movies.restservice.json.MoviesExceptionToJsonConversor;
+import es.udc.ws.movies.restservice.json.JsonToRestPurchaseDtoConversor;
 import es.udc.ws.movies.restservice.json.JsonToRestSaleDtoConversor;
 import es.udc.ws.movies.restservice.dto.SaleToRestSaleDtoConversor;
 import es.udc.ws.util.exceptions.InputValidationException;
 import es.udc.ws.util.exceptions.InstanceNotFoundException;
-import es.udc.ws.util.servlet.RestHttpServletTemplate;
+import es.udc.ws.util.json.ObjectMapperFactory;
+import es.udc.ws.util.servlet.AsyncRestHttpServletTemplate;
 import es.udc.ws.util.servlet.ServletUtils;
 
 @SuppressWarnings("serial")
-public class SalesServlet extends RestHttpServletTemplate {
+public class SalesServlet extends AsyncRestHttpServletTemplate {
 
     @Override
     protected void processPost(HttpServletRequest req, HttpServletResponse resp) throws IOException,
             InputValidationException, InstanceNotFoundException {
         ServletUtils.checkEmptyPath(req);
+
+        if (ObjectMapperFactory.isSupported(req.getContentType())) {
+            processBatchPost(req, resp);
+            return;
+        }
+
         Long movieId = ServletUtils.getMandatoryParameterAsLong(req,"movieId");
         String userId = ServletUtils.getMandatoryParameter(req,"userId");
         String creditCardNumber = ServletUtils.getMandatoryParameter(req,"creditCardNumber");
@@ -40,6 +51,24 @@ public class SalesServlet extends RestHttpServletTemplate {
                 JsonToRestSaleDtoConversor.toObjectNode(saleDto), headers);
     }
 
+    /**
+     * Buys the movies of an array of purchases (in any media type of
+     * <code>ObjectMapperFactory</code>) in a single transaction.
+     */
+    private void processBatchPost(HttpServletRequest req, HttpServletResponse resp) throws IOException,
+            InputValidationException, InstanceNotFoundException {
+
+        List<RestPurchaseDto> purchaseDtos = JsonToRestPurchaseDtoConversor.toRestPurchaseDtos(req.getInputStream(),
+                ObjectMapperFactory.instance(req.getContentType()));
+
+        List<Sale> sales = MovieServiceFactory.getService().buyMovies(
+                PurchaseToRestPurchaseDtoConversor.toPurchases(purchaseDtos));
+
+        List<RestSaleDto> saleDtos = SaleToRestSaleDtoConversor.toRestSaleDtos(sales);
+        ServletUtils.writeServiceResponse(resp, HttpServletResponse.SC_CREATED,
+                JsonToRestSaleDtoConversor.toArrayNode(saleDtos), null);
+    }
+
     @Override
     protected void processGet(HttpServletRequest req, HttpServletResponse resp) throws IOException,
             InputValidationException, InstanceNotFoundException {
@@ -56,7 +85,7 @@ public class SalesServlet extends RestHttpServletTemplate {
         }
 
         RestSaleDto saleDto = SaleToRestSaleDtoConversor.toRestSaleDto(sale);
-        ServletUtils.writeServiceResponse(resp, HttpServletResponse.SC_OK,
+        ServletUtils.writeConditionalServiceResponse(req, resp,
                 JsonToRestSaleDtoConversor.toObjectNode(saleDto), null);
     }
 }
@@ -3,12 +3,32 @@ package es.udc.ws.movies.thriftservice;
 import es.udc.ws.movies.model.sale.Sale;
 import es.udc.ws.movies.thrift.ThriftSaleDto;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
 public class SaleToThriftSaleDtoConversor {
 
     public static ThriftSaleDto toThriftSaleDto(Sale sale) {
 
         return new ThriftSaleDto(sale.getSaleId(), sale.getSaleId(), sale.getExpirationDate().toString(),
-                sale.getMovieUrl());
+                sale.getMovieUrl()).setExpirationTime(toEpochMillis(sale.getExpirationDate()));
+
+    }
+
+    public static List<ThriftSaleDto> toThriftSaleDtos(List<Sale> sales) {
+
+        List<ThriftSaleDto> dtos = new ArrayList<>(sales.size());
+
+        for (Sale sale : sales) {
+            dtos.add(toThriftSaleDto(sale));
+        }
+        return dtos;
+
+    }
 
+    public static long toEpochMillis(LocalDateTime date) {
+        return date.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
     }
 }
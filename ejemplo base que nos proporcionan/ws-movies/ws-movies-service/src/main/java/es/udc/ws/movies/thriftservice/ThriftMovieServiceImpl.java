@@ -2,6 +2,7 @@ package es.udc.ws.movies.thriftservice;
 
 import es.udc.ws.movies.model.movie.Movie;
 import es.udc.ws.movies.model.movieservice.MovieServiceFactory;
+import es.udc.ws.movies.model.movieservice.Purchase;
 import es.udc.ws.movies.model.movieservice.exceptions.MovieNotRemovableException;
 import es.udc.ws.movies.model.movieservice.exceptions.SaleExpirationException;
 import es.udc.ws.movies.model.sale.Sale;
@@ -9,6 +10,7 @@ import es.udc.ws.movies.thrift.*;
 import es.udc.ws.util.exceptions.InputValidationException;
 import es.udc.ws.util.exceptions.InstanceNotFoundException;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class ThriftMovieServiceImpl implements ThriftMovieService.Iface {
@@ -68,6 +70,15 @@ public class ThriftMovieServiceImpl implements ThriftMovieService.Iface {
 
     }
 
+    @Override
+    public List<ThriftMovieDto> findMoviesByIds(List<Long> movieIds) {
+
+        List<Movie> movies = MovieServiceFactory.getService().findMoviesByIds(movieIds);
+
+        return MovieToThriftMovieDtoConversor.toThriftMovieDtos(movies);
+
+    }
+
     @Override
     public ThriftSaleDto buyMovie(long movieId, String userId, String creditCardNumber) throws ThriftInputValidationException,
             ThriftInstanceNotFoundException {
@@ -86,6 +97,30 @@ public class ThriftMovieServiceImpl implements ThriftMovieService.Iface {
 
     }
 
+    @Override
+    public List<ThriftSaleDto> buyMovies(List<ThriftPurchaseDto> purchases) throws ThriftInputValidationException,
+            ThriftInstanceNotFoundException {
+
+        List<Purchase> modelPurchases = new ArrayList<>(purchases.size());
+        for (ThriftPurchaseDto purchase : purchases) {
+            modelPurchases.add(new Purchase(purchase.getMovieId(), purchase.getUserId(),
+                    purchase.getCreditCardNumber()));
+        }
+
+        try {
+
+            List<Sale> sales = MovieServiceFactory.getService().buyMovies(modelPurchases);
+            return SaleToThriftSaleDtoConversor.toThriftSaleDtos(sales);
+
+        } catch (InstanceNotFoundException e) {
+            throw new ThriftInstanceNotFoundException(e.getInstanceId().toString(),
+                    e.getInstanceType().substring(e.getInstanceType().lastIndexOf('.') + 1));
+        } catch (InputValidationException e) {
+            throw new ThriftInputValidationException(e.getMessage());
+        }
+
+    }
+
     @Override
     public ThriftSaleDto findSale(long saleId) throws ThriftInstanceNotFoundException, ThriftSaleExpirationException {
 
@@ -98,7 +133,8 @@ public class ThriftMovieServiceImpl implements ThriftMovieService.Iface {
             throw new ThriftInstanceNotFoundException(e.getInstanceId().toString(),
                     e.getInstanceType().substring(e.getInstanceType().lastIndexOf('.') + 1));
         } catch (SaleExpirationException e) {
-            throw new ThriftSaleExpirationException(e.getSaleId(), e.getExpirationDate().toString());
+            throw new ThriftSaleExpirationException(e.getSaleId(), e.getExpirationDate().toString())
+                    .setExpirationTime(SaleToThriftSaleDtoConversor.toEpochMillis(e.getExpirationDate()));
         }
 
     }
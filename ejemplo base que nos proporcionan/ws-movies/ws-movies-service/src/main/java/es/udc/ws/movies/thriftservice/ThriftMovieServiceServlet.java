@@ -4,12 +4,15 @@ import es.udc.ws.movies.thrift.ThriftMovieService;
 import es.udc.ws.util.servlet.ThriftHttpServletTemplate;
 import org.apache.thrift.TProcessor;
 import org.apache.thrift.protocol.TBinaryProtocol;
+import org.apache.thrift.protocol.TCompactProtocol;
 import org.apache.thrift.protocol.TProtocolFactory;
 
 public class ThriftMovieServiceServlet extends ThriftHttpServletTemplate {
 
     public ThriftMovieServiceServlet() {
         super(createProcessor(), createProtocolFactory());
+        addProtocol("compact", new TCompactProtocol.Factory());
+        setGzipEnabled(true);
     }
 
     private static TProcessor createProcessor() {
@@ -13,6 +13,13 @@ struct ThriftSaleDto {
     2: i64 movieId
     3: string expirationDate
     4: string movieUrl
+    5: optional i64 expirationTime
+}
+
+struct ThriftPurchaseDto {
+    1: i64 movieId
+    2: string userId
+    3: string creditCardNumber
 }
 
 exception ThriftInputValidationException {
@@ -27,6 +34,7 @@ exception ThriftInstanceNotFoundException {
 exception ThriftSaleExpirationException {
     1: i64 saleId
     2: string expirationDate
+    3: optional i64 expirationTime
 }
 
 exception ThriftMovieNotRemovableException {
@@ -42,7 +50,11 @@ service ThriftMovieService {
 
    list<ThriftMovieDto> findMovies(1: string keywords)
 
+   list<ThriftMovieDto> findMoviesByIds(1: list<i64> movieIds)
+
    ThriftSaleDto buyMovie(1: i64 movieId, 2: string userId, 3: string creditCardNumber) throws (1: ThriftInputValidationException e, 2: ThriftInstanceNotFoundException ee)
 
+   list<ThriftSaleDto> buyMovies(1: list<ThriftPurchaseDto> purchases) throws (1: ThriftInputValidationException e, 2: ThriftInstanceNotFoundException ee)
+
    ThriftSaleDto findSale(1: i64 saleId) throws (1: ThriftInstanceNotFoundException e, 2: ThriftSaleExpirationException ee)
 }
\ No newline at end of file
@@ -0,0 +1,355 @@
+package es.udc.ws.util.cache;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * A bounded, least recently used cache of keyword search results, keyed by
+ * the normalized keywords (see <code>normalize(String)</code>) and a
+ * boolean filter of the search (e.g. "only open surveys").
+ * <p>
+ * Entries expire after <code>ttl</code> milliseconds, or earlier if the
+ * caller gives an expiration time when storing them (e.g. the first time
+ * an element of the result stops matching the filter). Results are copied
+ * when stored and when returned, so callers may modify them freely.
+ * <p>
+ * Writers keep the cache consistent with the database by calling
+ * <code>invalidate(Object)</code> for the rows they modify or remove (every
+ * result containing them is dropped), <code>invalidateMatching(String)</code>
+ * with the searchable text of the rows they create or modify (every result
+ * whose keywords may match it is dropped), or <code>update</code> to apply
+ * a change to the cached copies of a row. A search must read
+ * <code>getVersion()</code> before querying the database and pass it to
+ * <code>put</code>: the result is not stored if some invalidation happened
+ * in between, since it may predate it.
+ * <p>
+ * Every cache registers itself by name, so that its statistics can be
+ * reported (see <code>CacheStatisticsServlet</code>). A cache with a
+ * maximum size of 0 stores nothing.
+ */
+public class SearchResultCache<T> {
+
+    /* Boolean mode operators, ignored when matching keywords with text. */
+    private static final String OPERATORS = "[+\\-<>()~*\"@%_]";
+
+    private static final Map<String, SearchResultCache<?>> CACHES =
+            new ConcurrentHashMap<>();
+
+    private final String name;
+    private final int maxSize;
+    private final long ttl;
+    private final Function<T, ?> idFunction;
+    private final UnaryOperator<T> copier;
+    private final LinkedHashMap<Key, Entry<T>> entries;
+    private final Map<Object, Set<Key>> keysById = new HashMap<>();
+
+    private long version;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private long invalidationCount;
+
+    public SearchResultCache(String name, int maxSize, long ttl,
+            Function<T, ?> idFunction, UnaryOperator<T> copier) {
+
+        if (maxSize < 0 || ttl < 0) {
+            throw new IllegalArgumentException("Invalid cache: maxSize=" +
+                    maxSize + ", ttl=" + ttl);
+        }
+
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+        this.idFunction = idFunction;
+        this.copier = copier;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry<T>> eldest) {
+                if (size() <= SearchResultCache.this.maxSize) {
+                    return false;
+                }
+                evictionCount++;
+                unindex(eldest.getKey(), eldest.getValue());
+                return true;
+            }
+        };
+
+        CACHES.put(name, this);
+
+    }
+
+    /**
+     * The caches created so far, by name (a cache replaces a previous one
+     * with the same name).
+     */
+    public static Collection<SearchResultCache<?>> getCaches() {
+        return new ArrayList<>(CACHES.values());
+    }
+
+    /**
+     * Lower-cases <code>keywords</code> and collapses white space, which
+     * does not change the result of a case insensitive search by words.
+     */
+    public static String normalize(String keywords) {
+        return keywords.toLowerCase(Locale.ROOT).trim().replaceAll("\\s+", " ");
+    }
+
+    /**
+     * Returns <code>true</code> unless <code>text</code> certainly does not
+     * match a search for <code>keywords</code>, that is, unless some of its
+     * words is not contained in <code>text</code>, ignoring case and
+     * accents. This holds for <code>LIKE '%keywords%'</code> and for boolean
+     * mode queries requiring every word as a prefix.
+     */
+    public static boolean mayMatch(String keywords, String text) {
+
+        String normalizedText = removeAccents(normalize(text));
+
+        for (String word : removeAccents(normalize(keywords.replaceAll(OPERATORS, " "))).split(" ")) {
+            if (!normalizedText.contains(word)) {
+                return false;
+            }
+        }
+
+        return true;
+
+    }
+
+    /**
+     * Returns a copy of the cached result, or <code>null</code> if there is
+     * none or it has expired.
+     */
+    public synchronized List<T> get(String keywords, boolean filter) {
+
+        if (maxSize == 0) {
+            return null;
+        }
+
+        Key key = new Key(normalize(keywords), filter);
+        Entry<T> entry = entries.get(key);
+
+        if (entry == null) {
+            missCount++;
+            return null;
+        }
+
+        if (entry.expirationTime <= System.currentTimeMillis()) {
+            entries.remove(key);
+            unindex(key, entry);
+            evictionCount++;
+            missCount++;
+            return null;
+        }
+
+        hitCount++;
+        return copy(entry.results);
+
+    }
+
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Stores a copy of <code>results</code> until <code>expirationTime</code>
+     * (milliseconds since the epoch) or for <code>ttl</code> milliseconds,
+     * whichever comes first, unless the cache was invalidated after
+     * <code>version</code> was read.
+     */
+    public synchronized void put(String keywords, boolean filter, List<T> results,
+            long version, long expirationTime) {
+
+        if (maxSize == 0 || version != this.version) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        Key key = new Key(normalize(keywords), filter);
+        Entry<T> entry = new Entry<>(copy(results),
+                Math.min(expirationTime, now + ttl));
+
+        Entry<T> previous = entries.remove(key);
+        if (previous != null) {
+            unindex(key, previous);
+        }
+        for (T result : entry.results) {
+            keysById.computeIfAbsent(idFunction.apply(result),
+                    id -> new HashSet<>()).add(key);
+        }
+        entries.put(key, entry);
+
+    }
+
+    /**
+     * Drops the results containing the element with identifier
+     * <code>id</code>.
+     */
+    public synchronized void invalidate(Object id) {
+
+        version++;
+
+        Set<Key> keys = keysById.get(id);
+        if (keys != null) {
+            for (Key key : new ArrayList<>(keys)) {
+                remove(key);
+            }
+        }
+
+    }
+
+    /**
+     * Drops the results whose keywords may match <code>text</code> (see
+     * <code>mayMatch</code>).
+     */
+    public synchronized void invalidateMatching(String text) {
+
+        version++;
+
+        List<Key> keys = new ArrayList<>();
+        for (Key key : entries.keySet()) {
+            if (mayMatch(key.keywords, text)) {
+                keys.add(key);
+            }
+        }
+        for (Key key : keys) {
+            remove(key);
+        }
+
+    }
+
+    public synchronized void invalidateAll() {
+        version++;
+        invalidationCount += entries.size();
+        entries.clear();
+        keysById.clear();
+    }
+
+    /**
+     * Applies <code>update</code> to the cached copies of the element with
+     * identifier <code>id</code>.
+     */
+    public synchronized void update(Object id, Consumer<T> update) {
+
+        Set<Key> keys = keysById.get(id);
+        if (keys == null) {
+            return;
+        }
+
+        for (Key key : keys) {
+            for (T result : entries.get(key).results) {
+                if (id.equals(idFunction.apply(result))) {
+                    update.accept(result);
+                }
+            }
+        }
+
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getTtl() {
+        return ttl;
+    }
+
+    public synchronized int getSize() {
+        return entries.size();
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Results dropped because the cache was full or they had expired.
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Results dropped because of a write.
+     */
+    public synchronized long getInvalidationCount() {
+        return invalidationCount;
+    }
+
+    /**
+     * Fraction (between 0 and 1) of <code>get</code> calls served from the
+     * cache.
+     */
+    public synchronized double getHitRatio() {
+        long total = hitCount + missCount;
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    private void remove(Key key) {
+        Entry<T> entry = entries.remove(key);
+        if (entry != null) {
+            unindex(key, entry);
+            invalidationCount++;
+        }
+    }
+
+    private void unindex(Key key, Entry<T> entry) {
+        for (T result : entry.results) {
+            Object id = idFunction.apply(result);
+            Set<Key> keys = keysById.get(id);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    keysById.remove(id);
+                }
+            }
+        }
+    }
+
+    private static String removeAccents(String text) {
+        return Normalizer.normalize(text, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+    }
+
+    private List<T> copy(List<T> results) {
+        List<T> copies = new ArrayList<>(results.size());
+        for (T result : results) {
+            copies.add(copier.apply(result));
+        }
+        return copies;
+    }
+
+    private record Key(String keywords, boolean filter) {
+    }
+
+    private static class Entry<T> {
+
+        private final List<T> results;
+        private final long expirationTime;
+
+        private Entry(List<T> results, long expirationTime) {
+            this.results = results;
+            this.expirationTime = expirationTime;
+        }
+
+    }
+
+}
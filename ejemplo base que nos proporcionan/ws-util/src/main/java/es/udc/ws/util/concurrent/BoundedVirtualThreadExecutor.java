@@ -0,0 +1,154 @@
+package es.udc.ws.util.concurrent;
+
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import javax.sql.DataSource;
+
+import es.udc.ws.util.sql.PooledDataSource;
+
+/**
+ * Runs each task on its own virtual thread, allowing at most
+ * <code>maxConcurrency</code> of them to run at the same time (the rest
+ * wait, blocking only their virtual thread).
+ * <p>
+ * It is intended to implement asynchronous variants of blocking services:
+ * the limit is usually the size of the connection pool used by the tasks
+ * (see <code>forDataSource(String, DataSource, int)</code>), so that
+ * waiting tasks queue here instead of in the pool.
+ */
+public class BoundedVirtualThreadExecutor implements Executor, AutoCloseable {
+
+    /**
+     * A task which may throw checked exceptions (e.g. the ones declared by
+     * a service method).
+     */
+    @FunctionalInterface
+    public interface Task<T> {
+        T call() throws Exception;
+    }
+
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final int maxConcurrency;
+
+    public BoundedVirtualThreadExecutor(String name, int maxConcurrency) {
+
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("Invalid maxConcurrency: " +
+                    maxConcurrency);
+        }
+
+        this.executor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name(name + "-", 0).factory());
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.maxConcurrency = maxConcurrency;
+
+    }
+
+    /**
+     * Creates an executor limited to the maximum size of
+     * <code>dataSource</code> if it is a <code>PooledDataSource</code>, or
+     * to <code>defaultConcurrency</code> otherwise.
+     */
+    public static BoundedVirtualThreadExecutor forDataSource(String name,
+            DataSource dataSource, int defaultConcurrency) {
+
+        int maxConcurrency = defaultConcurrency;
+
+        try {
+            if (dataSource.isWrapperFor(PooledDataSource.class)) {
+                maxConcurrency =
+                        dataSource.unwrap(PooledDataSource.class).getMaxSize();
+            }
+        } catch (SQLException e) {
+            /* Not a pool we know about: keep the default. */
+        }
+
+        return new BoundedVirtualThreadExecutor(name, maxConcurrency);
+
+    }
+
+    /**
+     * Runs <code>task</code> and returns a future completed with its result
+     * or, exceptionally, with the exception it throws (not wrapped).
+     * <p>
+     * The future is completed after releasing the concurrency permit, so
+     * dependent stages do not count against the limit.
+     */
+    public <T> CompletableFuture<T> submit(Task<T> task) {
+
+        CompletableFuture<T> future = new CompletableFuture<>();
+
+        try {
+            executor.execute(() -> run(task, future));
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+
+        return future;
+
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        submit(() -> {
+            command.run();
+            return null;
+        });
+    }
+
+    private <T> void run(Task<T> task, CompletableFuture<T> future) {
+
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            future.completeExceptionally(e);
+            return;
+        }
+
+        T result;
+        try {
+            result = task.call();
+        } catch (Throwable e) {
+            permits.release();
+            future.completeExceptionally(e);
+            return;
+        }
+
+        permits.release();
+        future.complete(result);
+
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * Number of tasks currently running.
+     */
+    public int getActiveCount() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    /**
+     * Number of tasks waiting for another one to finish.
+     */
+    public int getWaitingCount() {
+        return permits.getQueueLength();
+    }
+
+    /**
+     * Stops accepting tasks and waits for the submitted ones to finish.
+     */
+    @Override
+    public void close() {
+        executor.close();
+    }
+
+}
@@ -0,0 +1,157 @@
+package es.udc.ws.util.http;
+
+import java.io.IOException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import javax.net.ssl.SSLException;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.DefaultHttpRequestRetryStrategy;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.Method;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+import es.udc.ws.util.configuration.ConfigurationParametersManager;
+
+/**
+ * Creates <code>HttpClient</code>s for service clients: a pool of
+ * persistent (keep-alive) connections, connection and read timeouts, and
+ * retries with exponential backoff for <code>GET</code> and
+ * <code>HEAD</code> requests.
+ * <p>
+ * Clients send <code>Accept-Encoding</code> and decompress gzip, deflate
+ * (and Brotli, if its decoder is on the classpath) responses transparently,
+ * so compressed responses of <code>RestHttpServletTemplate</code> need no
+ * changes in service clients.
+ * <p>
+ * A request is retried (at most <code>maxRetries</code> times) when it fails
+ * with an I/O error other than an unknown or unreachable host or a TLS
+ * error, or when the server answers 429 or 503. The n-th retry waits
+ * between one half and the whole of <code>retryInterval * 2^(n-1)</code>
+ * milliseconds (up to <code>MAX_RETRY_INTERVAL</code>), or the time given
+ * by a <code>Retry-After</code> header. Other methods are never retried,
+ * since they may not be idempotent.
+ */
+public class PooledHttpClientFactory {
+
+    public static final int DEFAULT_MAX_CONNECTIONS = 20;
+    public static final int DEFAULT_CONNECT_TIMEOUT = 5000;
+    public static final int DEFAULT_READ_TIMEOUT = 30000;
+    public static final int DEFAULT_MAX_RETRIES = 3;
+    public static final int DEFAULT_RETRY_INTERVAL = 200;
+
+    public static final long MAX_RETRY_INTERVAL = 10000;
+
+    private static final TimeValue IDLE_CONNECTION_TIMEOUT = TimeValue.ofSeconds(30);
+
+    private PooledHttpClientFactory() {
+    }
+
+    public static CloseableHttpClient create(int maxConnections,
+            int connectTimeout, int readTimeout, int maxRetries,
+            int retryInterval) {
+
+        return HttpClients.custom()
+                .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                        .setMaxConnTotal(maxConnections)
+                        .setMaxConnPerRoute(maxConnections)
+                        .setDefaultConnectionConfig(ConnectionConfig.custom()
+                                .setConnectTimeout(Timeout.ofMilliseconds(connectTimeout))
+                                .setSocketTimeout(Timeout.ofMilliseconds(readTimeout))
+                                .build())
+                        .build())
+                .evictIdleConnections(IDLE_CONNECTION_TIMEOUT)
+                .setRetryStrategy(new GetRetryStrategy(maxRetries, retryInterval))
+                .build();
+
+    }
+
+    /**
+     * Creates a client configured with the parameters
+     * <code>&lt;prefix&gt;.maxConnections</code>,
+     * <code>&lt;prefix&gt;.connectTimeout</code>,
+     * <code>&lt;prefix&gt;.readTimeout</code>,
+     * <code>&lt;prefix&gt;.maxRetries</code> and
+     * <code>&lt;prefix&gt;.retryInterval</code> (milliseconds) of
+     * <code>ConfigurationParametersManager</code>, all of them optional.
+     */
+    public static CloseableHttpClient fromConfiguration(String prefix) {
+
+        return create(
+                getIntParameter(prefix + ".maxConnections", DEFAULT_MAX_CONNECTIONS),
+                getIntParameter(prefix + ".connectTimeout", DEFAULT_CONNECT_TIMEOUT),
+                getIntParameter(prefix + ".readTimeout", DEFAULT_READ_TIMEOUT),
+                getIntParameter(prefix + ".maxRetries", DEFAULT_MAX_RETRIES),
+                getIntParameter(prefix + ".retryInterval", DEFAULT_RETRY_INTERVAL));
+
+    }
+
+    private static int getIntParameter(String name, int defaultValue) {
+        String value = ConfigurationParametersManager.getParameter(name);
+        return value != null ? Integer.parseInt(value.trim()) : defaultValue;
+    }
+
+    private static class GetRetryStrategy extends DefaultHttpRequestRetryStrategy {
+
+        private final long retryInterval;
+
+        private GetRetryStrategy(int maxRetries, long retryInterval) {
+            super(maxRetries, TimeValue.ofMilliseconds(retryInterval),
+                    Arrays.asList(UnknownHostException.class,
+                            NoRouteToHostException.class, SSLException.class),
+                    Arrays.asList(HttpStatus.SC_TOO_MANY_REQUESTS,
+                            HttpStatus.SC_SERVICE_UNAVAILABLE));
+            this.retryInterval = retryInterval;
+        }
+
+        @Override
+        protected boolean handleAsIdempotent(HttpRequest request) {
+            return Method.GET.isSame(request.getMethod()) ||
+                    Method.HEAD.isSame(request.getMethod());
+        }
+
+        @Override
+        public boolean retryRequest(HttpResponse response, int execCount,
+                HttpContext context) {
+            HttpRequest request = HttpClientContext.castOrCreate(context).getRequest();
+            return request != null && handleAsIdempotent(request) &&
+                    super.retryRequest(response, execCount, context);
+        }
+
+        @Override
+        public TimeValue getRetryInterval(HttpResponse response, int execCount,
+                HttpContext context) {
+            if (response.containsHeader(HttpHeaders.RETRY_AFTER)) {
+                return super.getRetryInterval(response, execCount, context);
+            }
+            return getBackoff(execCount);
+        }
+
+        @Override
+        public TimeValue getRetryInterval(HttpRequest request,
+                IOException exception, int execCount, HttpContext context) {
+            return getBackoff(execCount);
+        }
+
+        private TimeValue getBackoff(int execCount) {
+            long interval = Math.min(MAX_RETRY_INTERVAL,
+                    retryInterval << Math.min(execCount - 1, 16));
+            long half = interval / 2;
+            return TimeValue.ofMilliseconds(half +
+                    ThreadLocalRandom.current().nextLong(interval - half + 1));
+        }
+
+    }
+
+}
@@ -1,14 +1,59 @@
 package es.udc.ws.util.json;
 
+import java.util.Locale;
+import java.util.Map;
+
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 
+/**
+ * Shared <code>ObjectMapper</code>s for the media types supported by the
+ * REST layer: JSON, and the binary CBOR and Smile encodings of the same
+ * documents, which are smaller and cheaper to parse and generate.
+ * <p>
+ * <code>instance(String)</code> accepts a <code>Content-Type</code> value
+ * (parameters such as <code>charset</code> are ignored) and falls back to
+ * JSON for unsupported or missing media types.
+ */
 public class ObjectMapperFactory {
+
+    public static final String JSON_MEDIA_TYPE = "application/json";
+    public static final String CBOR_MEDIA_TYPE = "application/cbor";
+    public static final String SMILE_MEDIA_TYPE = "application/x-jackson-smile";
+
     private static ObjectMapper mapper = new ObjectMapper();
-    
-    private ObjectMapperFactory() { } 
-    
-    public static ObjectMapper instance() { 
-        return mapper; 
+
+    private static final Map<String, ObjectMapper> MAPPERS = Map.of(
+            JSON_MEDIA_TYPE, mapper,
+            CBOR_MEDIA_TYPE, new ObjectMapper(new CBORFactory()),
+            SMILE_MEDIA_TYPE, new ObjectMapper(new SmileFactory()));
+
+    private ObjectMapperFactory() { }
+
+    public static ObjectMapper instance() {
+        return mapper;
+    }
+
+    public static ObjectMapper instance(String contentType) {
+        return isSupported(contentType) ? MAPPERS.get(getMediaType(contentType)) : mapper;
+    }
+
+    public static boolean isSupported(String contentType) {
+        return contentType != null && MAPPERS.containsKey(getMediaType(contentType));
+    }
+
+    /**
+     * Returns the media type of <code>contentType</code> in lower case,
+     * without parameters, or <code>null</code> if it is <code>null</code>.
+     */
+    public static String getMediaType(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        int parametersStart = contentType.indexOf(';');
+        String mediaType = parametersStart < 0 ? contentType : contentType.substring(0, parametersStart);
+        return mediaType.trim().toLowerCase(Locale.ROOT);
     }
 
 }
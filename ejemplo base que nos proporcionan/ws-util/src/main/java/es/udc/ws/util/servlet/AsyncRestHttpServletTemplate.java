@@ -0,0 +1,304 @@
+package es.udc.ws.util.servlet;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+import es.udc.ws.util.exceptions.InputValidationException;
+import es.udc.ws.util.exceptions.InstanceNotFoundException;
+import es.udc.ws.util.json.ExceptionToJsonConversor;
+import es.udc.ws.util.json.exceptions.ParsingException;
+
+/**
+ * An asynchronous variant of <code>RestHttpServletTemplate</code>: a
+ * subclass of it can extend this class instead without further changes
+ * (the servlet must be declared with <code>async-supported</code>).
+ * <p>
+ * <code>doGet</code>, <code>doPost</code>, <code>doPut</code> and
+ * <code>doDelete</code> start asynchronous processing and run the
+ * corresponding <code>processX</code> method on the executor returned by
+ * <code>createExecutor()</code> (a new virtual thread per request by
+ * default), so that container threads are not blocked while the service
+ * waits for the database. Exceptions are mapped to HTTP responses as in
+ * <code>RestHttpServletTemplate</code>.
+ * <p>
+ * The response body is written to the client in non-blocking mode (see
+ * <code>NonBlockingResponseOutputStream</code>). Requests not finished
+ * after the <code>asyncTimeout</code> init parameter (milliseconds, default
+ * <code>DEFAULT_ASYNC_TIMEOUT</code>) get a 503 response (if it is not
+ * committed yet), and their <code>processX</code> thread is interrupted.
+ * As in <code>RestHttpServletTemplate</code>, the media type of response
+ * bodies is negotiated and they are gzipped (<code>compressionThreshold</code>
+ * init parameter).
+ * <p>
+ * Other exceptions get a 500 response if it is not committed yet. Otherwise
+ * the data still queued is dropped and the request is completed, so that a
+ * body failing midway (e.g. a streamed list) is left incomplete.
+ */
+@SuppressWarnings("serial")
+public class AsyncRestHttpServletTemplate extends HttpServlet {
+
+    public static final long DEFAULT_ASYNC_TIMEOUT = 30000;
+
+    private static final String ASYNC_TIMEOUT_PARAMETER = "asyncTimeout";
+    private static final String COMPRESSION_THRESHOLD_PARAMETER = "compressionThreshold";
+    private static final int MAX_QUEUED_BYTES = 4 * ServletUtils.DEFAULT_BUFFER_SIZE;
+
+    private static final Logger LOGGER =
+            Logger.getLogger(AsyncRestHttpServletTemplate.class.getName());
+
+    private ExecutorService executor;
+    private long asyncTimeout;
+    private int compressionThreshold;
+
+    @FunctionalInterface
+    private interface Processor {
+        void process(HttpServletRequest req, HttpServletResponse resp)
+                throws IOException, InstanceNotFoundException, InputValidationException;
+    }
+
+    @Override
+    public void init() throws ServletException {
+        String timeout = getInitParameter(ASYNC_TIMEOUT_PARAMETER);
+        asyncTimeout = timeout != null ? Long.parseLong(timeout.trim()) : DEFAULT_ASYNC_TIMEOUT;
+        String threshold = getInitParameter(COMPRESSION_THRESHOLD_PARAMETER);
+        compressionThreshold = threshold != null ? Integer.parseInt(threshold.trim())
+                : ServletUtils.DEFAULT_COMPRESSION_THRESHOLD;
+        executor = createExecutor();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    /**
+     * Returns the executor running the <code>processX</code> methods. It is
+     * shut down when the servlet is destroyed.
+     */
+    protected ExecutorService createExecutor() {
+        return Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name(getServletName() + "-", 0).factory());
+    }
+
+    protected long getAsyncTimeout() {
+        return asyncTimeout;
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        dispatch(req, resp, this::processGet);
+    }
+
+    protected void processGet(HttpServletRequest req, HttpServletResponse resp) throws IOException,
+            InstanceNotFoundException, InputValidationException {
+        ServletUtils.writeServiceResponse(resp, HttpServletResponse.SC_NOT_IMPLEMENTED,null,null);
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        dispatch(req, resp, this::processPost);
+    }
+
+    protected void processPost(HttpServletRequest req, HttpServletResponse resp) throws IOException,
+            InstanceNotFoundException, InputValidationException {
+        ServletUtils.writeServiceResponse(resp, HttpServletResponse.SC_NOT_IMPLEMENTED,null,null);
+    }
+
+    @Override
+    protected void doPut(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        dispatch(req, resp, this::processPut);
+    }
+
+    protected void processPut(HttpServletRequest req, HttpServletResponse resp) throws IOException,
+            InstanceNotFoundException, InputValidationException {
+        ServletUtils.writeServiceResponse(resp, HttpServletResponse.SC_NOT_IMPLEMENTED,null,null);
+    }
+
+    @Override
+    protected void doDelete(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        dispatch(req, resp, this::processDelete);
+    }
+
+    protected void processDelete(HttpServletRequest req, HttpServletResponse resp) throws IOException,
+            InstanceNotFoundException, InputValidationException {
+        ServletUtils.writeServiceResponse(resp, HttpServletResponse.SC_NOT_IMPLEMENTED,null,null);
+    }
+
+    private void dispatch(HttpServletRequest req, HttpServletResponse resp, Processor processor)
+            throws IOException {
+
+        ServletUtils.negotiateMediaType(req, resp);
+
+        AsyncContext asyncContext = req.startAsync();
+        asyncContext.setTimeout(asyncTimeout);
+
+        ServletOutputStream containerStream = resp.getOutputStream();
+        NonBlockingResponseOutputStream outputStream =
+                new NonBlockingResponseOutputStream(containerStream, asyncContext, MAX_QUEUED_BYTES);
+        HttpServletResponse asyncResp = compressed(req, new AsyncResponse(resp, outputStream));
+        containerStream.setWriteListener(outputStream);
+
+        Future<?> task;
+        try {
+            task = executor.submit(() -> process(req, asyncResp, outputStream, processor));
+        } catch (RejectedExecutionException e) {
+            resp.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            outputStream.close();
+            return;
+        }
+
+        asyncContext.addListener(new AsyncListener() {
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                task.cancel(true);
+                if (!resp.isCommitted() && !outputStream.isWritten()) {
+                    resp.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                }
+                outputStream.onError(new TimeoutException(
+                        "Request not processed after " + asyncTimeout + " ms"));
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                task.cancel(true);
+                outputStream.onError(event.getThrowable());
+            }
+
+            @Override
+            public void onComplete(AsyncEvent event) {
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+
+        });
+
+    }
+
+    private HttpServletResponse compressed(HttpServletRequest req, HttpServletResponse resp) {
+
+        if (compressionThreshold < 0) {
+            return resp;
+        }
+
+        resp.addHeader("Vary", "Accept-Encoding");
+        return ServletUtils.acceptsGzip(req) ? new GzipResponseWrapper(resp, compressionThreshold)
+                : resp;
+
+    }
+
+    private void process(HttpServletRequest req, HttpServletResponse resp,
+            NonBlockingResponseOutputStream outputStream, Processor processor) {
+
+        try {
+            try {
+                processor.process(req, resp);
+            } catch (InstanceNotFoundException ex) {
+                ServletUtils.writeServiceResponse(resp, HttpServletResponse.SC_NOT_FOUND,
+                        ExceptionToJsonConversor.toInstanceNotFoundException(ex), null);
+            } catch (InputValidationException ex) {
+                ServletUtils.writeServiceResponse(resp, HttpServletResponse.SC_BAD_REQUEST,
+                        ExceptionToJsonConversor.toInputValidationException(ex), null);
+            } catch (ParsingException ex) {
+                ServletUtils.writeServiceResponse(resp, HttpServletResponse.SC_BAD_REQUEST,
+                        ExceptionToJsonConversor.toInputValidationException(new InputValidationException(ex.getMessage())),
+                        null);
+            }
+        } catch (IOException e) {
+            /* Aborted response (timeout, or the client went away). */
+            LOGGER.log(Level.FINE, "Response not sent", e);
+        } catch (RuntimeException | Error e) {
+            LOGGER.log(Level.SEVERE, "Error processing " + req.getMethod() + " " +
+                    req.getRequestURI(), e);
+            if (!resp.isCommitted()) {
+                resp.resetBuffer();
+                resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            } else {
+                outputStream.fail(e);
+            }
+        } finally {
+            try {
+                resp.getOutputStream().close();
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Response not sent", e);
+            }
+        }
+
+    }
+
+    /**
+     * The response seen by <code>processX</code> methods: its body goes to
+     * a <code>NonBlockingResponseOutputStream</code>.
+     */
+    private static class AsyncResponse extends HttpServletResponseWrapper {
+
+        private final NonBlockingResponseOutputStream outputStream;
+        private PrintWriter writer;
+
+        private AsyncResponse(HttpServletResponse response,
+                NonBlockingResponseOutputStream outputStream) {
+            super(response);
+            this.outputStream = outputStream;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(outputStream,
+                        getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            outputStream.flush();
+        }
+
+        @Override
+        public boolean isCommitted() {
+            return outputStream.isWritten() || super.isCommitted();
+        }
+
+        @Override
+        public void resetBuffer() {
+            outputStream.resetBuffer();
+        }
+
+        @Override
+        public void reset() {
+            outputStream.resetBuffer();
+            super.reset();
+        }
+
+    }
+
+}
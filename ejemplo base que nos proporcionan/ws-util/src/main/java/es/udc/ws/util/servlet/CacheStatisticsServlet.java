@@ -0,0 +1,68 @@
+package es.udc.ws.util.servlet;
+
+import java.io.IOException;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import es.udc.ws.util.cache.SearchResultCache;
+import es.udc.ws.util.exceptions.InputValidationException;
+
+/**
+ * An administration endpoint reporting the statistics of every
+ * <code>SearchResultCache</code> (size, hits, misses, hit ratio, evictions
+ * and invalidations) as a JSON array. <code>DELETE</code> empties the
+ * caches.
+ * <p>
+ * It exposes operational data, so its URL should be restricted (e.g. with a
+ * <code>security-constraint</code>) in production deployments.
+ */
+@SuppressWarnings("serial")
+public class CacheStatisticsServlet extends RestHttpServletTemplate {
+
+    @Override
+    protected void processGet(HttpServletRequest req, HttpServletResponse resp)
+            throws IOException, InputValidationException {
+
+        ServletUtils.checkEmptyPath(req);
+
+        ArrayNode caches = JsonNodeFactory.instance.arrayNode();
+
+        for (SearchResultCache<?> cache : SearchResultCache.getCaches()) {
+            ObjectNode cacheObject = caches.addObject();
+            cacheObject.put("name", cache.getName());
+            cacheObject.put("maxSize", cache.getMaxSize());
+            cacheObject.put("ttl", cache.getTtl());
+            cacheObject.put("size", cache.getSize());
+            cacheObject.put("hits", cache.getHitCount());
+            cacheObject.put("misses", cache.getMissCount());
+            cacheObject.put("hitRatio", cache.getHitRatio());
+            cacheObject.put("evictions", cache.getEvictionCount());
+            cacheObject.put("invalidations", cache.getInvalidationCount());
+        }
+
+        ServletUtils.writeServiceResponse(resp, HttpServletResponse.SC_OK,
+                caches, null);
+
+    }
+
+    @Override
+    protected void processDelete(HttpServletRequest req, HttpServletResponse resp)
+            throws IOException, InputValidationException {
+
+        ServletUtils.checkEmptyPath(req);
+
+        for (SearchResultCache<?> cache : SearchResultCache.getCaches()) {
+            cache.invalidateAll();
+        }
+
+        ServletUtils.writeServiceResponse(resp, HttpServletResponse.SC_NO_CONTENT,
+                null, null);
+
+    }
+
+}
@@ -0,0 +1,229 @@
+package es.udc.ws.util.servlet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.zip.GZIPOutputStream;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * A response whose body is gzipped once it grows beyond
+ * <code>threshold</code> bytes (the client must accept gzip, see
+ * <code>ServletUtils.acceptsGzip</code>).
+ * <p>
+ * The first <code>threshold</code> bytes are kept in memory. If the body
+ * ends before, it is sent as is; otherwise <code>Content-Encoding:
+ * gzip</code> is set and the body is compressed as it is written, so memory
+ * use does not depend on its size. A strong <code>ETag</code> becomes weak
+ * when the body is compressed, since the bytes sent are no longer those it
+ * identifies. Bodies that already have a <code>Content-Encoding</code> are
+ * not compressed again.
+ * <p>
+ * <code>finish()</code> (or closing the output stream) must be called when
+ * the response is complete.
+ */
+class GzipResponseWrapper extends HttpServletResponseWrapper {
+
+    private final int threshold;
+    private ThresholdOutputStream outputStream;
+    private PrintWriter writer;
+
+    GzipResponseWrapper(HttpServletResponse response, int threshold) {
+        super(response);
+        this.threshold = threshold;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+        if (outputStream == null) {
+            outputStream = new ThresholdOutputStream();
+        }
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            writer = new PrintWriter(new OutputStreamWriter(getOutputStream(),
+                    getCharacterEncoding()));
+        }
+        return writer;
+    }
+
+    @Override
+    public void setContentLength(int len) {
+        /* Unknown until the body is (or is not) compressed. */
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        if (outputStream != null) {
+            outputStream.flush();
+        }
+    }
+
+    @Override
+    public void resetBuffer() {
+        super.resetBuffer();
+        if (outputStream != null) {
+            outputStream.discard(false);
+        }
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        addHeader("Vary", "Accept-Encoding");
+        if (outputStream != null) {
+            outputStream.discard(true);
+        }
+    }
+
+    void finish() throws IOException {
+        if (writer != null) {
+            writer.close();
+        } else if (outputStream != null) {
+            outputStream.close();
+        }
+    }
+
+    private class ThresholdOutputStream extends ServletOutputStream {
+
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private OutputStream target;
+        private GZIPOutputStream gzipOutputStream;
+        private boolean closed;
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+
+            if (target == null) {
+                if (buffer.size() + len <= threshold) {
+                    buffer.write(b, off, len);
+                    return;
+                }
+                start(true);
+            }
+
+            target.write(b, off, len);
+
+        }
+
+        @Override
+        public void flush() throws IOException {
+            /* Nothing is sent while the body may still be compressed. */
+            if (target != null) {
+                target.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+
+            if (closed) {
+                return;
+            }
+            closed = true;
+
+            if (target == null) {
+                start(false);
+            }
+            if (gzipOutputStream != null) {
+                gzipOutputStream.finish();
+            }
+            getResponse().getOutputStream().close();
+
+        }
+
+        @Override
+        public boolean isReady() {
+            try {
+                return getResponse().getOutputStream().isReady();
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            try {
+                getResponse().getOutputStream().setWriteListener(writeListener);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private void start(boolean compress) throws IOException {
+
+            ServletOutputStream responseStream = getResponse().getOutputStream();
+
+            if (compress && getHeader("Content-Encoding") == null) {
+                setHeader("Content-Encoding", "gzip");
+                String eTag = getHeader("ETag");
+                if (eTag != null && eTag.startsWith("\"")) {
+                    setHeader("ETag", "W/" + eTag);
+                }
+                gzipOutputStream = new GZIPOutputStream(responseStream,
+                        ServletUtils.DEFAULT_BUFFER_SIZE);
+                target = gzipOutputStream;
+            } else {
+                target = responseStream;
+            }
+
+            buffer.writeTo(target);
+            buffer.reset();
+
+        }
+
+        /*
+         * Drops the body written so far. After a full reset the headers are
+         * gone too, so compression may be decided again.
+         */
+        private void discard(boolean headersReset) {
+
+            buffer.reset();
+
+            if (gzipOutputStream != null) {
+                if (headersReset) {
+                    gzipOutputStream = null;
+                    target = null;
+                } else {
+                    try {
+                        gzipOutputStream = new GZIPOutputStream(getResponse().getOutputStream(),
+                                ServletUtils.DEFAULT_BUFFER_SIZE);
+                        target = gzipOutputStream;
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            } else if (headersReset) {
+                target = null;
+            }
+
+        }
+
+    }
+
+}
@@ -0,0 +1,17 @@
+package es.udc.ws.util.servlet;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Writes one record of a streamed JSON array (see
+ * <code>ServletUtils.writeServiceResponse(HttpServletResponse, int,
+ * Iterator, JsonRecordWriter, Map)</code>).
+ */
+@FunctionalInterface
+public interface JsonRecordWriter<T> {
+
+    void write(JsonGenerator generator, T record) throws IOException;
+
+}
@@ -0,0 +1,256 @@
+package es.udc.ws.util.servlet;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+
+/**
+ * The output stream handed to <code>processX</code> methods by
+ * <code>AsyncRestHttpServletTemplate</code>.
+ * <p>
+ * Writes are collected in chunks which are written to the container's
+ * stream in non-blocking mode (this object is its <code>WriteListener</code>),
+ * either by the writing thread or by the container when the client is ready
+ * to receive more data. The writing thread blocks only when more than
+ * <code>maxQueuedBytes</code> are waiting to be sent, so that responses
+ * written one record at a time still use bounded memory. The asynchronous
+ * request is completed once the stream is closed and all its data sent.
+ * <p>
+ * A <code>ReentrantLock</code> is used instead of monitors so that a waiting
+ * virtual thread does not pin its carrier thread.
+ */
+class NonBlockingResponseOutputStream extends ServletOutputStream
+        implements WriteListener {
+
+    private static final int CHUNK_SIZE = ServletUtils.DEFAULT_BUFFER_SIZE;
+
+    private final ServletOutputStream target;
+    private final AsyncContext asyncContext;
+    private final int maxQueuedBytes;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition drained = lock.newCondition();
+    private final ArrayDeque<byte[]> chunks = new ArrayDeque<>();
+    private int queuedBytes;
+    private byte[] buffer = new byte[CHUNK_SIZE];
+    private int bufferedBytes;
+    private boolean written;
+    private boolean closed;
+    private boolean completed;
+    private Throwable failure;
+
+    NonBlockingResponseOutputStream(ServletOutputStream target,
+            AsyncContext asyncContext, int maxQueuedBytes) {
+        this.target = target;
+        this.asyncContext = asyncContext;
+        this.maxQueuedBytes = maxQueuedBytes;
+    }
+
+    /**
+     * Returns <code>true</code> if some data has been handed to the
+     * container (so the response may be committed).
+     */
+    boolean isWritten() {
+        lock.lock();
+        try {
+            return written;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Discards the data not handed to the container yet.
+     */
+    void resetBuffer() {
+        lock.lock();
+        try {
+            if (!written) {
+                chunks.clear();
+                queuedBytes = 0;
+                bufferedBytes = 0;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Makes further writes fail (e.g. after a timeout or a client error)
+     * and wakes up the writing thread if it is waiting.
+     */
+    void fail(Throwable cause) {
+        lock.lock();
+        try {
+            if (failure == null) {
+                failure = cause;
+            }
+            chunks.clear();
+            queuedBytes = 0;
+            drained.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+
+        lock.lock();
+        try {
+            checkWritable();
+            while (len > 0) {
+                int count = Math.min(len, CHUNK_SIZE - bufferedBytes);
+                System.arraycopy(b, off, buffer, bufferedBytes, count);
+                bufferedBytes += count;
+                off += count;
+                len -= count;
+                if (bufferedBytes == CHUNK_SIZE) {
+                    enqueueBuffer();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+    }
+
+    @Override
+    public void flush() throws IOException {
+        lock.lock();
+        try {
+            checkWritable();
+            enqueueBuffer();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (failure == null) {
+                enqueueBuffer();
+            } else {
+                complete();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Always <code>true</code>: writers of this stream block when too much
+     * data is pending, so they do not need to register a listener.
+     */
+    @Override
+    public boolean isReady() {
+        return true;
+    }
+
+    @Override
+    public void setWriteListener(WriteListener writeListener) {
+        throw new IllegalStateException(
+                "The response is already written in non-blocking mode");
+    }
+
+    @Override
+    public void onWritePossible() throws IOException {
+        lock.lock();
+        try {
+            drain();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        fail(t);
+        lock.lock();
+        try {
+            complete();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void checkWritable() throws IOException {
+        if (failure != null) {
+            throw new IOException("Response aborted", failure);
+        }
+        if (closed) {
+            throw new IOException("Stream is closed");
+        }
+    }
+
+    private void enqueueBuffer() throws IOException {
+
+        if (bufferedBytes > 0) {
+            chunks.addLast(Arrays.copyOf(buffer, bufferedBytes));
+            queuedBytes += bufferedBytes;
+            bufferedBytes = 0;
+        }
+
+        drain();
+
+        while (queuedBytes > maxQueuedBytes && failure == null) {
+            drained.awaitUninterruptibly();
+        }
+        if (failure != null) {
+            throw new IOException("Response aborted", failure);
+        }
+
+    }
+
+    /* Called with "lock" held. */
+    private void drain() throws IOException {
+
+        if (failure != null) {
+            return;
+        }
+
+        while (target.isReady()) {
+            byte[] chunk = chunks.pollFirst();
+            if (chunk == null) {
+                if (closed) {
+                    complete();
+                }
+                return;
+            }
+            written = true;
+            queuedBytes -= chunk.length;
+            drained.signalAll();
+            target.write(chunk);
+        }
+
+        /* The container calls "onWritePossible" when it is ready again. */
+
+    }
+
+    /* Called with "lock" held. */
+    private void complete() {
+        if (!completed) {
+            completed = true;
+            drained.signalAll();
+            asyncContext.complete();
+        }
+    }
+
+}
@@ -11,8 +11,59 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 
+/**
+ * Maps the exceptions of the <code>processX</code> methods to HTTP
+ * responses.
+ * <p>
+ * Response bodies are written in the media type requested by the client
+ * (see <code>ServletUtils.negotiateMediaType</code>).
+ * <p>
+ * Response bodies larger than the <code>compressionThreshold</code> init
+ * parameter (bytes, default
+ * <code>ServletUtils.DEFAULT_COMPRESSION_THRESHOLD</code>; a negative value
+ * disables compression) are gzipped for clients accepting it, as they are
+ * written (see <code>GzipResponseWrapper</code>).
+ * <p>
+ * Other exceptions reach the container, which sends an error status if the
+ * response is not committed yet and otherwise aborts it, so that a body
+ * failing midway (e.g. a streamed list) is not taken as complete.
+ */
 public class RestHttpServletTemplate extends HttpServlet {
 
+    private static final String COMPRESSION_THRESHOLD_PARAMETER = "compressionThreshold";
+
+    private int compressionThreshold;
+
+    @Override
+    public void init() throws ServletException {
+        String threshold = getInitParameter(COMPRESSION_THRESHOLD_PARAMETER);
+        compressionThreshold = threshold != null ? Integer.parseInt(threshold.trim())
+                : ServletUtils.DEFAULT_COMPRESSION_THRESHOLD;
+    }
+
+    @Override
+    protected void service(HttpServletRequest req, HttpServletResponse resp)
+            throws ServletException, IOException {
+
+        ServletUtils.negotiateMediaType(req, resp);
+
+        if (compressionThreshold < 0) {
+            super.service(req, resp);
+            return;
+        }
+
+        resp.addHeader("Vary", "Accept-Encoding");
+        if (!ServletUtils.acceptsGzip(req)) {
+            super.service(req, resp);
+            return;
+        }
+
+        GzipResponseWrapper gzipResp = new GzipResponseWrapper(resp, compressionThreshold);
+        super.service(req, gzipResp);
+        gzipResp.finish();
+
+    }
+
     @Override
     protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
         try {
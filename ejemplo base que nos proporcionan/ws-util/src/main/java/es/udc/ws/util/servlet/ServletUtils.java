@@ -1,16 +1,26 @@
 package es.udc.ws.util.servlet;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Iterator;
 import java.util.Map;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
 import es.udc.ws.util.exceptions.InputValidationException;
 import es.udc.ws.util.json.ObjectMapperFactory;
@@ -19,15 +29,158 @@ public class ServletUtils {
 
     public static final int DEFAULT_BUFFER_SIZE = 1024 * 8;
 
+    /* Smaller bodies are not worth the CPU time and gzip framing. */
+    public static final int DEFAULT_COMPRESSION_THRESHOLD = 1024;
+
+    /*
+     * Bytes of a streamed response kept in memory before it is committed, so
+     * that a failure while reading the first records still gets an error
+     * status.
+     */
+    public static final int DEFAULT_STREAMING_BUFFER_SIZE = 8 * DEFAULT_BUFFER_SIZE;
+
+    /* Bytes of the SHA-256 digest kept in entity tags. */
+    private static final int ETAG_DIGEST_LENGTH = 16;
+
+    /**
+     * Writes <code>rootNode</code> (if not <code>null</code>) in the media
+     * type chosen by <code>negotiateMediaType</code> (JSON if it was not
+     * called). The same holds for the other <code>writeXXX</code> methods.
+     */
     public static void writeServiceResponse(HttpServletResponse response, int responseCode, JsonNode rootNode,
                                             Map<String, String> headers) throws IOException {
 
-        writeResponse(response, responseCode, "application/json", headers);
+        String mediaType = getMediaType(response);
+        writeResponse(response, responseCode, mediaType, headers);
 
         if (rootNode != null) {
-            ObjectMapper objectMapper = ObjectMapperFactory.instance();
-            objectMapper.writer(new DefaultPrettyPrinter()).writeValue(response.getOutputStream(), rootNode);
+            getWriter(mediaType).writeValue(response.getOutputStream(), rootNode);
+        }
+    }
+
+    /**
+     * Writes <code>rootNode</code> with a strong <code>ETag</code> derived
+     * from its serialized content, or only a 304 status (see
+     * <code>checkNotModified</code>) if the client already has it. The
+     * response is built in memory, so it is meant for small documents.
+     */
+    public static void writeConditionalServiceResponse(HttpServletRequest request, HttpServletResponse response,
+                                                       JsonNode rootNode, Map<String, String> headers)
+            throws IOException {
+
+        String mediaType = getMediaType(response);
+        byte[] content = getWriter(mediaType).writeValueAsBytes(rootNode);
+
+        if (checkNotModified(request, response, toETag(content), null)) {
+            return;
+        }
+
+        writeResponse(response, HttpServletResponse.SC_OK, mediaType, headers);
+        response.getOutputStream().write(content);
+    }
+
+    public static <T> void writeServiceResponse(HttpServletResponse response, int responseCode,
+                                                Iterator<T> records, JsonRecordWriter<T> recordWriter,
+                                                Map<String, String> headers) throws IOException {
+        writeServiceResponse(response, responseCode, records, recordWriter, headers, false);
+    }
+
+    /**
+     * Writes <code>records</code> as a JSON array to the response stream,
+     * one record at a time, so that memory use does not depend on the
+     * number of records. JSON output is compact unless
+     * <code>prettyPrint</code> is <code>true</code>.
+     * <p>
+     * The first <code>DEFAULT_STREAMING_BUFFER_SIZE</code> bytes are kept in
+     * memory, and <code>responseCode</code> and <code>headers</code> are only
+     * set when they are sent. If reading or writing a record fails before,
+     * nothing has been sent, and the exception can still be turned into an
+     * error response. If it fails afterwards, the array is left unclosed, so
+     * that clients fail to parse it instead of taking it as a complete
+     * (shorter) list, and the exception is rethrown for the caller to abort
+     * the response (see <code>RestHttpServletTemplate</code> and
+     * <code>AsyncRestHttpServletTemplate</code>).
+     */
+    public static <T> void writeServiceResponse(HttpServletResponse response, int responseCode,
+                                                Iterator<T> records, JsonRecordWriter<T> recordWriter,
+                                                Map<String, String> headers, boolean prettyPrint)
+            throws IOException {
+
+        String mediaType = getMediaType(response);
+        DeferredResponseOutputStream outputStream = new DeferredResponseOutputStream(response,
+                responseCode, mediaType, headers, DEFAULT_STREAMING_BUFFER_SIZE);
+
+        ObjectMapper objectMapper = ObjectMapperFactory.instance(mediaType);
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+        if (prettyPrint && mediaType.equals(ObjectMapperFactory.JSON_MEDIA_TYPE)) {
+            generator.useDefaultPrettyPrinter();
+        }
+
+        /* On failure "generator" is not closed, so nothing more is written. */
+        generator.writeStartArray();
+        while (records.hasNext()) {
+            recordWriter.write(generator, records.next());
+        }
+        generator.writeEndArray();
+        generator.close();
+    }
+
+    /**
+     * Chooses the media type of the response body among those of
+     * <code>ObjectMapperFactory</code>, according to the <code>Accept</code>
+     * header of <code>request</code> (the supported type with the highest
+     * quality value, JSON if there is none), and sets it as the content
+     * type of <code>response</code>, so that the <code>writeXXX</code>
+     * methods use it. <code>RestHttpServletTemplate</code> and
+     * <code>AsyncRestHttpServletTemplate</code> call it for every request.
+     */
+    public static void negotiateMediaType(HttpServletRequest request, HttpServletResponse response) {
+
+        String mediaType = ObjectMapperFactory.JSON_MEDIA_TYPE;
+        String accept = request.getHeader("Accept");
+
+        if (accept != null) {
+            double bestQuality = 0;
+            for (String range : accept.split(",")) {
+                String[] parts = range.split(";");
+                if (!ObjectMapperFactory.isSupported(parts[0])) {
+                    continue;
+                }
+                double quality = 1;
+                for (int i = 1; i < parts.length; i++) {
+                    String parameter = parts[i].replace(" ", "");
+                    if (parameter.startsWith("q=")) {
+                        try {
+                            quality = Double.parseDouble(parameter.substring(2));
+                        } catch (NumberFormatException e) {
+                            quality = 0;
+                        }
+                    }
+                }
+                if (quality > bestQuality) {
+                    bestQuality = quality;
+                    mediaType = ObjectMapperFactory.getMediaType(parts[0]);
+                }
+            }
         }
+
+        response.addHeader("Vary", "Accept");
+        response.setContentType(mediaType);
+
+    }
+
+    private static String getMediaType(HttpServletResponse response) {
+        String contentType = response.getContentType();
+        return ObjectMapperFactory.isSupported(contentType) ? ObjectMapperFactory.getMediaType(contentType)
+                : ObjectMapperFactory.JSON_MEDIA_TYPE;
+    }
+
+    /* Binary formats have no pretty printing. */
+    private static ObjectWriter getWriter(String mediaType) {
+        ObjectMapper objectMapper = ObjectMapperFactory.instance(mediaType);
+        return mediaType.equals(ObjectMapperFactory.JSON_MEDIA_TYPE) ?
+                objectMapper.writer(new DefaultPrettyPrinter()) : objectMapper.writer();
     }
 
     private static void writeResponse(HttpServletResponse response, int responseCode, String contentType,
@@ -45,6 +198,106 @@ public class ServletUtils {
         }
     }
 
+    /**
+     * Sets the <code>ETag</code> and <code>Last-Modified</code> headers of
+     * <code>response</code> (each one only if not <code>null</code>) and
+     * checks the preconditions of a <code>GET</code> request. Returns
+     * <code>true</code>, after setting a 304 (Not Modified) status, if some
+     * tag in <code>If-None-Match</code> is <code>eTag</code> (or
+     * <code>*</code>), or, when there is no <code>If-None-Match</code>, if
+     * <code>If-Modified-Since</code> is not before
+     * <code>lastModified</code>. The caller must then return without
+     * writing a body.
+     * <p>
+     * Since <code>Last-Modified</code> has a precision of one second, it
+     * should only be given for resources not modified more often.
+     */
+    public static boolean checkNotModified(HttpServletRequest request, HttpServletResponse response,
+                                           String eTag, Instant lastModified) {
+
+        if (eTag != null) {
+            response.setHeader("ETag", eTag);
+        }
+        if (lastModified != null) {
+            response.setDateHeader("Last-Modified", lastModified.toEpochMilli());
+        }
+
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        boolean notModified;
+
+        if (ifNoneMatch != null) {
+            notModified = eTag != null && matchesETag(ifNoneMatch, eTag);
+        } else {
+            notModified = lastModified != null &&
+                    lastModified.getEpochSecond() * 1000 <= getIfModifiedSince(request);
+        }
+
+        if (notModified) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        }
+        return notModified;
+    }
+
+    /**
+     * Returns a strong entity tag identifying <code>parts</code> (e.g. the
+     * identifiers and row versions of the elements of a response).
+     */
+    public static String toETag(Object... parts) {
+        return toETag(Arrays.toString(parts).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns a strong entity tag from a hash of <code>content</code>.
+     */
+    public static String toETag(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            return '"' + Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(Arrays.copyOf(digest, ETAG_DIGEST_LENGTH)) + '"';
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static boolean matchesETag(String ifNoneMatch, String eTag) {
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            /* Weak comparison, as required for If-None-Match. */
+            if (tag.equals("*") || tag.equals(eTag) || tag.equals("W/" + eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long getIfModifiedSince(HttpServletRequest request) {
+        try {
+            return request.getDateHeader("If-Modified-Since");
+        } catch (IllegalArgumentException e) {
+            /* An invalid date is ignored. */
+            return -1;
+        }
+    }
+
+    /**
+     * Returns <code>true</code> if the <code>Accept-Encoding</code> header
+     * of <code>request</code> lists <code>gzip</code> with a non-zero
+     * quality value.
+     */
+    public static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader("Accept-Encoding");
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
     public static String normalizePath(String url) {
         if (url != null && url.endsWith("/")) {
             return url.substring(0, url.length() - 1);
@@ -99,4 +352,68 @@ public class ServletUtils {
         }
         return id;
     }
+
+    /*
+     * Keeps the first "bufferSize" bytes of a response body in memory, and
+     * sets the status, headers and content type of the response when they
+     * are sent (once "bufferSize" is exceeded, or on "close").
+     */
+    private static class DeferredResponseOutputStream extends OutputStream {
+
+        private final HttpServletResponse response;
+        private final int responseCode;
+        private final String contentType;
+        private final Map<String, String> headers;
+        private final int bufferSize;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private OutputStream target;
+
+        private DeferredResponseOutputStream(HttpServletResponse response, int responseCode,
+                                             String contentType, Map<String, String> headers,
+                                             int bufferSize) {
+            this.response = response;
+            this.responseCode = responseCode;
+            this.contentType = contentType;
+            this.headers = headers;
+            this.bufferSize = bufferSize;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (target == null && buffer.size() + len <= bufferSize) {
+                buffer.write(b, off, len);
+                return;
+            }
+            start().write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            /* Nothing is sent before "bufferSize" is exceeded. */
+            if (target != null) {
+                target.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            start().close();
+        }
+
+        private OutputStream start() throws IOException {
+            if (target == null) {
+                writeResponse(response, responseCode, contentType, headers);
+                target = response.getOutputStream();
+                buffer.writeTo(target);
+                buffer.reset();
+            }
+            return target;
+        }
+
+    }
 }
@@ -5,7 +5,11 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServlet;
@@ -20,8 +24,21 @@ import org.apache.thrift.transport.TIOStreamTransport;
 import org.apache.thrift.transport.TTransport;
 
 
+/**
+ * Serves a Thrift processor over HTTP POST.
+ * <p>
+ * Besides the protocol given to the constructor (used by default), clients
+ * may ask for any protocol registered with <code>addProtocol</code> through
+ * the <code>X-Thrift-Protocol</code> request header (e.g.
+ * <code>compact</code>); the response then carries the same header. If
+ * <code>setGzipEnabled(true)</code> is called, responses are gzipped for
+ * clients sending <code>Accept-Encoding: gzip</code>. Gzipped requests
+ * (<code>Content-Encoding: gzip</code>) are always accepted.
+ */
 public class ThriftHttpServletTemplate extends HttpServlet {
 
+  public static final String PROTOCOL_HEADER = "X-Thrift-Protocol";
+
   private final TProcessor processor;
 
   private final TProtocolFactory inProtocolFactory;
@@ -30,6 +47,10 @@ public class ThriftHttpServletTemplate extends HttpServlet {
 
   private final Collection<Map.Entry<String, String>> customHeaders;
 
+  private final Map<String, TProtocolFactory> protocolFactories;
+
+  private boolean gzipEnabled;
+
   /**
    * @see HttpServlet#HttpServlet()
    */
@@ -40,6 +61,7 @@ public class ThriftHttpServletTemplate extends HttpServlet {
     this.inProtocolFactory = inProtocolFactory;
     this.outProtocolFactory = outProtocolFactory;
     this.customHeaders = new ArrayList<Map.Entry<String, String>>();
+    this.protocolFactories = new HashMap<String, TProtocolFactory>();
   }
 
   /**
@@ -63,22 +85,47 @@ public class ThriftHttpServletTemplate extends HttpServlet {
     try {
       response.setContentType("application/x-thrift");
 
+      TProtocolFactory inFactory = inProtocolFactory;
+      TProtocolFactory outFactory = outProtocolFactory;
+      String protocolName = request.getHeader(PROTOCOL_HEADER);
+      if (protocolName != null) {
+        protocolName = protocolName.trim().toLowerCase(Locale.ROOT);
+        TProtocolFactory protocolFactory = protocolFactories.get(protocolName);
+        if (protocolFactory != null) {
+          inFactory = protocolFactory;
+          outFactory = protocolFactory;
+          response.setHeader(PROTOCOL_HEADER, protocolName);
+        }
+      }
+
       if (null != this.customHeaders) {
         for (Map.Entry<String, String> header : this.customHeaders) {
           response.addHeader(header.getKey(), header.getValue());
         }
       }
       InputStream in = request.getInputStream();
+      if ("gzip".equalsIgnoreCase(request.getHeader("Content-Encoding"))) {
+        in = new GZIPInputStream(in, ServletUtils.DEFAULT_BUFFER_SIZE);
+      }
       OutputStream out = response.getOutputStream();
+      GZIPOutputStream gzipOut = null;
+      if (gzipEnabled && ServletUtils.acceptsGzip(request)) {
+        response.setHeader("Content-Encoding", "gzip");
+        gzipOut = new GZIPOutputStream(out, ServletUtils.DEFAULT_BUFFER_SIZE);
+        out = gzipOut;
+      }
 
       TTransport transport = new TIOStreamTransport(in, out);
       inTransport = transport;
       outTransport = transport;
 
-      TProtocol inProtocol = inProtocolFactory.getProtocol(inTransport);
-      TProtocol outProtocol = outProtocolFactory.getProtocol(outTransport);
+      TProtocol inProtocol = inFactory.getProtocol(inTransport);
+      TProtocol outProtocol = outFactory.getProtocol(outTransport);
 
       processor.process(inProtocol, outProtocol);
+      if (gzipOut != null) {
+        gzipOut.finish();
+      }
       out.flush();
     } catch (TException te) {
       throw new ServletException(te);
@@ -114,4 +161,16 @@ public class ThriftHttpServletTemplate extends HttpServlet {
     this.customHeaders.clear();
     this.customHeaders.addAll(headers);
   }
+
+  /**
+   * Registers a protocol clients may ask for with the
+   * <code>X-Thrift-Protocol</code> header (names are case insensitive).
+   */
+  public void addProtocol(String name, TProtocolFactory protocolFactory) {
+    this.protocolFactories.put(name.toLowerCase(Locale.ROOT), protocolFactory);
+  }
+
+  public void setGzipEnabled(boolean gzipEnabled) {
+    this.gzipEnabled = gzipEnabled;
+  }
 }
@@ -0,0 +1,64 @@
+package es.udc.ws.util.sql;
+
+import java.sql.SQLException;
+
+/**
+ * Helpers for DAOs offering keyword searches backed by a MySQL
+ * <code>FULLTEXT</code> index, with a fallback to <code>LIKE</code> when
+ * the index cannot serve the search.
+ */
+public final class FullTextSearch {
+
+    /**
+     * The <code>innodb_ft_min_token_size</code> default: shorter words are
+     * not indexed, so they can only be found with <code>LIKE</code>.
+     */
+    public static final int MIN_TOKEN_LENGTH = 3;
+
+    private static final int FULLTEXT_INDEX_NOT_FOUND_ERROR_CODE = 1191;
+
+    private FullTextSearch() {}
+
+    /**
+     * Converts <code>keywords</code> to a boolean mode query requiring every
+     * word as a prefix (e.g. <code>"movie tit"</code> becomes
+     * <code>"+movie* +tit*"</code>). Returns <code>null</code> if the
+     * keywords contain no words or some word is too short to be indexed, in
+     * which case the caller must fall back to <code>LIKE</code>.
+     */
+    public static String toBooleanModeQuery(String keywords) {
+
+        if (keywords == null) {
+            return null;
+        }
+
+        /* Boolean mode operators are not allowed inside words. */
+        String[] words = keywords.replaceAll("[+\\-<>()~*\"@]", " ").trim()
+                .split("\\s+");
+
+        StringBuilder query = new StringBuilder();
+
+        for (String word : words) {
+            if (word.length() < MIN_TOKEN_LENGTH) {
+                return null;
+            }
+            if (query.length() > 0) {
+                query.append(' ');
+            }
+            query.append('+').append(word).append('*');
+        }
+
+        return query.toString();
+
+    }
+
+    /**
+     * Returns <code>true</code> if <code>e</code> was caused by a missing
+     * <code>FULLTEXT</code> index (e.g. a database created before the index
+     * was added to the schema).
+     */
+    public static boolean isMissingIndex(SQLException e) {
+        return e.getErrorCode() == FULLTEXT_INDEX_NOT_FOUND_ERROR_CODE;
+    }
+
+}
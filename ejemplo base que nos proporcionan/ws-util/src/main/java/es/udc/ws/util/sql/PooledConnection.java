@@ -0,0 +1,185 @@
+package es.udc.ws.util.sql;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * A physical connection managed by a <code>PooledDataSource</code>. Each
+ * borrow hands out a fresh proxy bound to this object, so that
+ * <code>close()</code> returns the physical connection to the pool and any
+ * further use of an already returned proxy fails.
+ * <p>
+ * If the pool has a statement cache size, prepared statements are taken
+ * from (and returned to) a <code>StatementCache</code> bound to the
+ * physical connection, so they survive across borrows.
+ */
+class PooledConnection {
+
+    private final PooledDataSource pool;
+    private final Connection physicalConnection;
+    private final int defaultTransactionIsolation;
+    private final StatementCache statementCache;
+    private volatile long lastUsedTime;
+    private volatile long borrowTime;
+    private volatile Thread borrowThread;
+    private volatile Throwable borrowStackTrace;
+    private volatile boolean leakReported;
+
+    PooledConnection(PooledDataSource pool, Connection physicalConnection,
+            int statementCacheSize) throws SQLException {
+        this.pool = pool;
+        this.physicalConnection = physicalConnection;
+        this.defaultTransactionIsolation =
+                physicalConnection.getTransactionIsolation();
+        this.statementCache = statementCacheSize > 0
+                ? new StatementCache(pool, physicalConnection, statementCacheSize)
+                : null;
+        this.lastUsedTime = System.currentTimeMillis();
+    }
+
+    Connection getPhysicalConnection() {
+        return physicalConnection;
+    }
+
+    long getLastUsedTime() {
+        return lastUsedTime;
+    }
+
+    long getBorrowTime() {
+        return borrowTime;
+    }
+
+    Thread getBorrowThread() {
+        return borrowThread;
+    }
+
+    Throwable getBorrowStackTrace() {
+        return borrowStackTrace;
+    }
+
+    boolean isLeakReported() {
+        return leakReported;
+    }
+
+    void setLeakReported(boolean leakReported) {
+        this.leakReported = leakReported;
+    }
+
+    boolean isValid(int timeoutSeconds) {
+        try {
+            return physicalConnection.isValid(timeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    Connection borrow(boolean recordStackTrace) {
+        borrowTime = System.currentTimeMillis();
+        borrowThread = Thread.currentThread();
+        borrowStackTrace = recordStackTrace
+                ? new Throwable("Connection borrowed here") : null;
+        leakReported = false;
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, new Handle());
+    }
+
+    /**
+     * Restores the state a borrower may have changed, so that the next
+     * borrower gets the connection as it was created.
+     */
+    void reset() throws SQLException {
+        if (statementCache != null) {
+            statementCache.releaseAll();
+        }
+        if (!physicalConnection.getAutoCommit()) {
+            physicalConnection.rollback();
+            physicalConnection.setAutoCommit(true);
+        }
+        if (physicalConnection.getTransactionIsolation() !=
+                defaultTransactionIsolation) {
+            physicalConnection.setTransactionIsolation(
+                    defaultTransactionIsolation);
+        }
+        if (physicalConnection.isReadOnly()) {
+            physicalConnection.setReadOnly(false);
+        }
+        physicalConnection.clearWarnings();
+    }
+
+    void closePhysicalConnection() {
+        if (statementCache != null) {
+            statementCache.clear();
+        }
+        try {
+            physicalConnection.close();
+        } catch (SQLException e) {
+            /* Nothing sensible to do: the connection is being discarded. */
+        }
+    }
+
+    private void release() {
+        borrowThread = null;
+        borrowStackTrace = null;
+        lastUsedTime = System.currentTimeMillis();
+        pool.returnConnection(this);
+    }
+
+    private class Handle implements InvocationHandler {
+
+        private boolean closed;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args)
+                throws Throwable {
+
+            String methodName = method.getName();
+
+            switch (methodName) {
+                case "close":
+                    synchronized (this) {
+                        if (!closed) {
+                            closed = true;
+                            release();
+                        }
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || physicalConnection.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled[" + physicalConnection + "]";
+                default:
+                    break;
+            }
+
+            if (closed) {
+                throw new SQLException("Connection is closed");
+            }
+
+            if (statementCache != null && methodName.equals("prepareStatement")) {
+                PreparedStatement statement = statementCache.prepare(args);
+                if (statement != null) {
+                    return statement;
+                }
+            }
+
+            try {
+                return method.invoke(physicalConnection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+
+        }
+
+    }
+
+}
@@ -0,0 +1,569 @@
+package es.udc.ws.util.sql;
+
+import es.udc.ws.util.configuration.PropertiesUtil;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+
+/**
+ * A bounded connection pool implementation of a <code>DataSource</code>,
+ * intended as a drop-in replacement of <code>SimpleDataSource</code>
+ * (it can be registered with
+ * <code>DataSourceLocator.addDataSource(String, DataSource)</code>).
+ * <p>
+ * Connections are validated before being handed out, idle connections above
+ * the minimum size are evicted, connections not returned after a threshold
+ * are reported as leaks, and callers wait at most a configurable time when
+ * all connections are in use (an <code>SQLTimeoutException</code> is thrown
+ * afterwards). Returned connections are rolled back if a transaction was left
+ * open, and their auto-commit mode and isolation level are restored.
+ * <p>
+ * Optionally, each physical connection keeps a least recently used cache of
+ * its prepared statements keyed by SQL text (see
+ * <code>StatementCache</code>), so that DAOs using constant SQL strings
+ * do not prepare the same statement again on every call. Hit rates are
+ * available per SQL text through <code>getStatementStatistics()</code>.
+ * <p>
+ * <b>WARNING:</b> As in <code>SimpleDataSource</code>,
+ * <code>getConnection(String, String)</code> and the log writer and login
+ * timeout methods throw <code>SQLFeatureNotSupportedException</code>.
+ * <p>
+ * Configuration properties (read from
+ * <code>SimpleDataSource.properties</code>): <ul>
+ * <li><code>SimpleDataSource.url</code>, <code>SimpleDataSource.user</code>
+ * and <code>SimpleDataSource.password</code>: as in
+ * <code>SimpleDataSource</code> (required).</li>
+ * <li><code>PooledDataSource.minSize</code>: connections kept open even when
+ * idle (default 0).</li>
+ * <li><code>PooledDataSource.maxSize</code>: maximum number of open
+ * connections (default 10).</li>
+ * <li><code>PooledDataSource.maxIdleTime</code>: milliseconds an idle
+ * connection above <code>minSize</code> is kept open (default 600000).</li>
+ * <li><code>PooledDataSource.validationTimeout</code>: seconds allowed to
+ * validate a connection on borrow (default 2).</li>
+ * <li><code>PooledDataSource.leakDetectionThreshold</code>: milliseconds a
+ * connection may be borrowed before being reported as a possible leak;
+ * 0 disables leak detection (default 0).</li>
+ * <li><code>PooledDataSource.maxWait</code>: milliseconds a caller waits for
+ * a free connection (default 30000).</li>
+ * <li><code>PooledDataSource.statementCacheSize</code>: prepared statements
+ * cached per connection; 0 disables the cache (default 0).</li>
+ * <li><code>PooledDataSource.nestedBorrowPolicy</code>: what to do when a
+ * thread borrows a connection while it still holds another one:
+ * <code>ignore</code>, <code>warn</code> (log it, default) or
+ * <code>fail</code> (throw an <code>SQLException</code>).</li>
+ * </ul>
+ * <p>
+ * A nested borrow holds two connections for one unit of work, and once all
+ * connections are held by threads waiting for a second one the pool
+ * deadlocks until <code>maxWait</code> expires. Nested borrows are counted
+ * (see <code>getNestedBorrowCount()</code>) unless the policy is
+ * <code>ignore</code>. If leak detection is enabled, the report includes
+ * where the outer connection was borrowed.
+ */
+public class PooledDataSource implements DataSource {
+
+    private static final String CONFIGURATION_FILE = "SimpleDataSource.properties";
+    private static final String URL_PARAMETER = "SimpleDataSource.url";
+    private static final String USER_PARAMETER = "SimpleDataSource.user";
+    private static final String PASSWORD_PARAMETER = "SimpleDataSource.password";
+    private static final String MIN_SIZE_PARAMETER = "PooledDataSource.minSize";
+    private static final String MAX_SIZE_PARAMETER = "PooledDataSource.maxSize";
+    private static final String MAX_IDLE_TIME_PARAMETER =
+            "PooledDataSource.maxIdleTime";
+    private static final String VALIDATION_TIMEOUT_PARAMETER =
+            "PooledDataSource.validationTimeout";
+    private static final String LEAK_DETECTION_THRESHOLD_PARAMETER =
+            "PooledDataSource.leakDetectionThreshold";
+    private static final String MAX_WAIT_PARAMETER = "PooledDataSource.maxWait";
+    private static final String STATEMENT_CACHE_SIZE_PARAMETER =
+            "PooledDataSource.statementCacheSize";
+    private static final String NESTED_BORROW_POLICY_PARAMETER =
+            "PooledDataSource.nestedBorrowPolicy";
+
+    /* Bounds the statistics kept when SQL texts are built dynamically. */
+    private static final int MAX_STATEMENT_STATISTICS = 1000;
+
+    private static final Logger LOGGER =
+            Logger.getLogger(PooledDataSource.class.getName());
+
+    private enum NestedBorrowPolicy { IGNORE, WARN, FAIL }
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long maxIdleTime;
+    private final int validationTimeout;
+    private final long leakDetectionThreshold;
+    private final long maxWait;
+    private final int statementCacheSize;
+    private final NestedBorrowPolicy nestedBorrowPolicy;
+
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PooledConnection> idleConnections =
+            new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> activeConnections =
+            ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder borrowWaitTime = new LongAdder();
+    private final AtomicLong maxBorrowWaitTime = new AtomicLong();
+    private final LongAdder borrowTimeoutCount = new LongAdder();
+    private final LongAdder createdCount = new LongAdder();
+    private final LongAdder evictedCount = new LongAdder();
+    private final LongAdder invalidCount = new LongAdder();
+    private final LongAdder leakCount = new LongAdder();
+    private final LongAdder nestedBorrowCount = new LongAdder();
+    private final LongAdder statementCacheHitCount = new LongAdder();
+    private final LongAdder statementCacheMissCount = new LongAdder();
+    private final Map<String, StatementStatistics> statementStatistics =
+            new ConcurrentHashMap<>();
+
+    public PooledDataSource() {
+
+        Map<String, String> parameters =
+                PropertiesUtil.readProperties(CONFIGURATION_FILE);
+
+        url = parameters.get(URL_PARAMETER);
+        user = parameters.get(USER_PARAMETER);
+        password = parameters.get(PASSWORD_PARAMETER);
+        minSize = Integer.parseInt(parameters.getOrDefault(MIN_SIZE_PARAMETER, "0"));
+        maxSize = Integer.parseInt(parameters.getOrDefault(MAX_SIZE_PARAMETER, "10"));
+        maxIdleTime = Long.parseLong(
+                parameters.getOrDefault(MAX_IDLE_TIME_PARAMETER, "600000"));
+        validationTimeout = Integer.parseInt(
+                parameters.getOrDefault(VALIDATION_TIMEOUT_PARAMETER, "2"));
+        leakDetectionThreshold = Long.parseLong(
+                parameters.getOrDefault(LEAK_DETECTION_THRESHOLD_PARAMETER, "0"));
+        maxWait = Long.parseLong(parameters.getOrDefault(MAX_WAIT_PARAMETER, "30000"));
+        statementCacheSize = Integer.parseInt(
+                parameters.getOrDefault(STATEMENT_CACHE_SIZE_PARAMETER, "0"));
+        String policy = parameters.getOrDefault(NESTED_BORROW_POLICY_PARAMETER, "warn");
+
+        if (url == null) {
+            throw new RuntimeException("Missing configuration parameter " +
+                    URL_PARAMETER);
+        }
+        if (maxSize < 1 || minSize < 0 || minSize > maxSize) {
+            throw new RuntimeException("Invalid pool size: minSize=" + minSize +
+                    ", maxSize=" + maxSize);
+        }
+        try {
+            nestedBorrowPolicy = NestedBorrowPolicy.valueOf(
+                    policy.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid " +
+                    NESTED_BORROW_POLICY_PARAMETER + ": " + policy);
+        }
+
+        permits = new Semaphore(maxSize, true);
+
+        housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "PooledDataSource-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1000, Math.min(maxIdleTime,
+                leakDetectionThreshold > 0 ? leakDetectionThreshold : 30000) / 2);
+        housekeeper.scheduleWithFixedDelay(this::housekeep, period, period,
+                TimeUnit.MILLISECONDS);
+
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+
+        if (closed) {
+            throw new SQLException("Pool is closed");
+        }
+
+        if (nestedBorrowPolicy != NestedBorrowPolicy.IGNORE) {
+            checkNestedBorrow();
+        }
+
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(maxWait, TimeUnit.MILLISECONDS)) {
+                borrowTimeoutCount.increment();
+                throw new SQLTimeoutException("Timeout after " + maxWait +
+                        " ms waiting for a connection (active=" +
+                        activeConnections.size() + ", maxSize=" + maxSize + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", e);
+        }
+        recordBorrowWait(System.nanoTime() - start);
+
+        try {
+            PooledConnection pooledConnection = takeIdleConnection();
+            if (pooledConnection == null) {
+                pooledConnection = createConnection();
+            }
+            activeConnections.add(pooledConnection);
+            borrowCount.increment();
+            return pooledConnection.borrow(leakDetectionThreshold > 0);
+        } catch (SQLException | RuntimeException | Error e) {
+            permits.release();
+            throw e;
+        }
+
+    }
+
+    @Override
+    public Connection getConnection(String username, String password)
+            throws SQLException {
+
+        throw new SQLFeatureNotSupportedException("Not implemented");
+
+    }
+
+    /**
+     * Closes all idle connections and stops accepting new borrows.
+     * Connections currently in use are closed when they are returned.
+     */
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooledConnection;
+        while ((pooledConnection = idleConnections.pollFirst()) != null) {
+            pooledConnection.closePhysicalConnection();
+        }
+    }
+
+    public int getActiveConnections() {
+        return activeConnections.size();
+    }
+
+    public int getIdleConnections() {
+        return idleConnections.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Number of threads currently waiting for a free connection.
+     */
+    public int getWaitingThreads() {
+        return permits.getQueueLength();
+    }
+
+    public long getBorrowCount() {
+        return borrowCount.sum();
+    }
+
+    /**
+     * Average time (in milliseconds) callers waited for a free connection.
+     */
+    public double getAverageBorrowWaitMillis() {
+        long count = borrowCount.sum();
+        return count == 0 ? 0 : borrowWaitTime.sum() / (count * 1_000_000.0);
+    }
+
+    /**
+     * Maximum time (in milliseconds) a caller waited for a free connection.
+     */
+    public double getMaxBorrowWaitMillis() {
+        return maxBorrowWaitTime.get() / 1_000_000.0;
+    }
+
+    public long getBorrowTimeoutCount() {
+        return borrowTimeoutCount.sum();
+    }
+
+    public long getCreatedCount() {
+        return createdCount.sum();
+    }
+
+    public long getEvictedCount() {
+        return evictedCount.sum();
+    }
+
+    public long getInvalidCount() {
+        return invalidCount.sum();
+    }
+
+    public long getLeakCount() {
+        return leakCount.sum();
+    }
+
+    /**
+     * Number of connections borrowed by a thread that already held one.
+     */
+    public long getNestedBorrowCount() {
+        return nestedBorrowCount.sum();
+    }
+
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    public long getStatementCacheHitCount() {
+        return statementCacheHitCount.sum();
+    }
+
+    public long getStatementCacheMissCount() {
+        return statementCacheMissCount.sum();
+    }
+
+    /**
+     * Fraction (between 0 and 1) of <code>prepareStatement</code> calls
+     * served from the statement cache.
+     */
+    public double getStatementCacheHitRate() {
+        long hits = statementCacheHitCount.sum();
+        long total = hits + statementCacheMissCount.sum();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Statement cache hits and misses per SQL text, most used first.
+     */
+    public List<StatementStatistics> getStatementStatistics() {
+        List<StatementStatistics> statistics =
+                new ArrayList<>(statementStatistics.values());
+        statistics.sort(Comparator.comparingLong((StatementStatistics s) ->
+                s.getHitCount() + s.getMissCount()).reversed());
+        return statistics;
+    }
+
+    void recordStatementCacheAccess(String sql, boolean hit) {
+
+        StatementStatistics statistics = statementStatistics.get(sql);
+        if (statistics == null &&
+                statementStatistics.size() < MAX_STATEMENT_STATISTICS) {
+            statistics = statementStatistics.computeIfAbsent(sql,
+                    StatementStatistics::new);
+        }
+
+        if (hit) {
+            statementCacheHitCount.increment();
+            if (statistics != null) {
+                statistics.recordHit();
+            }
+        } else {
+            statementCacheMissCount.increment();
+            if (statistics != null) {
+                statistics.recordMiss();
+            }
+        }
+
+    }
+
+    void returnConnection(PooledConnection pooledConnection) {
+
+        activeConnections.remove(pooledConnection);
+
+        try {
+            pooledConnection.reset();
+            if (closed) {
+                pooledConnection.closePhysicalConnection();
+            } else {
+                idleConnections.offerFirst(pooledConnection);
+            }
+        } catch (SQLException e) {
+            invalidCount.increment();
+            pooledConnection.closePhysicalConnection();
+        } finally {
+            permits.release();
+        }
+
+    }
+
+    private void checkNestedBorrow() throws SQLException {
+
+        Thread thread = Thread.currentThread();
+
+        for (PooledConnection pooledConnection : activeConnections) {
+            if (pooledConnection.getBorrowThread() == thread) {
+                nestedBorrowCount.increment();
+                String message = "Thread " + thread.getName() +
+                        " borrows a connection while holding another one (active=" +
+                        activeConnections.size() + ", maxSize=" + maxSize + ")";
+                if (nestedBorrowPolicy == NestedBorrowPolicy.FAIL) {
+                    throw new SQLException(message,
+                            pooledConnection.getBorrowStackTrace());
+                }
+                LOGGER.log(Level.WARNING, message, new Throwable(
+                        "Nested borrow", pooledConnection.getBorrowStackTrace()));
+                return;
+            }
+        }
+
+    }
+
+    private PooledConnection takeIdleConnection() {
+
+        PooledConnection pooledConnection;
+
+        /* Most recently used first, so that surplus connections go idle. */
+        while ((pooledConnection = idleConnections.pollFirst()) != null) {
+            if (pooledConnection.isValid(validationTimeout)) {
+                return pooledConnection;
+            }
+            invalidCount.increment();
+            pooledConnection.closePhysicalConnection();
+        }
+
+        return null;
+
+    }
+
+    private PooledConnection createConnection() throws SQLException {
+        Connection connection = DriverManager.getConnection(url, user, password);
+        try {
+            PooledConnection pooledConnection =
+                    new PooledConnection(this, connection, statementCacheSize);
+            createdCount.increment();
+            return pooledConnection;
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    private void recordBorrowWait(long waitTime) {
+        borrowWaitTime.add(waitTime);
+        maxBorrowWaitTime.accumulateAndGet(waitTime, Math::max);
+    }
+
+    private void housekeep() {
+        try {
+            evictIdleConnections();
+            detectLeaks();
+            fillToMinSize();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Pool housekeeping failed", e);
+        }
+    }
+
+    private void evictIdleConnections() {
+
+        long now = System.currentTimeMillis();
+        List<PooledConnection> evicted = new ArrayList<>();
+
+        /* Least recently used connections are at the end of the deque. */
+        Iterator<PooledConnection> iterator = idleConnections.descendingIterator();
+        while (iterator.hasNext() &&
+                idleConnections.size() + activeConnections.size() > minSize) {
+            PooledConnection pooledConnection = iterator.next();
+            if (now - pooledConnection.getLastUsedTime() > maxIdleTime &&
+                    idleConnections.remove(pooledConnection)) {
+                evicted.add(pooledConnection);
+            }
+        }
+
+        for (PooledConnection pooledConnection : evicted) {
+            evictedCount.increment();
+            pooledConnection.closePhysicalConnection();
+        }
+
+    }
+
+    private void detectLeaks() {
+
+        if (leakDetectionThreshold <= 0) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+
+        for (PooledConnection pooledConnection : activeConnections) {
+            Thread thread = pooledConnection.getBorrowThread();
+            if (thread != null && !pooledConnection.isLeakReported() &&
+                    now - pooledConnection.getBorrowTime() > leakDetectionThreshold) {
+                pooledConnection.setLeakReported(true);
+                leakCount.increment();
+                LOGGER.log(Level.WARNING, "Connection borrowed by thread " +
+                        thread.getName() + " not returned after " +
+                        (now - pooledConnection.getBorrowTime()) +
+                        " ms (possible leak)",
+                        pooledConnection.getBorrowStackTrace());
+            }
+        }
+
+    }
+
+    private void fillToMinSize() {
+
+        while (!closed &&
+                idleConnections.size() + activeConnections.size() < minSize &&
+                permits.tryAcquire()) {
+            try {
+                idleConnections.offerLast(createConnection());
+            } catch (SQLException e) {
+                LOGGER.log(Level.WARNING, "Unable to open pool connection", e);
+                return;
+            } finally {
+                permits.release();
+            }
+        }
+
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        throw new SQLFeatureNotSupportedException("Not implemented");
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        throw new SQLFeatureNotSupportedException("Not implemented");
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return LOGGER;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Not implemented");
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Not implemented");
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this);
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+}
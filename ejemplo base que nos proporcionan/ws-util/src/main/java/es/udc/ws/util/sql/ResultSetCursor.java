@@ -0,0 +1,152 @@
+package es.udc.ws.util.sql;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * An iterator over an open <code>ResultSet</code> that converts each row
+ * with a <code>RowMapper</code> as it is requested, so that callers can
+ * process a query result of any size without materializing it.
+ * <p>
+ * The cursor owns the statement that produced the result set (and any
+ * resource registered with <code>closing(AutoCloseable)</code>) and must be
+ * closed, typically with a try-with-resources statement. SQL errors are
+ * wrapped in <code>RuntimeException</code>, as DAOs do.
+ * <p>
+ * With MySQL Connector/J, rows are only fetched one at a time from the
+ * server if the statement's fetch size is <code>Integer.MIN_VALUE</code>
+ * (see <code>enableStreaming(Statement)</code>); otherwise the driver reads
+ * the whole result into memory when the query is executed.
+ */
+public class ResultSetCursor<T> implements Iterator<T>, AutoCloseable {
+
+    /**
+     * Converts the current row of a <code>ResultSet</code>.
+     */
+    @FunctionalInterface
+    public interface RowMapper<T> {
+        T map(ResultSet resultSet) throws SQLException;
+    }
+
+    private final Statement statement;
+    private final ResultSet resultSet;
+    private final RowMapper<T> rowMapper;
+    private final List<AutoCloseable> resources = new ArrayList<>();
+    private boolean rowAvailable;
+    private boolean exhausted;
+    private boolean closed;
+
+    public ResultSetCursor(Statement statement, ResultSet resultSet,
+            RowMapper<T> rowMapper) {
+        this.statement = statement;
+        this.resultSet = resultSet;
+        this.rowMapper = rowMapper;
+    }
+
+    /**
+     * Makes the driver stream the rows of the next query executed with
+     * <code>statement</code> instead of reading them all at once. While
+     * the rows are being streamed, no other statement can be executed on
+     * the same connection.
+     */
+    public static void enableStreaming(Statement statement)
+            throws SQLException {
+        statement.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    /**
+     * Registers a resource (e.g. the connection) to be closed after the
+     * statement when the cursor is closed.
+     */
+    public ResultSetCursor<T> closing(AutoCloseable resource) {
+        resources.add(resource);
+        return this;
+    }
+
+    @Override
+    public boolean hasNext() {
+
+        if (rowAvailable) {
+            return true;
+        }
+        if (exhausted || closed) {
+            return false;
+        }
+
+        try {
+            rowAvailable = resultSet.next();
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+        exhausted = !rowAvailable;
+
+        return rowAvailable;
+
+    }
+
+    @Override
+    public T next() {
+
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        rowAvailable = false;
+
+        try {
+            return rowMapper.map(resultSet);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+
+    }
+
+    /**
+     * Reads the remaining rows into a list.
+     */
+    public List<T> toList() {
+        List<T> list = new ArrayList<>();
+        forEachRemaining(list::add);
+        return list;
+    }
+
+    @Override
+    public void close() {
+
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        RuntimeException exception = null;
+
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            exception = new RuntimeException(e);
+        }
+
+        for (AutoCloseable resource : resources) {
+            try {
+                resource.close();
+            } catch (Exception e) {
+                if (exception == null) {
+                    exception = new RuntimeException(e);
+                } else {
+                    exception.addSuppressed(e);
+                }
+            }
+        }
+
+        if (exception != null) {
+            throw exception;
+        }
+
+    }
+
+}
@@ -0,0 +1,371 @@
+package es.udc.ws.util.sql;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A least recently used cache of the prepared statements of one physical
+ * connection of a <code>PooledDataSource</code>, keyed by SQL text (and by
+ * result set type and concurrency, or generated keys mode).
+ * <p>
+ * <code>prepareStatement</code> hands out a proxy of the cached statement;
+ * closing the proxy closes the result sets it returned, clears its
+ * parameters, batch and warnings, and restores its fetch size, maximum rows
+ * and query timeout, so that the next borrower gets the statement as it was
+ * prepared. A statement still open when its SQL text is prepared again (e.g.
+ * while iterating over the results of another one) is not shared: a new,
+ * uncached statement is prepared instead.
+ * <p>
+ * With MySQL Connector/J the statements are only prepared on the server (so
+ * that reusing one saves the parse and the round trip of the server-side
+ * prepare) when the URL sets <code>useServerPrepStmts=true</code>; otherwise
+ * the driver prepares them on the client and the cache only saves that work.
+ * The driver's own cache (<code>cachePrepStmts</code>) would duplicate this
+ * one and is left disabled.
+ */
+class StatementCache {
+
+    private final PooledDataSource pool;
+    private final Connection physicalConnection;
+    private final int maxSize;
+    private final LinkedHashMap<Key, Entry> entries;
+
+    StatementCache(PooledDataSource pool, Connection physicalConnection,
+            int maxSize) {
+        this.pool = pool;
+        this.physicalConnection = physicalConnection;
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() <= StatementCache.this.maxSize) {
+                    return false;
+                }
+                Entry entry = eldest.getValue();
+                entry.evicted = true;
+                if (!entry.inUse) {
+                    entry.closePhysicalStatement();
+                }
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Serves a <code>prepareStatement</code> call with the given arguments,
+     * or returns <code>null</code> if its signature is not cached (column
+     * indexes or names for generated keys, result set holdability).
+     */
+    PreparedStatement prepare(Object[] args) throws SQLException {
+
+        Key key = Key.of(args);
+
+        if (key == null) {
+            return null;
+        }
+
+        Entry entry;
+        boolean shared;
+
+        synchronized (this) {
+            entry = entries.get(key);
+            shared = entry != null && entry.inUse;
+            if (entry != null && !shared) {
+                entry.inUse = true;
+            }
+        }
+
+        if (entry != null && !shared) {
+            pool.recordStatementCacheAccess(key.sql, true);
+            return entry.checkOut();
+        }
+
+        pool.recordStatementCacheAccess(key.sql, false);
+        PreparedStatement statement = key.prepare(physicalConnection);
+
+        if (shared) {
+            return statement;
+        }
+
+        try {
+            entry = new Entry(key, statement);
+        } catch (SQLException e) {
+            statement.close();
+            throw e;
+        }
+
+        synchronized (this) {
+            Entry previous = entries.put(key, entry);
+            if (previous != null) {
+                /* Only possible if another thread used this connection. */
+                previous.evicted = true;
+                if (!previous.inUse) {
+                    previous.closePhysicalStatement();
+                }
+            }
+        }
+
+        return entry.checkOut();
+
+    }
+
+    /**
+     * Returns to the cache the statements the last borrower did not close.
+     */
+    void releaseAll() {
+
+        List<Entry> inUse = new ArrayList<>();
+
+        synchronized (this) {
+            for (Entry entry : entries.values()) {
+                if (entry.inUse && entry.handle != null) {
+                    inUse.add(entry);
+                }
+            }
+        }
+
+        for (Entry entry : inUse) {
+            entry.handle.close();
+        }
+
+    }
+
+    /**
+     * Forgets all statements (they are closed with the physical connection).
+     */
+    synchronized void clear() {
+        entries.clear();
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private void checkIn(Entry entry) {
+
+        boolean reusable = entry.clearState();
+
+        synchronized (this) {
+            entry.inUse = false;
+            entry.handle = null;
+            if (!reusable) {
+                entries.remove(entry.key, entry);
+            }
+            if (!reusable || entry.evicted) {
+                entry.closePhysicalStatement();
+            }
+        }
+
+    }
+
+    private static final class Key {
+
+        private final String sql;
+        private final int resultSetType;
+        private final int resultSetConcurrency;
+        private final int autoGeneratedKeys;
+
+        private Key(String sql, int resultSetType, int resultSetConcurrency,
+                int autoGeneratedKeys) {
+            this.sql = sql;
+            this.resultSetType = resultSetType;
+            this.resultSetConcurrency = resultSetConcurrency;
+            this.autoGeneratedKeys = autoGeneratedKeys;
+        }
+
+        private static Key of(Object[] args) {
+
+            if (args == null || !(args[0] instanceof String)) {
+                return null;
+            }
+
+            String sql = (String) args[0];
+
+            if (args.length == 1) {
+                return new Key(sql, ResultSet.TYPE_FORWARD_ONLY,
+                        ResultSet.CONCUR_READ_ONLY, Statement.NO_GENERATED_KEYS);
+            }
+            if (args.length == 2 && args[1] instanceof Integer) {
+                return new Key(sql, ResultSet.TYPE_FORWARD_ONLY,
+                        ResultSet.CONCUR_READ_ONLY, (Integer) args[1]);
+            }
+            if (args.length == 3 && args[1] instanceof Integer &&
+                    args[2] instanceof Integer) {
+                return new Key(sql, (Integer) args[1], (Integer) args[2],
+                        Statement.NO_GENERATED_KEYS);
+            }
+
+            return null;
+
+        }
+
+        private PreparedStatement prepare(Connection connection)
+                throws SQLException {
+            if (autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS) {
+                return connection.prepareStatement(sql, autoGeneratedKeys);
+            }
+            return connection.prepareStatement(sql, resultSetType,
+                    resultSetConcurrency);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return sql.equals(other.sql) &&
+                    resultSetType == other.resultSetType &&
+                    resultSetConcurrency == other.resultSetConcurrency &&
+                    autoGeneratedKeys == other.autoGeneratedKeys;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(sql, resultSetType, resultSetConcurrency,
+                    autoGeneratedKeys);
+        }
+
+    }
+
+    private class Entry {
+
+        private final Key key;
+        private final PreparedStatement statement;
+        private final int fetchSize;
+        private final int maxRows;
+        private final int queryTimeout;
+        private final List<ResultSet> resultSets = new ArrayList<>();
+        private boolean inUse = true;
+        private boolean evicted;
+        private Handle handle;
+
+        private Entry(Key key, PreparedStatement statement)
+                throws SQLException {
+            this.key = key;
+            this.statement = statement;
+            this.fetchSize = statement.getFetchSize();
+            this.maxRows = statement.getMaxRows();
+            this.queryTimeout = statement.getQueryTimeout();
+        }
+
+        private PreparedStatement checkOut() {
+            handle = new Handle(this);
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[] {PreparedStatement.class}, handle);
+        }
+
+        /**
+         * Returns <code>false</code> if the statement cannot be reused.
+         */
+        private boolean clearState() {
+            try {
+                for (ResultSet resultSet : resultSets) {
+                    resultSet.close();
+                }
+                resultSets.clear();
+                if (statement.isClosed()) {
+                    return false;
+                }
+                statement.clearParameters();
+                statement.clearBatch();
+                statement.clearWarnings();
+                if (statement.getFetchSize() != fetchSize) {
+                    statement.setFetchSize(fetchSize);
+                }
+                if (statement.getMaxRows() != maxRows) {
+                    statement.setMaxRows(maxRows);
+                }
+                if (statement.getQueryTimeout() != queryTimeout) {
+                    statement.setQueryTimeout(queryTimeout);
+                }
+                return true;
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        private void closePhysicalStatement() {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                /* Nothing sensible to do: the statement is being discarded. */
+            }
+        }
+
+    }
+
+    private class Handle implements InvocationHandler {
+
+        private final Entry entry;
+        private boolean closed;
+
+        private Handle(Entry entry) {
+            this.entry = entry;
+        }
+
+        private synchronized void close() {
+            if (!closed) {
+                closed = true;
+                checkIn(entry);
+            }
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args)
+                throws Throwable {
+
+            switch (method.getName()) {
+                case "close":
+                    close();
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Cached[" + entry.statement + "]";
+                default:
+                    break;
+            }
+
+            if (closed) {
+                throw new SQLException("Statement is closed");
+            }
+
+            Object result;
+            try {
+                result = method.invoke(entry.statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+
+            if (result instanceof ResultSet) {
+                entry.resultSets.add((ResultSet) result);
+            }
+
+            return result;
+
+        }
+
+    }
+
+}
@@ -0,0 +1,61 @@
+package es.udc.ws.util.sql;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hit and miss counts of the prepared statement cache of a
+ * <code>PooledDataSource</code> for one SQL text, added up over all its
+ * connections.
+ * <p>
+ * A hit is a <code>prepareStatement</code> call served with a statement
+ * already prepared on the borrowed connection; a miss prepares a new one
+ * (because the SQL text was not cached on that connection, had been evicted,
+ * or its cached statement was still open).
+ */
+public final class StatementStatistics {
+
+    private final String sql;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+
+    StatementStatistics(String sql) {
+        this.sql = sql;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * Fraction (between 0 and 1) of <code>prepareStatement</code> calls
+     * served from the cache.
+     */
+    public double getHitRate() {
+        long hits = hitCount.sum();
+        long total = hits + missCount.sum();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    void recordHit() {
+        hitCount.increment();
+    }
+
+    void recordMiss() {
+        missCount.increment();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.1f%% hits (%d/%d) %s", getHitRate() * 100,
+                getHitCount(), getHitCount() + getMissCount(), sql);
+    }
+
+}
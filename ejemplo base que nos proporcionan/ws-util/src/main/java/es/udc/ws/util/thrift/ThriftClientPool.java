@@ -0,0 +1,216 @@
+package es.udc.ws.util.thrift;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.Timeout;
+import org.apache.thrift.TException;
+import org.apache.thrift.TServiceClient;
+import org.apache.thrift.TServiceClientFactory;
+import org.apache.thrift.protocol.TBinaryProtocol;
+import org.apache.thrift.protocol.TCompactProtocol;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.protocol.TProtocolException;
+import org.apache.thrift.transport.THttpClient;
+import org.apache.thrift.transport.TTransportException;
+
+import es.udc.ws.util.configuration.ConfigurationParametersManager;
+import es.udc.ws.util.servlet.ThriftHttpServletTemplate;
+
+/**
+ * A bounded pool of Thrift clients of one HTTP endpoint.
+ * <p>
+ * All clients share an <code>HttpClient</code> with a pool of persistent
+ * (keep-alive) connections, so consecutive calls reuse both the client and
+ * its connection instead of opening a new one per call. At most
+ * <code>maxClients</code> calls run at the same time; further callers wait
+ * for a client to be returned.
+ * <p>
+ * A client whose call fails at the transport or protocol level is
+ * discarded, since its buffers may hold part of a message. Exceptions
+ * declared by the service are complete responses, so the client is reused.
+ * <p>
+ * Clients use the binary protocol, or the compact one if the pool is
+ * created with <code>COMPACT_PROTOCOL</code> (the server must accept it, see
+ * <code>ThriftHttpServletTemplate.addProtocol</code>). Gzipped responses are
+ * decompressed transparently by the <code>HttpClient</code>.
+ */
+public class ThriftClientPool<C extends TServiceClient> implements AutoCloseable {
+
+    /**
+     * A call to the service through a pooled client.
+     */
+    @FunctionalInterface
+    public interface Call<C, T> {
+        T call(C client) throws TException;
+    }
+
+    public static final String BINARY_PROTOCOL = "binary";
+    public static final String COMPACT_PROTOCOL = "compact";
+
+    public static final int DEFAULT_MAX_CLIENTS = 8;
+    public static final int DEFAULT_CONNECT_TIMEOUT = 5000;
+    public static final int DEFAULT_READ_TIMEOUT = 30000;
+
+    private final String endpointAddress;
+    private final TServiceClientFactory<C> clientFactory;
+    private final String protocol;
+    private final int maxClients;
+    private final CloseableHttpClient httpClient;
+    private final Semaphore permits;
+    private final ConcurrentLinkedDeque<C> idleClients = new ConcurrentLinkedDeque<>();
+
+    public ThriftClientPool(String endpointAddress,
+            TServiceClientFactory<C> clientFactory, String protocol,
+            int maxClients, int connectTimeout, int readTimeout) {
+
+        if (maxClients < 1) {
+            throw new IllegalArgumentException("Invalid maxClients: " +
+                    maxClients);
+        }
+        if (!BINARY_PROTOCOL.equals(protocol) &&
+                !COMPACT_PROTOCOL.equals(protocol)) {
+            throw new IllegalArgumentException("Invalid protocol: " +
+                    protocol);
+        }
+
+        this.endpointAddress = endpointAddress;
+        this.clientFactory = clientFactory;
+        this.protocol = protocol;
+        this.maxClients = maxClients;
+        this.permits = new Semaphore(maxClients, true);
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                        .setMaxConnTotal(maxClients)
+                        .setMaxConnPerRoute(maxClients)
+                        .setDefaultConnectionConfig(ConnectionConfig.custom()
+                                .setConnectTimeout(Timeout.ofMilliseconds(connectTimeout))
+                                .setSocketTimeout(Timeout.ofMilliseconds(readTimeout))
+                                .build())
+                        .build())
+                .build();
+
+    }
+
+    /**
+     * Creates a pool configured with the parameters
+     * <code>&lt;prefix&gt;.endpointAddress</code> (mandatory),
+     * <code>&lt;prefix&gt;.protocol</code> (<code>binary</code> or
+     * <code>compact</code>), <code>&lt;prefix&gt;.maxClients</code>,
+     * <code>&lt;prefix&gt;.connectTimeout</code> and
+     * <code>&lt;prefix&gt;.readTimeout</code> (milliseconds) of
+     * <code>ConfigurationParametersManager</code>.
+     */
+    public static <C extends TServiceClient> ThriftClientPool<C> fromConfiguration(
+            String prefix, TServiceClientFactory<C> clientFactory) {
+
+        String endpointAddress = ConfigurationParametersManager.getParameter(
+                prefix + ".endpointAddress");
+
+        if (endpointAddress == null) {
+            throw new RuntimeException("Missing configuration parameter: " +
+                    prefix + ".endpointAddress");
+        }
+
+        String protocol = ConfigurationParametersManager.getParameter(
+                prefix + ".protocol");
+
+        return new ThriftClientPool<>(endpointAddress, clientFactory,
+                protocol != null ? protocol.trim() : BINARY_PROTOCOL,
+                getIntParameter(prefix + ".maxClients", DEFAULT_MAX_CLIENTS),
+                getIntParameter(prefix + ".connectTimeout", DEFAULT_CONNECT_TIMEOUT),
+                getIntParameter(prefix + ".readTimeout", DEFAULT_READ_TIMEOUT));
+
+    }
+
+    /**
+     * Runs <code>call</code> with a pooled client, waiting for one if all of
+     * them are in use.
+     */
+    public <T> T execute(Call<C, T> call) throws TException {
+
+        permits.acquireUninterruptibly();
+
+        try {
+
+            C client = idleClients.pollFirst();
+
+            if (client == null) {
+                client = createClient();
+            }
+
+            T result;
+            try {
+                result = call.call(client);
+            } catch (TTransportException | TProtocolException | RuntimeException e) {
+                throw e;
+            } catch (TException e) {
+                idleClients.addFirst(client);
+                throw e;
+            }
+
+            idleClients.addFirst(client);
+            return result;
+
+        } finally {
+            permits.release();
+        }
+
+    }
+
+    public String getEndpointAddress() {
+        return endpointAddress;
+    }
+
+    public String getProtocol() {
+        return protocol;
+    }
+
+    public int getMaxClients() {
+        return maxClients;
+    }
+
+    /**
+     * Number of clients currently in use.
+     */
+    public int getActiveCount() {
+        return maxClients - permits.availablePermits();
+    }
+
+    /**
+     * Closes the pooled HTTP connections.
+     */
+    @Override
+    public void close() {
+        idleClients.clear();
+        try {
+            httpClient.close();
+        } catch (IOException e) {
+            /* Nothing sensible to do: the connections are being discarded. */
+        }
+    }
+
+    private C createClient() throws TTransportException {
+        THttpClient transport = new THttpClient(endpointAddress, httpClient);
+        TProtocol clientProtocol;
+        if (COMPACT_PROTOCOL.equals(protocol)) {
+            transport.setCustomHeader(ThriftHttpServletTemplate.PROTOCOL_HEADER,
+                    COMPACT_PROTOCOL);
+            clientProtocol = new TCompactProtocol(transport);
+        } else {
+            clientProtocol = new TBinaryProtocol(transport);
+        }
+        return clientFactory.getClient(clientProtocol);
+    }
+
+    private static int getIntParameter(String name, int defaultValue) {
+        String value = ConfigurationParametersManager.getParameter(name);
+        return value != null ? Integer.parseInt(value.trim()) : defaultValue;
+    }
+
+}
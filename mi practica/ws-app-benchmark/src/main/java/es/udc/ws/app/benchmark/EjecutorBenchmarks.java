@@ -0,0 +1,40 @@
+package es.udc.ws.app.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class EjecutorBenchmarks {
+
+    private static final String HILOS_PROPERTY = "benchmark.hilos";
+    private static final String RESULTADOS_PROPERTY = "benchmark.resultados";
+
+    private EjecutorBenchmarks() {
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        CommandLineOptions lineaDeComandos = new CommandLineOptions(args);
+        String[] hilos = System.getProperty(HILOS_PROPERTY, "1,4,16").split(",");
+        Path resultados = Path.of(System.getProperty(RESULTADOS_PROPERTY, "jmh-resultados"));
+        Files.createDirectories(resultados);
+
+        for (String valor : hilos) {
+            int numeroHilos = Integer.parseInt(valor.trim());
+
+            Options opciones = new OptionsBuilder()
+                    .parent(lineaDeComandos)
+                    .threads(numeroHilos)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(resultados.resolve("app-" + numeroHilos + "-hilos.json").toString())
+                    .build();
+
+            new Runner(opciones).run();
+        }
+    }
+}
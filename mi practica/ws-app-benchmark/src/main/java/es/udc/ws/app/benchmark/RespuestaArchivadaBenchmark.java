@@ -0,0 +1,180 @@
+package es.udc.ws.app.benchmark;
+
+import es.udc.ws.app.model.respuesta.Respuesta;
+import es.udc.ws.app.model.respuesta.RespuestaDaoFactory;
+import es.udc.ws.app.model.respuesta.SqlRespuestaDao;
+import es.udc.ws.util.sql.DataSourceLocator;
+import es.udc.ws.util.sql.PooledDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static es.udc.ws.app.model.util.ModelConstants.SURVEY_DATA_SOURCE;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class RespuestaArchivadaBenchmark {
+
+    private static final int RESPUESTAS_POR_ENCUESTA = 1000;
+    private static final int MESES = 24;
+    private static final int ENCUESTAS_POR_INSERCION = 1000;
+    private static final int TAMANO_PAGINA = 100;
+
+    private static final String CREATE_RESPUESTAS_QUERY = "CREATE TEMPORARY TABLE BenchmarkRespuesta "
+            + "(n BIGINT NOT NULL PRIMARY KEY, afirmativa BOOLEAN NOT NULL, fechaRespuesta DATETIME NOT NULL)";
+
+    private static final String CREATE_ENCUESTAS_QUERY = "CREATE TEMPORARY TABLE BenchmarkEncuesta "
+            + "(encuestaId BIGINT NOT NULL PRIMARY KEY, fechaFin DATETIME NOT NULL)";
+
+    private static final String INSERT_RESPUESTA_QUERY = "INSERT INTO BenchmarkRespuesta VALUES (?, ?, ?)";
+
+    private static final String INSERT_ENCUESTA_QUERY = "INSERT INTO BenchmarkEncuesta VALUES (?, ?)";
+
+    private static final String POBLAR_QUERY = "INSERT INTO RespuestaArchivada "
+            + "(respuestaId, encuestaId, emailEmpleado, afirmativa, fechaRespuesta, fechaFinEncuesta) "
+            + "SELECT e.encuestaId * " + RESPUESTAS_POR_ENCUESTA + " - r.n, e.encuestaId, "
+            + "CONCAT('empleado', r.n, '@udc.es'), r.afirmativa, r.fechaRespuesta, e.fechaFin "
+            + "FROM BenchmarkEncuesta e CROSS JOIN BenchmarkRespuesta r "
+            + "WHERE e.encuestaId BETWEEN ? AND ?";
+
+    private static final String SIN_PODA_QUERY = "SELECT respuestaId, emailEmpleado, afirmativa, fechaRespuesta "
+            + "FROM RespuestaArchivada WHERE encuestaId = ? "
+            + "ORDER BY fechaRespuesta DESC, respuestaId DESC LIMIT ?";
+
+    private static final String LIMPIAR_QUERY = "DELETE FROM RespuestaArchivada WHERE encuestaId BETWEEN ? AND ?";
+
+    @Param({"1000000", "10000000", "100000000"})
+    public long filas;
+
+    private PooledDataSource dataSource;
+    private SqlRespuestaDao respuestaDao;
+    private int encuestas;
+    private YearMonth primerMes;
+
+    @Setup(Level.Trial)
+    public void preparar() throws Exception {
+
+        dataSource = new PooledDataSource();
+        DataSourceLocator.addDataSource(SURVEY_DATA_SOURCE, dataSource);
+        respuestaDao = RespuestaDaoFactory.getDao();
+
+        encuestas = (int) (filas / RESPUESTAS_POR_ENCUESTA);
+        primerMes = YearMonth.now().plusMonths(1);
+        LocalDateTime fechaRespuesta = primerMes.atDay(1).atStartOfDay().minusDays(1);
+
+        try (Connection connection = dataSource.getConnection()) {
+
+            respuestaDao.mantenerParticionesArchivo(connection, primerMes.plusMonths(MESES - 1), null);
+
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate(CREATE_RESPUESTAS_QUERY);
+                statement.executeUpdate(CREATE_ENCUESTAS_QUERY);
+            }
+
+            try (PreparedStatement preparedStatement = connection.prepareStatement(INSERT_RESPUESTA_QUERY)) {
+                for (int n = 0; n < RESPUESTAS_POR_ENCUESTA; n++) {
+                    preparedStatement.setLong(1, n);
+                    preparedStatement.setBoolean(2, n % 2 == 0);
+                    preparedStatement.setTimestamp(3, Timestamp.valueOf(fechaRespuesta.minusSeconds(n)));
+                    preparedStatement.addBatch();
+                }
+                preparedStatement.executeBatch();
+            }
+
+            try (PreparedStatement preparedStatement = connection.prepareStatement(INSERT_ENCUESTA_QUERY)) {
+                for (int i = 1; i <= encuestas; i++) {
+                    preparedStatement.setLong(1, -i);
+                    preparedStatement.setTimestamp(2, Timestamp.valueOf(fechaFin(-i)));
+                    preparedStatement.addBatch();
+                    if (i % ENCUESTAS_POR_INSERCION == 0) {
+                        preparedStatement.executeBatch();
+                    }
+                }
+                preparedStatement.executeBatch();
+            }
+
+            try (PreparedStatement preparedStatement = connection.prepareStatement(POBLAR_QUERY)) {
+                for (int i = 1; i <= encuestas; i += ENCUESTAS_POR_INSERCION) {
+                    preparedStatement.setLong(1, -Math.min(encuestas, i + ENCUESTAS_POR_INSERCION - 1));
+                    preparedStatement.setLong(2, -i);
+                    preparedStatement.executeUpdate();
+                }
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void limpiar() throws Exception {
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(LIMPIAR_QUERY)) {
+            for (int i = 1; i <= encuestas; i += ENCUESTAS_POR_INSERCION) {
+                preparedStatement.setLong(1, -Math.min(encuestas, i + ENCUESTAS_POR_INSERCION - 1));
+                preparedStatement.setLong(2, -i);
+                preparedStatement.executeUpdate();
+            }
+        }
+
+        dataSource.close();
+    }
+
+    @Benchmark
+    public List<Respuesta> obtenerArchivadas() throws Exception {
+        Long encuestaId = encuestaAleatoria();
+        try (Connection connection = dataSource.getConnection()) {
+            return respuestaDao.findArchivadasByEncuestaId(connection, encuestaId, fechaFin(encuestaId),
+                    false, null, null, TAMANO_PAGINA);
+        }
+    }
+
+    @Benchmark
+    public List<Respuesta> obtenerArchivadasSinPoda() throws Exception {
+        Long encuestaId = encuestaAleatoria();
+        List<Respuesta> respuestas = new ArrayList<>(TAMANO_PAGINA);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(SIN_PODA_QUERY)) {
+            preparedStatement.setLong(1, encuestaId);
+            preparedStatement.setInt(2, TAMANO_PAGINA);
+            ResultSet rs = preparedStatement.executeQuery();
+            while (rs.next()) {
+                respuestas.add(new Respuesta(rs.getLong(1), encuestaId, rs.getString(2), rs.getBoolean(3),
+                        rs.getTimestamp(4).toLocalDateTime()));
+            }
+        }
+        return respuestas;
+    }
+
+    private Long encuestaAleatoria() {
+        return -1L - ThreadLocalRandom.current().nextInt(encuestas);
+    }
+
+    private LocalDateTime fechaFin(long encuestaId) {
+        return primerMes.plusMonths(-encuestaId % MESES).atDay(1).atTime(12, 0);
+    }
+}
@@ -0,0 +1,116 @@
+package es.udc.ws.app.benchmark;
+
+import es.udc.ws.app.model.encuesta.Encuesta;
+import es.udc.ws.app.model.encuesta.EncuestaDaoFactory;
+import es.udc.ws.app.model.encuesta.SqlEncuestaDao;
+import es.udc.ws.app.model.respuesta.Respuesta;
+import es.udc.ws.app.model.surveyservice.Pagina;
+import es.udc.ws.app.model.surveyservice.SurveyService;
+import es.udc.ws.app.model.surveyservice.SurveyServiceFactory;
+import es.udc.ws.util.sql.DataSourceLocator;
+import es.udc.ws.util.sql.PooledDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static es.udc.ws.app.model.util.ModelConstants.SURVEY_DATA_SOURCE;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SurveyServiceBenchmark {
+
+    @Param({"20", "200"})
+    public int encuestas;
+
+    @Param({"1000", "100000"})
+    public int respuestas;
+
+    private PooledDataSource dataSource;
+    private SurveyService surveyService;
+    private String palabraClave;
+    private List<Long> encuestaIds;
+    private Long encuestaConRespuestas;
+
+    @Setup(Level.Trial)
+    public void preparar() throws Exception {
+
+        dataSource = new PooledDataSource();
+        DataSourceLocator.addDataSource(SURVEY_DATA_SOURCE, dataSource);
+        surveyService = SurveyServiceFactory.getService();
+
+        palabraClave = "benchmark" + System.currentTimeMillis();
+        encuestaIds = new ArrayList<>(encuestas);
+        LocalDateTime fechaFin = LocalDateTime.now().plusDays(30).withNano(0);
+
+        for (int i = 0; i < encuestas; i++) {
+            Encuesta encuesta = surveyService.crearEncuesta(
+                    new Encuesta(palabraClave + " pregunta " + i, fechaFin));
+            encuestaIds.add(encuesta.getEncuestaId());
+        }
+
+        encuestaConRespuestas = encuestaIds.get(0);
+        List<Respuesta> lote = new ArrayList<>(respuestas);
+        for (int i = 0; i < respuestas; i++) {
+            lote.add(new Respuesta(encuestaConRespuestas, "empleado" + i + "@udc.es", i % 2 == 0));
+        }
+        surveyService.responderEncuestas(lote);
+    }
+
+    @TearDown(Level.Trial)
+    public void limpiar() throws Exception {
+
+        SqlEncuestaDao encuestaDao = EncuestaDaoFactory.getDao();
+
+        try (Connection connection = dataSource.getConnection()) {
+            for (Long encuestaId : encuestaIds) {
+                encuestaDao.remove(connection, encuestaId);
+            }
+        }
+
+        dataSource.close();
+    }
+
+    @Benchmark
+    public Respuesta responderEncuesta() throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Long encuestaId = encuestaIds.get(random.nextInt(encuestaIds.size()));
+        return surveyService.responderEncuesta(encuestaId,
+                "votante" + random.nextInt(respuestas) + "@udc.es", random.nextBoolean());
+    }
+
+    @Benchmark
+    public List<Encuesta> buscarEncuestas() {
+        return surveyService.buscarEncuestas(palabraClave);
+    }
+
+    @Benchmark
+    public List<Respuesta> obtenerRespuestas() throws Exception {
+        return surveyService.obtenerRespuestas(encuestaConRespuestas, false);
+    }
+
+    @Benchmark
+    public Pagina<Respuesta> obtenerRespuestasPaginadas() throws Exception {
+        return surveyService.obtenerRespuestas(encuestaConRespuestas, false, 100, null);
+    }
+}
@@ -1,26 +1,80 @@
 package es.udc.ws.app.model.encuesta;
 
+import es.udc.ws.util.configuration.ConfigurationParametersManager;
 import es.udc.ws.util.exceptions.InstanceNotFoundException;
-import es.udc.ws.util.sql.DataSourceLocator;
+import es.udc.ws.util.sql.FullTextSearch;
 
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
-import static es.udc.ws.app.model.util.ModelConstants.SURVEY_DATA_SOURCE;
-
 public abstract class AbstractSqlEncuestaDao implements SqlEncuestaDao {
 
+    private static final String BUSQUEDA_PARAMETER = "SqlEncuestaDao.busquedaPorPalabrasClave";
+
+    private static final String CREATE_QUERY = "INSERT INTO Encuesta (pregunta, fechaFin, fechaCreacion, " +
+            "respuestasPositivas, respuestasNegativas, cancelada) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String FIND_QUERY = "SELECT pregunta, fechaCreacion, fechaFin, " +
+            "respuestasPositivas, respuestasNegativas, cancelada, version " +
+            "FROM Encuesta WHERE encuestaId = ?";
+
+    private static final String FIND_FOR_UPDATE_QUERY = FIND_QUERY + " FOR UPDATE";
+
+    private static final String FIND_FOR_SHARE_QUERY = FIND_QUERY + " LOCK IN SHARE MODE";
+
+    private static final String BUSCAR_QUERY = "SELECT encuestaId, pregunta, fechaCreacion, fechaFin, " +
+            "respuestasPositivas, respuestasNegativas, cancelada, version " +
+            "FROM Encuesta WHERE ";
+
+    private static final String UPDATE_QUERY = "UPDATE Encuesta SET pregunta = ?, fechaFin = ?, " +
+            "respuestasPositivas = ?, respuestasNegativas = ?, cancelada = ?, version = version + 1 " +
+            "WHERE encuestaId = ?";
+
+    private static final String UPDATE_CONTADORES_QUERY = "UPDATE Encuesta SET " +
+            "respuestasPositivas = respuestasPositivas + ?, " +
+            "respuestasNegativas = respuestasNegativas + ?, " +
+            "version = version + 1 " +
+            "WHERE encuestaId = ?";
+
+    private static final String RECALCULATE_CONTADORES_QUERY = "UPDATE Encuesta e SET " +
+            "version = version + 1, " +
+            "respuestasPositivas = (SELECT COUNT(*) FROM Respuesta r " +
+            "WHERE r.encuestaId = e.encuestaId AND r.afirmativa = TRUE) + " +
+            "(SELECT COUNT(*) FROM RespuestaArchivada r " +
+            "WHERE r.encuestaId = e.encuestaId AND r.fechaFinEncuesta = e.fechaFin AND r.afirmativa = TRUE), " +
+            "respuestasNegativas = (SELECT COUNT(*) FROM Respuesta r " +
+            "WHERE r.encuestaId = e.encuestaId AND r.afirmativa = FALSE) + " +
+            "(SELECT COUNT(*) FROM RespuestaArchivada r " +
+            "WHERE r.encuestaId = e.encuestaId AND r.fechaFinEncuesta = e.fechaFin AND r.afirmativa = FALSE)";
+
+    private static final String FIND_POR_ARCHIVAR_QUERY = "SELECT encuestaId FROM Encuesta " +
+            "WHERE finalizada = FALSE AND fechaFin < ? ORDER BY fechaFin, encuestaId LIMIT ?";
+
+    private static final String MARCAR_FINALIZADA_QUERY = "UPDATE Encuesta SET finalizada = TRUE " +
+            "WHERE encuestaId = ?";
+
+    private static final String REMOVE_ARCHIVADAS_QUERY = "DELETE FROM RespuestaArchivada WHERE encuestaId = ?";
+
+    private static final String REMOVE_QUERY = "DELETE FROM Encuesta WHERE encuestaId = ?";
+
+    private volatile boolean busquedaFullText;
+
+    protected AbstractSqlEncuestaDao() {
+        this("FULLTEXT".equalsIgnoreCase(ConfigurationParametersManager.getParameter(BUSQUEDA_PARAMETER)));
+    }
+
+    protected AbstractSqlEncuestaDao(boolean busquedaFullText) {
+        this.busquedaFullText = busquedaFullText;
+    }
+
     @Override
     public Encuesta create(Connection connection, Encuesta encuesta) {
 
-        String query = "INSERT INTO Encuesta (pregunta, fechaFin, fechaCreacion, " +
-                "respuestasPositivas, respuestasNegativas, cancelada) " +
-                "VALUES (?, ?, ?, ?, ?, ?)";
-
         try (PreparedStatement preparedStatement = connection.prepareStatement(
-                query, Statement.RETURN_GENERATED_KEYS)) {
+                CREATE_QUERY, Statement.RETURN_GENERATED_KEYS)) {
 
             int i = 1;
             preparedStatement.setString(i++, encuesta.getPregunta());
@@ -57,12 +111,25 @@ public abstract class AbstractSqlEncuestaDao implements SqlEncuestaDao {
     @Override
     public Encuesta find(Connection connection, Long encuestaId)
             throws InstanceNotFoundException {
+        return find(connection, encuestaId, FIND_QUERY);
+    }
 
-        String query = "SELECT pregunta, fechaCreacion, fechaFin, " +
-                "respuestasPositivas, respuestasNegativas, cancelada " +
-                "FROM Encuesta WHERE encuestaId = ?";
+    @Override
+    public Encuesta findForUpdate(Connection connection, Long encuestaId)
+            throws InstanceNotFoundException {
+        return find(connection, encuestaId, FIND_FOR_UPDATE_QUERY);
+    }
+
+    @Override
+    public Encuesta findForShare(Connection connection, Long encuestaId)
+            throws InstanceNotFoundException {
+        return find(connection, encuestaId, FIND_FOR_SHARE_QUERY);
+    }
+
+    private Encuesta find(Connection connection, Long encuestaId, String queryString)
+            throws InstanceNotFoundException {
 
-        try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+        try (PreparedStatement preparedStatement = connection.prepareStatement(queryString)) {
 
             preparedStatement.setLong(1, encuestaId);
             ResultSet rs = preparedStatement.executeQuery();
@@ -78,8 +145,10 @@ public abstract class AbstractSqlEncuestaDao implements SqlEncuestaDao {
             long respuestasNegativas = rs.getLong("respuestasNegativas");
             boolean cancelada = rs.getBoolean("cancelada");
 
-            return new Encuesta(encuestaId, pregunta, fechaCreacion, fechaFin,
+            Encuesta encuesta = new Encuesta(encuestaId, pregunta, fechaCreacion, fechaFin,
                     respuestasPositivas, respuestasNegativas, cancelada);
+            encuesta.setVersion(rs.getLong("version"));
+            return encuesta;
 
         } catch (SQLException e) {
             throw new RuntimeException(e);
@@ -87,58 +156,108 @@ public abstract class AbstractSqlEncuestaDao implements SqlEncuestaDao {
     }
 
     @Override
-    public List<Encuesta> findByKeywords(String keywords, boolean soloNoFinalizadas) {
+    public List<Encuesta> findByKeywords(Connection connection, String keywords, boolean soloNoFinalizadas) {
+        return findByKeywords(connection, keywords, soloNoFinalizadas, null, null, 0);
+    }
 
-        List<Encuesta> encuestas = new ArrayList<>();
+    @Override
+    public List<Encuesta> findByKeywords(Connection connection, String keywords, boolean soloNoFinalizadas,
+                                         LocalDateTime fechaCreacionAnterior, Long encuestaIdAnterior,
+                                         int limite) {
+
+        String consultaBooleana = busquedaFullText ? FullTextSearch.toBooleanModeQuery(keywords) : null;
+
+        if (consultaBooleana != null) {
+            try {
+                return buscar(connection, true, consultaBooleana, soloNoFinalizadas,
+                        fechaCreacionAnterior, encuestaIdAnterior, limite);
+            } catch (SQLException e) {
+                if (!FullTextSearch.isMissingIndex(e)) {
+                    throw new RuntimeException(e);
+                }
+                busquedaFullText = false;
+            }
+        }
 
-        String query = "SELECT encuestaId, pregunta, fechaCreacion, fechaFin, " +
-                "respuestasPositivas, respuestasNegativas, cancelada " +
-                "FROM Encuesta WHERE pregunta LIKE ?";
+        try {
+            return buscar(connection, false, "%" + keywords + "%", soloNoFinalizadas,
+                    fechaCreacionAnterior, encuestaIdAnterior, limite);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private List<Encuesta> buscar(Connection connection, boolean fullText, String patron, boolean soloNoFinalizadas,
+                                  LocalDateTime fechaCreacionAnterior, Long encuestaIdAnterior,
+                                  int limite) throws SQLException {
+
+        String query = BUSCAR_QUERY +
+                (fullText ? "MATCH(pregunta) AGAINST(? IN BOOLEAN MODE)" : "pregunta LIKE ?");
 
         if (soloNoFinalizadas) {
             query += " AND fechaFin > ?";
         }
 
-        query += " ORDER BY fechaCreacion DESC";
+        if (encuestaIdAnterior != null) {
+            query += " AND (fechaCreacion < ? OR (fechaCreacion = ? AND encuestaId < ?))";
+        }
 
-        try (Connection connection = DataSourceLocator.getDataSource(SURVEY_DATA_SOURCE).getConnection();
-             PreparedStatement ps = connection.prepareStatement(query)) {
+        if (limite > 0) {
+            query += " ORDER BY fechaCreacion DESC, encuestaId DESC LIMIT ?";
+        } else if (fullText) {
+            query += " ORDER BY MATCH(pregunta) AGAINST(? IN BOOLEAN MODE) DESC, fechaCreacion DESC";
+        } else {
+            query += " ORDER BY fechaCreacion DESC";
+        }
+
+        try (PreparedStatement ps = connection.prepareStatement(query)) {
 
-            ps.setString(1, "%" + keywords + "%");
+            int i = 1;
+            ps.setString(i++, patron);
             if (soloNoFinalizadas) {
-                ps.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+                ps.setTimestamp(i++, Timestamp.valueOf(LocalDateTime.now()));
+            }
+            if (encuestaIdAnterior != null) {
+                ps.setTimestamp(i++, Timestamp.valueOf(fechaCreacionAnterior));
+                ps.setTimestamp(i++, Timestamp.valueOf(fechaCreacionAnterior));
+                ps.setLong(i++, encuestaIdAnterior);
+            }
+            if (limite > 0) {
+                ps.setInt(i++, limite);
+            } else if (fullText) {
+                ps.setString(i++, patron);
             }
 
-            ResultSet rs = ps.executeQuery();
+            return leerEncuestas(ps.executeQuery());
+        }
+    }
 
-            while (rs.next()) {
-                Long encuestaId = rs.getLong("encuestaId");
-                String pregunta = rs.getString("pregunta");
-                LocalDateTime fechaCreacion = rs.getTimestamp("fechaCreacion").toLocalDateTime();
-                LocalDateTime fechaFin = rs.getTimestamp("fechaFin").toLocalDateTime();
-                long pos = rs.getLong("respuestasPositivas");
-                long neg = rs.getLong("respuestasNegativas");
-                boolean cancelada = rs.getBoolean("cancelada");
-
-                encuestas.add(new Encuesta(encuestaId, pregunta, fechaCreacion, fechaFin, pos, neg, cancelada));
-            }
+    private List<Encuesta> leerEncuestas(ResultSet rs) throws SQLException {
 
-            return encuestas;
+        List<Encuesta> encuestas = new ArrayList<>();
 
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
+        while (rs.next()) {
+            Long encuestaId = rs.getLong("encuestaId");
+            String pregunta = rs.getString("pregunta");
+            LocalDateTime fechaCreacion = rs.getTimestamp("fechaCreacion").toLocalDateTime();
+            LocalDateTime fechaFin = rs.getTimestamp("fechaFin").toLocalDateTime();
+            long pos = rs.getLong("respuestasPositivas");
+            long neg = rs.getLong("respuestasNegativas");
+            boolean cancelada = rs.getBoolean("cancelada");
+
+            Encuesta encuesta = new Encuesta(encuestaId, pregunta, fechaCreacion, fechaFin, pos, neg, cancelada);
+            encuesta.setVersion(rs.getLong("version"));
+            encuestas.add(encuesta);
         }
+
+        return encuestas;
     }
 
     @Override
     public void update(Connection connection, Encuesta encuesta)
             throws InstanceNotFoundException {
 
-        String query = "UPDATE Encuesta SET pregunta = ?, fechaFin = ?, " +
-                "respuestasPositivas = ?, respuestasNegativas = ?, cancelada = ? " +
-                "WHERE encuestaId = ?";
-
-        try (PreparedStatement ps = connection.prepareStatement(query)) {
+        try (PreparedStatement ps = connection.prepareStatement(UPDATE_QUERY)) {
 
             ps.setString(1, encuesta.getPregunta());
             ps.setTimestamp(2, Timestamp.valueOf(encuesta.getFechaFin()));
@@ -157,13 +276,85 @@ public abstract class AbstractSqlEncuestaDao implements SqlEncuestaDao {
         }
     }
 
+    @Override
+    public void updateContadores(Connection connection, Long encuestaId,
+                                 long deltaPositivas, long deltaNegativas)
+            throws InstanceNotFoundException {
+
+        try (PreparedStatement ps = connection.prepareStatement(UPDATE_CONTADORES_QUERY)) {
+
+            ps.setLong(1, deltaPositivas);
+            ps.setLong(2, deltaNegativas);
+            ps.setLong(3, encuestaId);
+
+            int rows = ps.executeUpdate();
+            if (rows == 0) {
+                throw new InstanceNotFoundException(encuestaId, Encuesta.class.getName());
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void recalculateContadores(Connection connection) {
+
+        try (PreparedStatement ps = connection.prepareStatement(RECALCULATE_CONTADORES_QUERY)) {
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public List<Long> findPorArchivar(Connection connection, LocalDateTime fechaFinAnterior, int limite) {
+
+        try (PreparedStatement ps = connection.prepareStatement(FIND_POR_ARCHIVAR_QUERY)) {
+
+            ps.setTimestamp(1, Timestamp.valueOf(fechaFinAnterior));
+            ps.setInt(2, limite);
+
+            ResultSet rs = ps.executeQuery();
+
+            List<Long> encuestaIds = new ArrayList<>();
+            while (rs.next()) {
+                encuestaIds.add(rs.getLong(1));
+            }
+            return encuestaIds;
+
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void marcarFinalizada(Connection connection, Long encuestaId)
+            throws InstanceNotFoundException {
+
+        try (PreparedStatement ps = connection.prepareStatement(MARCAR_FINALIZADA_QUERY)) {
+
+            ps.setLong(1, encuestaId);
+
+            int rows = ps.executeUpdate();
+            if (rows == 0) {
+                throw new InstanceNotFoundException(encuestaId, Encuesta.class.getName());
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     @Override
     public void remove(Connection connection, Long encuestaId)
             throws InstanceNotFoundException {
 
-        String query = "DELETE FROM Encuesta WHERE encuestaId = ?";
+        try (PreparedStatement archivadasStatement = connection.prepareStatement(REMOVE_ARCHIVADAS_QUERY);
+             PreparedStatement ps = connection.prepareStatement(REMOVE_QUERY)) {
 
-        try (PreparedStatement ps = connection.prepareStatement(query)) {
+            archivadasStatement.setLong(1, encuestaId);
+            archivadasStatement.executeUpdate();
 
             ps.setLong(1, encuestaId);
             int rows = ps.executeUpdate();
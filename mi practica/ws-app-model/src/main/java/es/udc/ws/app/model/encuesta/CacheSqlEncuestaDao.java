@@ -0,0 +1,301 @@
+package es.udc.ws.app.model.encuesta;
+
+import es.udc.ws.util.cache.SearchResultCache;
+import es.udc.ws.util.configuration.ConfigurationParametersManager;
+import es.udc.ws.util.exceptions.InstanceNotFoundException;
+
+import java.sql.Connection;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class CacheSqlEncuestaDao implements SqlEncuestaDao {
+
+    private static final String DELEGADO_PARAMETER = "CacheSqlEncuestaDao.className";
+    private static final String TAMANO_MAXIMO_PARAMETER = "CacheSqlEncuestaDao.tamanoMaximo";
+    private static final String TTL_PARAMETER = "CacheSqlEncuestaDao.ttl";
+    private static final String TAMANO_MAXIMO_BUSQUEDAS_PARAMETER = "CacheSqlEncuestaDao.tamanoMaximoBusquedas";
+    private static final String TTL_BUSQUEDAS_PARAMETER = "CacheSqlEncuestaDao.ttlBusquedas";
+
+    private static final int TAMANO_MAXIMO_POR_DEFECTO = 10000;
+    private static final long TTL_POR_DEFECTO = 60000;
+    private static final int TAMANO_MAXIMO_BUSQUEDAS_POR_DEFECTO = 1000;
+    private static final long TTL_BUSQUEDAS_POR_DEFECTO = 60000;
+
+    private final SqlEncuestaDao delegado;
+    private final int tamanoMaximo;
+    private final long ttlMillis;
+    private final LinkedHashMap<Long, Entrada> entradas;
+    private final AtomicLong modificaciones = new AtomicLong();
+    private final SearchResultCache<Encuesta> busquedas;
+
+    private long aciertos;
+    private long fallos;
+    private long expulsiones;
+
+    public CacheSqlEncuestaDao() {
+        this(delegadoConfigurado(),
+                parametroNumerico(TAMANO_MAXIMO_PARAMETER, TAMANO_MAXIMO_POR_DEFECTO),
+                parametroNumerico(TTL_PARAMETER, TTL_POR_DEFECTO),
+                parametroNumerico(TAMANO_MAXIMO_BUSQUEDAS_PARAMETER, TAMANO_MAXIMO_BUSQUEDAS_POR_DEFECTO),
+                parametroNumerico(TTL_BUSQUEDAS_PARAMETER, TTL_BUSQUEDAS_POR_DEFECTO));
+    }
+
+    public CacheSqlEncuestaDao(SqlEncuestaDao delegado, long tamanoMaximo, long ttlMillis) {
+        this(delegado, tamanoMaximo, ttlMillis, TAMANO_MAXIMO_BUSQUEDAS_POR_DEFECTO, TTL_BUSQUEDAS_POR_DEFECTO);
+    }
+
+    public CacheSqlEncuestaDao(SqlEncuestaDao delegado, long tamanoMaximo, long ttlMillis,
+                               long tamanoMaximoBusquedas, long ttlBusquedasMillis) {
+        this.delegado = delegado;
+        this.tamanoMaximo = (int) tamanoMaximo;
+        this.ttlMillis = ttlMillis;
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entrada> eldest) {
+                if (size() > CacheSqlEncuestaDao.this.tamanoMaximo) {
+                    expulsiones++;
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.busquedas = new SearchResultCache<>("CacheSqlEncuestaDao.findByKeywords",
+                (int) tamanoMaximoBusquedas, ttlBusquedasMillis,
+                Encuesta::getEncuestaId, CacheSqlEncuestaDao::copiar);
+    }
+
+    private static SqlEncuestaDao delegadoConfigurado() {
+        try {
+            String className = ConfigurationParametersManager.getParameter(DELEGADO_PARAMETER);
+            return (SqlEncuestaDao) Class.forName(className).getDeclaredConstructor().newInstance();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static long parametroNumerico(String nombre, long porDefecto) {
+        String valor = ConfigurationParametersManager.getParameter(nombre);
+        return valor == null ? porDefecto : Long.parseLong(valor.trim());
+    }
+
+    @Override
+    public Encuesta create(Connection connection, Encuesta encuesta) {
+        Encuesta creada = delegado.create(connection, encuesta);
+        busquedas.invalidateMatching(creada.getPregunta());
+        return creada;
+    }
+
+    @Override
+    public Encuesta find(Connection connection, Long encuestaId)
+            throws InstanceNotFoundException {
+
+        Encuesta encuesta = leer(encuestaId);
+        if (encuesta != null) {
+            return encuesta;
+        }
+
+        long version = modificaciones.get();
+        encuesta = delegado.find(connection, encuestaId);
+        guardar(encuesta, version);
+        return encuesta;
+    }
+
+    @Override
+    public Encuesta findForUpdate(Connection connection, Long encuestaId)
+            throws InstanceNotFoundException {
+        return delegado.findForUpdate(connection, encuestaId);
+    }
+
+    @Override
+    public Encuesta findForShare(Connection connection, Long encuestaId)
+            throws InstanceNotFoundException {
+        return delegado.findForShare(connection, encuestaId);
+    }
+
+    @Override
+    public List<Encuesta> findByKeywords(Connection connection, String keywords, boolean soloNoFinalizadas) {
+
+        if (!normalizada(keywords)) {
+            return delegado.findByKeywords(connection, keywords, soloNoFinalizadas);
+        }
+
+        List<Encuesta> encuestas = busquedas.get(keywords, soloNoFinalizadas);
+        if (encuestas != null) {
+            return encuestas;
+        }
+
+        long version = busquedas.getVersion();
+        encuestas = delegado.findByKeywords(connection, keywords, soloNoFinalizadas);
+        busquedas.put(keywords, soloNoFinalizadas, encuestas, version,
+                soloNoFinalizadas ? primeraFinalizacion(encuestas) : Long.MAX_VALUE);
+        return encuestas;
+    }
+
+    @Override
+    public List<Encuesta> findByKeywords(Connection connection, String keywords, boolean soloNoFinalizadas,
+                                         LocalDateTime fechaCreacionAnterior, Long encuestaIdAnterior,
+                                         int limite) {
+        return delegado.findByKeywords(connection, keywords, soloNoFinalizadas,
+                fechaCreacionAnterior, encuestaIdAnterior, limite);
+    }
+
+    @Override
+    public void update(Connection connection, Encuesta encuesta)
+            throws InstanceNotFoundException {
+        invalidar(encuesta.getEncuestaId());
+        delegado.update(connection, encuesta);
+        invalidar(encuesta.getEncuestaId());
+        busquedas.invalidate(encuesta.getEncuestaId());
+        busquedas.invalidateMatching(encuesta.getPregunta());
+    }
+
+    @Override
+    public void updateContadores(Connection connection, Long encuestaId,
+                                 long deltaPositivas, long deltaNegativas)
+            throws InstanceNotFoundException {
+
+        invalidar(encuestaId);
+        busquedas.invalidate(encuestaId);
+        delegado.updateContadores(connection, encuestaId, deltaPositivas, deltaNegativas);
+        invalidar(encuestaId);
+        busquedas.invalidate(encuestaId);
+    }
+
+    @Override
+    public void recalculateContadores(Connection connection) {
+        modificaciones.incrementAndGet();
+        synchronized (this) {
+            entradas.clear();
+        }
+        busquedas.invalidateAll();
+        delegado.recalculateContadores(connection);
+    }
+
+    @Override
+    public List<Long> findPorArchivar(Connection connection, LocalDateTime fechaFinAnterior, int limite) {
+        return delegado.findPorArchivar(connection, fechaFinAnterior, limite);
+    }
+
+    @Override
+    public void marcarFinalizada(Connection connection, Long encuestaId)
+            throws InstanceNotFoundException {
+        delegado.marcarFinalizada(connection, encuestaId);
+    }
+
+    @Override
+    public void remove(Connection connection, Long encuestaId)
+            throws InstanceNotFoundException {
+        invalidar(encuestaId);
+        busquedas.invalidate(encuestaId);
+        delegado.remove(connection, encuestaId);
+    }
+
+    public synchronized long getAciertos() {
+        return aciertos;
+    }
+
+    public synchronized long getFallos() {
+        return fallos;
+    }
+
+    public synchronized long getExpulsiones() {
+        return expulsiones;
+    }
+
+    public synchronized int getTamano() {
+        return entradas.size();
+    }
+
+    public synchronized double getTasaAciertos() {
+        long total = aciertos + fallos;
+        return total == 0 ? 0 : (double) aciertos / total;
+    }
+
+    public long getAciertosBusquedas() {
+        return busquedas.getHitCount();
+    }
+
+    public long getFallosBusquedas() {
+        return busquedas.getMissCount();
+    }
+
+    public double getTasaAciertosBusquedas() {
+        return busquedas.getHitRatio();
+    }
+
+    public synchronized void vaciar() {
+        modificaciones.incrementAndGet();
+        entradas.clear();
+        busquedas.invalidateAll();
+    }
+
+    private synchronized Encuesta leer(Long encuestaId) {
+
+        Entrada entrada = entradas.get(encuestaId);
+
+        if (entrada == null) {
+            fallos++;
+            return null;
+        }
+
+        if (entrada.caducidad <= System.currentTimeMillis()) {
+            entradas.remove(encuestaId);
+            expulsiones++;
+            fallos++;
+            return null;
+        }
+
+        aciertos++;
+        return copiar(entrada.encuesta);
+    }
+
+    private synchronized void guardar(Encuesta encuesta, long version) {
+        if (modificaciones.get() == version) {
+            entradas.put(encuesta.getEncuestaId(),
+                    new Entrada(copiar(encuesta), System.currentTimeMillis() + ttlMillis));
+        }
+    }
+
+    private void invalidar(Long encuestaId) {
+        modificaciones.incrementAndGet();
+        synchronized (this) {
+            entradas.remove(encuestaId);
+        }
+    }
+
+    private static boolean normalizada(String keywords) {
+        return keywords != null && keywords.equals(keywords.trim().replaceAll("\\s+", " "));
+    }
+
+    private static long primeraFinalizacion(List<Encuesta> encuestas) {
+        long primera = Long.MAX_VALUE;
+        for (Encuesta encuesta : encuestas) {
+            primera = Math.min(primera,
+                    encuesta.getFechaFin().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
+        return primera;
+    }
+
+    private static Encuesta copiar(Encuesta encuesta) {
+        Encuesta copia = new Encuesta(encuesta.getEncuestaId(), encuesta.getPregunta(), encuesta.getFechaCreacion(),
+                encuesta.getFechaFin(), encuesta.getRespuestasPositivas(),
+                encuesta.getRespuestasNegativas(), encuesta.isCancelada());
+        copia.setVersion(encuesta.getVersion());
+        return copia;
+    }
+
+    private static class Entrada {
+
+        private final Encuesta encuesta;
+        private final long caducidad;
+
+        private Entrada(Encuesta encuesta, long caducidad) {
+            this.encuesta = encuesta;
+            this.caducidad = caducidad;
+        }
+    }
+}
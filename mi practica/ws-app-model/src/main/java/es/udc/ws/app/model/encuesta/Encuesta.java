@@ -12,6 +12,7 @@ public class Encuesta {
     private long respuestasPositivas;
     private long respuestasNegativas;
     private boolean cancelada;
+    private long version;
 
     public Encuesta(String pregunta, LocalDateTime fechaFin) {
         this.pregunta = pregunta;
@@ -90,6 +91,14 @@ public class Encuesta {
         this.cancelada = cancelada;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     public long getTotalRespuestas() {
         return this.respuestasPositivas + this.respuestasNegativas;
     }
@@ -7,15 +7,30 @@ import java.time.LocalDateTime;
 
 public class Jdbc3CcSqlEncuestaDao extends AbstractSqlEncuestaDao {
 
+    private static final String CREATE_QUERY = "INSERT INTO Encuesta (pregunta, fechaFin, fechaCreacion, " +
+            "respuestasPositivas, respuestasNegativas, cancelada) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String FIND_QUERY = "SELECT encuestaId, pregunta, fechaCreacion, fechaFin, " +
+            "respuestasPositivas, respuestasNegativas, cancelada, version " +
+            "FROM Encuesta WHERE encuestaId = ?";
+
+    private static final String UPDATE_QUERY = "UPDATE Encuesta SET pregunta = ?, fechaCreacion = ?, fechaFin = ?, " +
+            "respuestasPositivas = ?, respuestasNegativas = ?, cancelada = ?, version = version + 1 " +
+            "WHERE encuestaId = ?";
+
+    public Jdbc3CcSqlEncuestaDao() {
+    }
+
+    public Jdbc3CcSqlEncuestaDao(boolean busquedaFullText) {
+        super(busquedaFullText);
+    }
+
     @Override
     public Encuesta create(Connection connection, Encuesta encuesta) {
 
-        String query = "INSERT INTO Encuesta (pregunta, fechaFin, fechaCreacion, " +
-                "respuestasPositivas, respuestasNegativas, cancelada) " +
-                "VALUES (?, ?, ?, ?, ?, ?)";
-
         try (PreparedStatement preparedStatement = connection.prepareStatement(
-                query, Statement.RETURN_GENERATED_KEYS)) {
+                CREATE_QUERY, Statement.RETURN_GENERATED_KEYS)) {
             int i = 1;
             preparedStatement.setString(i++, encuesta.getPregunta());
             preparedStatement.setTimestamp(i++, Timestamp.valueOf(encuesta.getFechaFin()));
@@ -53,11 +68,7 @@ public class Jdbc3CcSqlEncuestaDao extends AbstractSqlEncuestaDao {
     public Encuesta find(Connection connection, Long encuestaId)
             throws InstanceNotFoundException {
 
-        String query = "SELECT encuestaId, pregunta, fechaCreacion, fechaFin, " +
-                "respuestasPositivas, respuestasNegativas, cancelada " +
-                "FROM Encuesta WHERE encuestaId = ?";
-
-        try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+        try (PreparedStatement preparedStatement = connection.prepareStatement(FIND_QUERY)) {
 
             preparedStatement.setLong(1, encuestaId);
 
@@ -84,6 +95,7 @@ public class Jdbc3CcSqlEncuestaDao extends AbstractSqlEncuestaDao {
                         respuestasNegativas,
                         cancelada
                 );
+                encuesta.setVersion(resultSet.getLong("version"));
 
                 return encuesta;
             }
@@ -98,10 +110,7 @@ public class Jdbc3CcSqlEncuestaDao extends AbstractSqlEncuestaDao {
     public void update(Connection connection, Encuesta encuesta)
             throws InstanceNotFoundException {
 
-        String query = "UPDATE Encuesta SET pregunta = ?, fechaCreacion = ?, fechaFin = ?, " +
-                "respuestasPositivas = ?, respuestasNegativas = ?, cancelada = ? WHERE encuestaId = ?";
-
-        try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+        try (PreparedStatement preparedStatement = connection.prepareStatement(UPDATE_QUERY)) {
 
             int i = 1;
             preparedStatement.setString(i++, encuesta.getPregunta());
@@ -122,25 +131,4 @@ public class Jdbc3CcSqlEncuestaDao extends AbstractSqlEncuestaDao {
             throw new RuntimeException("Error al actualizar encuesta con ID " + encuesta.getEncuestaId(), e);
         }
     }
-
-    @Override
-    public void remove(Connection connection, Long encuestaId)
-            throws InstanceNotFoundException {
-
-        String query = "DELETE FROM Encuesta WHERE encuestaId = ?";
-
-        try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
-
-            preparedStatement.setLong(1, encuestaId);
-
-            int filas = preparedStatement.executeUpdate();
-            if (filas == 0) {
-                throw new InstanceNotFoundException(encuestaId, Encuesta.class.getName());
-            }
-
-        } catch (SQLException e) {
-            e.printStackTrace(System.err);
-            throw new RuntimeException("Error al eliminar encuesta con ID " + encuestaId, e);
-        }
-    }
 }
@@ -2,6 +2,7 @@ package es.udc.ws.app.model.encuesta;
 
 import es.udc.ws.util.exceptions.InstanceNotFoundException;
 import java.sql.Connection;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface SqlEncuestaDao {
@@ -11,12 +12,33 @@ public interface SqlEncuestaDao {
     public Encuesta find(Connection connection, Long encuestaId)
             throws InstanceNotFoundException;
 
+    public Encuesta findForUpdate(Connection connection, Long encuestaId)
+            throws InstanceNotFoundException;
+
+    public Encuesta findForShare(Connection connection, Long encuestaId)
+            throws InstanceNotFoundException;
 
-    public List<Encuesta> findByKeywords(String keywords, boolean soloNoFinalizadas);
+
+    public List<Encuesta> findByKeywords(Connection connection, String keywords, boolean soloNoFinalizadas);
+
+    public List<Encuesta> findByKeywords(Connection connection, String keywords, boolean soloNoFinalizadas,
+                                         LocalDateTime fechaCreacionAnterior, Long encuestaIdAnterior,
+                                         int limite);
 
     public void update(Connection connection, Encuesta encuesta)
             throws InstanceNotFoundException;
 
+    public void updateContadores(Connection connection, Long encuestaId,
+                                 long deltaPositivas, long deltaNegativas)
+            throws InstanceNotFoundException;
+
+    public void recalculateContadores(Connection connection);
+
+    public List<Long> findPorArchivar(Connection connection, LocalDateTime fechaFinAnterior, int limite);
+
+    public void marcarFinalizada(Connection connection, Long encuestaId)
+            throws InstanceNotFoundException;
+
     public void remove(Connection connection, Long encuestaId)
             throws InstanceNotFoundException;
 }
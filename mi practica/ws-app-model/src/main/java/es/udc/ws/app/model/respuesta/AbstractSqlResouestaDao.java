@@ -4,11 +4,51 @@ import es.udc.ws.util.exceptions.InstanceNotFoundException;
 
 import java.sql.*;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class AbstractSqlResouestaDao implements SqlRespuestaDao {
 
+    private static final int TAMANO_LOTE = 1000;
+
+    private static final String CREATE_QUERY = "INSERT INTO Respuesta (encuestaId, emailEmpleado, afirmativa, fechaRespuesta)"
+            + " VALUES (?, ?, ?, ?)";
+
+    private static final String UPDATE_BATCH_QUERY =
+            "UPDATE Respuesta SET afirmativa = ?, fechaRespuesta = ? WHERE respuestaId = ?";
+
+    private static final String UPDATE_QUERY = "UPDATE Respuesta SET emailEmpleado = ?, afirmativa = ?, fechaRespuesta = ? "
+            + "WHERE respuestaId = ?";
+
+    private static final String UPSERT_QUERY = "SELECT respuestaId, afirmativa, fechaRespuesta FROM Respuesta "
+            + "WHERE encuestaId = ? AND emailEmpleado = ? FOR UPDATE";
+
+    private static final String FIND_BY_EMAIL_QUERY = "SELECT respuestaId, afirmativa, fechaRespuesta "
+            + "FROM Respuesta WHERE encuestaId = ? AND emailEmpleado = ?";
+
+    private static final String FIND_BY_EMAILS_QUERY = "SELECT respuestaId, emailEmpleado, afirmativa, fechaRespuesta "
+            + "FROM Respuesta WHERE encuestaId = ? AND emailEmpleado IN (";
+
+    private static final String FIND_BY_ENCUESTA_QUERY = "SELECT respuestaId, emailEmpleado, afirmativa, fechaRespuesta "
+            + "FROM %s WHERE encuestaId = ?";
+
+    private static final String FIND_POR_ARCHIVAR_QUERY = "SELECT fechaRespuesta, respuestaId FROM Respuesta "
+            + "WHERE encuestaId = ? ORDER BY fechaRespuesta, respuestaId LIMIT ?";
+
+    private static final String LOTE_POR_ARCHIVAR_CONDICION = " WHERE encuestaId = ? "
+            + "AND (fechaRespuesta < ? OR (fechaRespuesta = ? AND respuestaId <= ?))";
+
+    private static final String ARCHIVAR_QUERY = "INSERT INTO RespuestaArchivada "
+            + "(fechaFinEncuesta, respuestaId, encuestaId, emailEmpleado, afirmativa, fechaRespuesta) "
+            + "SELECT ?, respuestaId, encuestaId, emailEmpleado, afirmativa, fechaRespuesta FROM Respuesta"
+            + LOTE_POR_ARCHIVAR_CONDICION;
+
+    private static final String REMOVE_ARCHIVADAS_QUERY = "DELETE FROM Respuesta" + LOTE_POR_ARCHIVAR_CONDICION;
 
     @Override
     public Respuesta create(Connection connection, Respuesta respuesta) {
@@ -16,12 +56,64 @@ public class AbstractSqlResouestaDao implements SqlRespuestaDao {
     }
 
     @Override
-    public void update(Connection connection, Respuesta respuesta) throws InstanceNotFoundException {
+    public void createBatch(Connection connection, List<Respuesta> respuestas) {
+
+        try (PreparedStatement preparedStatement = connection.prepareStatement(CREATE_QUERY)) {
+
+            int enLote = 0;
+            for (Respuesta respuesta : respuestas) {
+                preparedStatement.setLong(1, respuesta.getEncuestaId());
+                preparedStatement.setString(2, respuesta.getEmailEmpleado());
+                preparedStatement.setBoolean(3, respuesta.isAfirmativa());
+                preparedStatement.setTimestamp(4, Timestamp.valueOf(respuesta.getFechaRespuesta()));
+                preparedStatement.addBatch();
+
+                if (++enLote == TAMANO_LOTE) {
+                    preparedStatement.executeBatch();
+                    enLote = 0;
+                }
+            }
 
-        String queryString = "UPDATE Respuesta SET emailEmpleado = ?, afirmativa = ?, fechaRespuesta = ? "
-                + "WHERE respuestaId = ?";
+            if (enLote > 0) {
+                preparedStatement.executeBatch();
+            }
 
-        try (PreparedStatement preparedStatement = connection.prepareStatement(queryString)) {
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void updateBatch(Connection connection, List<Respuesta> respuestas) {
+
+        try (PreparedStatement preparedStatement = connection.prepareStatement(UPDATE_BATCH_QUERY)) {
+
+            int enLote = 0;
+            for (Respuesta respuesta : respuestas) {
+                preparedStatement.setBoolean(1, respuesta.isAfirmativa());
+                preparedStatement.setTimestamp(2, Timestamp.valueOf(respuesta.getFechaRespuesta()));
+                preparedStatement.setLong(3, respuesta.getRespuestaId());
+                preparedStatement.addBatch();
+
+                if (++enLote == TAMANO_LOTE) {
+                    preparedStatement.executeBatch();
+                    enLote = 0;
+                }
+            }
+
+            if (enLote > 0) {
+                preparedStatement.executeBatch();
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public void update(Connection connection, Respuesta respuesta) throws InstanceNotFoundException {
+
+        try (PreparedStatement preparedStatement = connection.prepareStatement(UPDATE_QUERY)) {
             preparedStatement.setString(1, respuesta.getEmailEmpleado());
             preparedStatement.setBoolean(2, respuesta.isAfirmativa());
             preparedStatement.setTimestamp(3, Timestamp.valueOf(respuesta.getFechaRespuesta()));
@@ -38,12 +130,52 @@ public class AbstractSqlResouestaDao implements SqlRespuestaDao {
         }
     }
 
-    public Respuesta findByEmailAndEncuestaId(Connection connection, Long encuestaId, String emailEmpleado) {
+    @Override
+    public ResultadoUpsert upsert(Connection connection, Respuesta respuesta) {
 
-        String queryString = "SELECT respuestaId, afirmativa, fechaRespuesta "
-                + "FROM Respuesta WHERE encuestaId = ? AND emailEmpleado = ?";
+        Long respuestaId;
+        boolean anterior;
+        LocalDateTime fechaAnterior;
 
-        try (PreparedStatement preparedStatement = connection.prepareStatement(queryString)) {
+        try (PreparedStatement preparedStatement = connection.prepareStatement(UPSERT_QUERY)) {
+
+            preparedStatement.setLong(1, respuesta.getEncuestaId());
+            preparedStatement.setString(2, respuesta.getEmailEmpleado());
+
+            ResultSet rs = preparedStatement.executeQuery();
+
+            if (!rs.next()) {
+                create(connection, respuesta);
+                return ResultadoUpsert.NUEVA;
+            }
+
+            respuestaId = rs.getLong(1);
+            anterior = rs.getBoolean(2);
+            fechaAnterior = rs.getTimestamp(3).toLocalDateTime();
+
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+
+        respuesta.setRespuestaId(respuestaId);
+
+        if (anterior == respuesta.isAfirmativa()) {
+            respuesta.setFechaRespuesta(fechaAnterior);
+            return ResultadoUpsert.REPETIDA;
+        }
+
+        try {
+            update(connection, respuesta);
+        } catch (InstanceNotFoundException e) {
+            throw new RuntimeException(e);
+        }
+
+        return ResultadoUpsert.CAMBIADA;
+    }
+
+    public Respuesta findByEmailAndEncuestaId(Connection connection, Long encuestaId, String emailEmpleado) {
+
+        try (PreparedStatement preparedStatement = connection.prepareStatement(FIND_BY_EMAIL_QUERY)) {
 
             preparedStatement.setLong(1, encuestaId);
             preparedStatement.setString(2, emailEmpleado);
@@ -65,22 +197,117 @@ public class AbstractSqlResouestaDao implements SqlRespuestaDao {
         }
     }
 
+    public Map<String, Respuesta> findByEncuestaIdAndEmails(Connection connection, Long encuestaId,
+                                                            Collection<String> emailsEmpleados) {
+
+        Map<String, Respuesta> respuestas = new HashMap<>();
+        List<String> emails = new ArrayList<>(emailsEmpleados);
+
+        for (int inicio = 0; inicio < emails.size(); inicio += TAMANO_LOTE) {
+
+            List<String> lote = emails.subList(inicio, Math.min(inicio + TAMANO_LOTE, emails.size()));
+            int parametros = tamanoListaIn(lote.size());
+
+            String queryString = FIND_BY_EMAILS_QUERY
+                    + String.join(", ", Collections.nCopies(parametros, "?")) + ")";
+
+            try (PreparedStatement preparedStatement = connection.prepareStatement(queryString)) {
+
+                int i = 1;
+                preparedStatement.setLong(i++, encuestaId);
+                for (String email : lote) {
+                    preparedStatement.setString(i++, email);
+                }
+                while (i <= parametros + 1) {
+                    preparedStatement.setString(i++, lote.get(lote.size() - 1));
+                }
+
+                ResultSet rs = preparedStatement.executeQuery();
+
+                while (rs.next()) {
+                    Long respuestaId = rs.getLong(1);
+                    String emailEmpleado = rs.getString(2);
+                    boolean afirmativa = rs.getBoolean(3);
+                    LocalDateTime fechaRespuesta = rs.getTimestamp(4).toLocalDateTime();
+
+                    respuestas.put(emailEmpleado,
+                            new Respuesta(respuestaId, encuestaId, emailEmpleado, afirmativa, fechaRespuesta));
+                }
+
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        return respuestas;
+    }
+
+    private static int tamanoListaIn(int elementos) {
+        int tamano = elementos <= 1 ? 1 : Integer.highestOneBit(elementos - 1) << 1;
+        return Math.min(tamano, TAMANO_LOTE);
+    }
+
     public List<Respuesta> findByEncuestaId(Connection connection, Long encuestaId, boolean soloAfirmativas) {
+        return findByEncuestaId(connection, encuestaId, soloAfirmativas, null, null, 0);
+    }
+
+    public List<Respuesta> findByEncuestaId(Connection connection, Long encuestaId, boolean soloAfirmativas,
+                                            LocalDateTime fechaRespuestaAnterior, Long respuestaIdAnterior,
+                                            int limite) {
+        return findByEncuestaId(connection, "Respuesta", encuestaId, null, soloAfirmativas,
+                fechaRespuestaAnterior, respuestaIdAnterior, limite);
+    }
+
+    public List<Respuesta> findArchivadasByEncuestaId(Connection connection, Long encuestaId,
+                                                      LocalDateTime fechaFinEncuesta, boolean soloAfirmativas,
+                                                      LocalDateTime fechaRespuestaAnterior,
+                                                      Long respuestaIdAnterior, int limite) {
+        return findByEncuestaId(connection, "RespuestaArchivada", encuestaId, fechaFinEncuesta,
+                soloAfirmativas, fechaRespuestaAnterior, respuestaIdAnterior, limite);
+    }
+
+    private List<Respuesta> findByEncuestaId(Connection connection, String tabla, Long encuestaId,
+                                             LocalDateTime fechaFinEncuesta, boolean soloAfirmativas,
+                                             LocalDateTime fechaRespuestaAnterior, Long respuestaIdAnterior,
+                                             int limite) {
 
         List<Respuesta> respuestas = new ArrayList<>();
 
-        String queryString = "SELECT respuestaId, emailEmpleado, afirmativa, fechaRespuesta "
-                + "FROM Respuesta WHERE encuestaId = ?";
+        String queryString = String.format(FIND_BY_ENCUESTA_QUERY, tabla);
+
+        if (fechaFinEncuesta != null) {
+            queryString += " AND fechaFinEncuesta = ?";
+        }
 
         if (soloAfirmativas) {
             queryString += " AND afirmativa = true";
         }
 
-        queryString += " ORDER BY fechaRespuesta DESC";
+        if (respuestaIdAnterior != null) {
+            queryString += " AND (fechaRespuesta < ? OR (fechaRespuesta = ? AND respuestaId < ?))";
+        }
+
+        if (limite > 0) {
+            queryString += " ORDER BY fechaRespuesta DESC, respuestaId DESC LIMIT ?";
+        } else {
+            queryString += " ORDER BY fechaRespuesta DESC";
+        }
 
         try (PreparedStatement preparedStatement = connection.prepareStatement(queryString)) {
 
-            preparedStatement.setLong(1, encuestaId);
+            int i = 1;
+            preparedStatement.setLong(i++, encuestaId);
+            if (fechaFinEncuesta != null) {
+                preparedStatement.setTimestamp(i++, Timestamp.valueOf(fechaFinEncuesta));
+            }
+            if (respuestaIdAnterior != null) {
+                preparedStatement.setTimestamp(i++, Timestamp.valueOf(fechaRespuestaAnterior));
+                preparedStatement.setTimestamp(i++, Timestamp.valueOf(fechaRespuestaAnterior));
+                preparedStatement.setLong(i++, respuestaIdAnterior);
+            }
+            if (limite > 0) {
+                preparedStatement.setInt(i++, limite);
+            }
 
             ResultSet rs = preparedStatement.executeQuery();
 
@@ -99,4 +326,54 @@ public class AbstractSqlResouestaDao implements SqlRespuestaDao {
             throw new RuntimeException(e);
         }
     }
+
+    public int archivar(Connection connection, Long encuestaId, LocalDateTime fechaFinEncuesta, int limite) {
+
+        LocalDateTime fechaRespuestaUltima = null;
+        long respuestaIdUltima = 0;
+        int respuestas = 0;
+
+        try (PreparedStatement preparedStatement = connection.prepareStatement(FIND_POR_ARCHIVAR_QUERY)) {
+
+            preparedStatement.setLong(1, encuestaId);
+            preparedStatement.setInt(2, limite);
+
+            ResultSet rs = preparedStatement.executeQuery();
+
+            while (rs.next()) {
+                fechaRespuestaUltima = rs.getTimestamp(1).toLocalDateTime();
+                respuestaIdUltima = rs.getLong(2);
+                respuestas++;
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+
+        if (respuestas == 0) {
+            return 0;
+        }
+
+        try (PreparedStatement archivarStatement = connection.prepareStatement(ARCHIVAR_QUERY);
+             PreparedStatement removeStatement = connection.prepareStatement(REMOVE_ARCHIVADAS_QUERY)) {
+
+            archivarStatement.setTimestamp(1, Timestamp.valueOf(fechaFinEncuesta));
+            for (PreparedStatement preparedStatement : List.of(archivarStatement, removeStatement)) {
+                int i = preparedStatement == archivarStatement ? 2 : 1;
+                preparedStatement.setLong(i++, encuestaId);
+                preparedStatement.setTimestamp(i++, Timestamp.valueOf(fechaRespuestaUltima));
+                preparedStatement.setTimestamp(i++, Timestamp.valueOf(fechaRespuestaUltima));
+                preparedStatement.setLong(i, respuestaIdUltima);
+            }
+
+            archivarStatement.executeUpdate();
+            return removeStatement.executeUpdate();
+
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public void mantenerParticionesArchivo(Connection connection, YearMonth hasta, YearMonth conservarDesde) {
+    }
 }
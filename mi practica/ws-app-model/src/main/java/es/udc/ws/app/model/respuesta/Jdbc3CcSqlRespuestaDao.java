@@ -1,16 +1,35 @@
 package es.udc.ws.app.model.respuesta;
 
 import java.sql.*;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
 
 public class Jdbc3CcSqlRespuestaDao extends AbstractSqlResouestaDao {
+
+    private static final String CREATE_QUERY = "INSERT INTO Respuesta (encuestaId, emailEmpleado, afirmativa, fechaRespuesta)"
+            + " VALUES (?, ?, ?, ?)";
+
+    private static final String UPSERT_QUERY = CREATE_QUERY + " ON DUPLICATE KEY UPDATE"
+            + " respuestaId = IF(afirmativa = VALUES(afirmativa), respuestaId, LAST_INSERT_ID(respuestaId)),"
+            + " fechaRespuesta = IF(afirmativa = VALUES(afirmativa), fechaRespuesta, VALUES(fechaRespuesta)),"
+            + " afirmativa = VALUES(afirmativa)";
+
+    private static final String FIND_PARTICIONES_ARCHIVO_QUERY = "SELECT PARTITION_NAME"
+            + " FROM INFORMATION_SCHEMA.PARTITIONS WHERE TABLE_SCHEMA = DATABASE()"
+            + " AND TABLE_NAME = 'RespuestaArchivada' AND PARTITION_NAME IS NOT NULL";
+
+    private static final String PARTICION_FUTURO = "pFuturo";
+
+    private static final DateTimeFormatter FORMATO_PARTICION = DateTimeFormatter.ofPattern("'p'uuuuMM");
+
     @Override
     public Respuesta create(Connection connection, Respuesta respuesta) {
 
-        String queryString = "INSERT INTO Respuesta (encuestaId, emailEmpleado, afirmativa, fechaRespuesta)"
-                + " VALUES (?, ?, ?, ?)";
-
         try (PreparedStatement preparedStatement = connection.prepareStatement(
-                queryString, Statement.RETURN_GENERATED_KEYS)) {
+                CREATE_QUERY, Statement.RETURN_GENERATED_KEYS)) {
 
             preparedStatement.setLong(1, respuesta.getEncuestaId());
             preparedStatement.setString(2, respuesta.getEmailEmpleado());
@@ -32,4 +51,87 @@ public class Jdbc3CcSqlRespuestaDao extends AbstractSqlResouestaDao {
             throw new RuntimeException(e);
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public ResultadoUpsert upsert(Connection connection, Respuesta respuesta) {
+
+        try (PreparedStatement preparedStatement = connection.prepareStatement(
+                UPSERT_QUERY, Statement.RETURN_GENERATED_KEYS)) {
+
+            preparedStatement.setLong(1, respuesta.getEncuestaId());
+            preparedStatement.setString(2, respuesta.getEmailEmpleado());
+            preparedStatement.setBoolean(3, respuesta.isAfirmativa());
+            preparedStatement.setTimestamp(4, Timestamp.valueOf(respuesta.getFechaRespuesta()));
+
+            int filas = preparedStatement.executeUpdate();
+
+            ResultSet rs = preparedStatement.getGeneratedKeys();
+            if (rs.next()) {
+                respuesta.setRespuestaId(rs.getLong(1));
+                return filas == 2 ? ResultadoUpsert.CAMBIADA : ResultadoUpsert.NUEVA;
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+
+        Respuesta existente = findByEmailAndEncuestaId(connection,
+                respuesta.getEncuestaId(), respuesta.getEmailEmpleado());
+        respuesta.setRespuestaId(existente.getRespuestaId());
+        respuesta.setFechaRespuesta(existente.getFechaRespuesta());
+
+        return ResultadoUpsert.REPETIDA;
+    }
+
+    @Override
+    public void mantenerParticionesArchivo(Connection connection, YearMonth hasta, YearMonth conservarDesde) {
+
+        try (Statement statement = connection.createStatement()) {
+
+            TreeSet<YearMonth> meses = new TreeSet<>();
+            boolean particionada = false;
+
+            try (ResultSet rs = statement.executeQuery(FIND_PARTICIONES_ARCHIVO_QUERY)) {
+                while (rs.next()) {
+                    String particion = rs.getString(1);
+                    if (PARTICION_FUTURO.equals(particion)) {
+                        particionada = true;
+                    } else {
+                        meses.add(YearMonth.parse(particion, FORMATO_PARTICION));
+                    }
+                }
+            }
+
+            if (!particionada) {
+                return;
+            }
+
+            YearMonth desde = meses.isEmpty() ? YearMonth.now() : meses.last().plusMonths(1);
+            if (!desde.isAfter(hasta)) {
+                StringBuilder queryString = new StringBuilder("ALTER TABLE RespuestaArchivada REORGANIZE PARTITION ")
+                        .append(PARTICION_FUTURO).append(" INTO (");
+                for (YearMonth mes = desde; !mes.isAfter(hasta); mes = mes.plusMonths(1)) {
+                    queryString.append("PARTITION ").append(FORMATO_PARTICION.format(mes))
+                            .append(" VALUES LESS THAN ('").append(mes.plusMonths(1).atDay(1)).append("'), ");
+                    meses.add(mes);
+                }
+                queryString.append("PARTITION ").append(PARTICION_FUTURO).append(" VALUES LESS THAN (MAXVALUE))");
+                statement.executeUpdate(queryString.toString());
+            }
+
+            if (conservarDesde != null) {
+                List<String> caducadas = new ArrayList<>();
+                for (YearMonth mes : meses.headSet(conservarDesde)) {
+                    caducadas.add(FORMATO_PARTICION.format(mes));
+                }
+                if (!caducadas.isEmpty()) {
+                    statement.executeUpdate("ALTER TABLE RespuestaArchivada DROP PARTITION "
+                            + String.join(", ", caducadas));
+                }
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
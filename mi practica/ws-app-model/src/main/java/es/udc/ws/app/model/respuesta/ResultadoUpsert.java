@@ -0,0 +1,8 @@
+package es.udc.ws.app.model.respuesta;
+
+public enum ResultadoUpsert {
+
+    NUEVA,
+    CAMBIADA,
+    REPETIDA
+}
@@ -1,7 +1,11 @@
 package es.udc.ws.app.model.respuesta;
 
 import java.sql.Connection;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import es.udc.ws.util.exceptions.InstanceNotFoundException;
 
@@ -9,9 +13,31 @@ public interface SqlRespuestaDao {
 
     public Respuesta create(Connection connection, Respuesta respuesta);
 
+    public void createBatch(Connection connection, List<Respuesta> respuestas);
+
+    public void updateBatch(Connection connection, List<Respuesta> respuestas);
+
     public void update(Connection connection, Respuesta respuesta) throws InstanceNotFoundException;
 
+    public ResultadoUpsert upsert(Connection connection, Respuesta respuesta);
+
     public Respuesta findByEmailAndEncuestaId(Connection connection, Long encuestaId, String emailEmpleado);
 
+    public Map<String, Respuesta> findByEncuestaIdAndEmails(Connection connection, Long encuestaId,
+                                                            Collection<String> emailsEmpleados);
+
     public List<Respuesta> findByEncuestaId(Connection connection, Long encuestaId, boolean soloAfirmativas);
+
+    public List<Respuesta> findByEncuestaId(Connection connection, Long encuestaId, boolean soloAfirmativas,
+                                            LocalDateTime fechaRespuestaAnterior, Long respuestaIdAnterior,
+                                            int limite);
+
+    public List<Respuesta> findArchivadasByEncuestaId(Connection connection, Long encuestaId,
+                                                      LocalDateTime fechaFinEncuesta, boolean soloAfirmativas,
+                                                      LocalDateTime fechaRespuestaAnterior,
+                                                      Long respuestaIdAnterior, int limite);
+
+    public int archivar(Connection connection, Long encuestaId, LocalDateTime fechaFinEncuesta, int limite);
+
+    public void mantenerParticionesArchivo(Connection connection, YearMonth hasta, YearMonth conservarDesde);
 }
\ No newline at end of file
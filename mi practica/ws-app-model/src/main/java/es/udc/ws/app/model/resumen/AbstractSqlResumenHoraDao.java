@@ -0,0 +1,102 @@
+package es.udc.ws.app.model.resumen;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public abstract class AbstractSqlResumenHoraDao implements SqlResumenHoraDao {
+
+    protected static final int TAMANO_LOTE = 1000;
+
+    private static final String UPDATE_QUERY = "UPDATE ResumenHora SET"
+            + " variacionPositivas = variacionPositivas + ?,"
+            + " variacionNegativas = variacionNegativas + ?,"
+            + " nuevosEmpleados = nuevosEmpleados + ?"
+            + " WHERE encuestaId = ? AND hora = ?";
+
+    protected static final String CREATE_QUERY = "INSERT INTO ResumenHora"
+            + " (encuestaId, hora, variacionPositivas, variacionNegativas, nuevosEmpleados)"
+            + " VALUES (?, ?, ?, ?, ?)";
+
+    private static final String FIND_BY_ENCUESTA_QUERY = "SELECT hora, variacionPositivas, variacionNegativas,"
+            + " nuevosEmpleados FROM ResumenHora WHERE encuestaId = ?";
+
+    @Override
+    public void acumular(Connection connection, List<ResumenHora> variaciones) {
+
+        try (PreparedStatement updateStatement = connection.prepareStatement(UPDATE_QUERY);
+             PreparedStatement createStatement = connection.prepareStatement(CREATE_QUERY)) {
+
+            for (ResumenHora variacion : variaciones) {
+                updateStatement.setLong(1, variacion.getVariacionPositivas());
+                updateStatement.setLong(2, variacion.getVariacionNegativas());
+                updateStatement.setLong(3, variacion.getNuevosEmpleados());
+                updateStatement.setLong(4, variacion.getEncuestaId());
+                updateStatement.setTimestamp(5, Timestamp.valueOf(variacion.getHora()));
+
+                if (updateStatement.executeUpdate() == 0) {
+                    fillCreateStatement(createStatement, variacion);
+                    createStatement.executeUpdate();
+                }
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    protected static void fillCreateStatement(PreparedStatement preparedStatement, ResumenHora variacion)
+            throws SQLException {
+        preparedStatement.setLong(1, variacion.getEncuestaId());
+        preparedStatement.setTimestamp(2, Timestamp.valueOf(variacion.getHora()));
+        preparedStatement.setLong(3, variacion.getVariacionPositivas());
+        preparedStatement.setLong(4, variacion.getVariacionNegativas());
+        preparedStatement.setLong(5, variacion.getNuevosEmpleados());
+    }
+
+    @Override
+    public List<ResumenHora> findByEncuestaId(Connection connection, Long encuestaId,
+                                              LocalDateTime desde, LocalDateTime hasta) {
+
+        String queryString = FIND_BY_ENCUESTA_QUERY;
+
+        if (desde != null) {
+            queryString += " AND hora >= ?";
+        }
+        if (hasta != null) {
+            queryString += " AND hora < ?";
+        }
+        queryString += " ORDER BY hora";
+
+        try (PreparedStatement preparedStatement = connection.prepareStatement(queryString)) {
+
+            int i = 1;
+            preparedStatement.setLong(i++, encuestaId);
+            if (desde != null) {
+                preparedStatement.setTimestamp(i++, Timestamp.valueOf(desde));
+            }
+            if (hasta != null) {
+                preparedStatement.setTimestamp(i++, Timestamp.valueOf(hasta));
+            }
+
+            ResultSet rs = preparedStatement.executeQuery();
+
+            List<ResumenHora> resumenes = new ArrayList<>();
+            while (rs.next()) {
+                LocalDateTime hora = rs.getTimestamp(1).toLocalDateTime();
+                long variacionPositivas = rs.getLong(2);
+                long variacionNegativas = rs.getLong(3);
+                long nuevosEmpleados = rs.getLong(4);
+
+                resumenes.add(new ResumenHora(encuestaId, hora, variacionPositivas,
+                        variacionNegativas, nuevosEmpleados));
+            }
+
+            return resumenes;
+
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package es.udc.ws.app.model.resumen;
+
+import java.sql.*;
+import java.util.List;
+
+public class Jdbc3CcSqlResumenHoraDao extends AbstractSqlResumenHoraDao {
+
+    private static final String UPSERT_QUERY = CREATE_QUERY + " ON DUPLICATE KEY UPDATE"
+            + " variacionPositivas = variacionPositivas + VALUES(variacionPositivas),"
+            + " variacionNegativas = variacionNegativas + VALUES(variacionNegativas),"
+            + " nuevosEmpleados = nuevosEmpleados + VALUES(nuevosEmpleados)";
+
+    @Override
+    public void acumular(Connection connection, List<ResumenHora> variaciones) {
+
+        try (PreparedStatement preparedStatement = connection.prepareStatement(UPSERT_QUERY)) {
+
+            int enLote = 0;
+            for (ResumenHora variacion : variaciones) {
+                fillCreateStatement(preparedStatement, variacion);
+                preparedStatement.addBatch();
+
+                if (++enLote == TAMANO_LOTE) {
+                    preparedStatement.executeBatch();
+                    enLote = 0;
+                }
+            }
+
+            if (enLote > 0) {
+                preparedStatement.executeBatch();
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
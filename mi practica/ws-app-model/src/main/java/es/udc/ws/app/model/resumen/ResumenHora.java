@@ -0,0 +1,89 @@
+package es.udc.ws.app.model.resumen;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+public class ResumenHora {
+
+    private Long encuestaId;
+    private LocalDateTime hora;
+    private long variacionPositivas;
+    private long variacionNegativas;
+    private long nuevosEmpleados;
+
+    public ResumenHora(Long encuestaId, LocalDateTime hora) {
+        this.encuestaId = encuestaId;
+        this.hora = hora;
+    }
+
+    public ResumenHora(Long encuestaId, LocalDateTime hora, long variacionPositivas,
+                       long variacionNegativas, long nuevosEmpleados) {
+        this.encuestaId = encuestaId;
+        this.hora = hora;
+        this.variacionPositivas = variacionPositivas;
+        this.variacionNegativas = variacionNegativas;
+        this.nuevosEmpleados = nuevosEmpleados;
+    }
+
+    public Long getEncuestaId() {
+        return encuestaId;
+    }
+
+    public void setEncuestaId(Long encuestaId) {
+        this.encuestaId = encuestaId;
+    }
+
+    public LocalDateTime getHora() {
+        return hora;
+    }
+
+    public void setHora(LocalDateTime hora) {
+        this.hora = hora;
+    }
+
+    public long getVariacionPositivas() {
+        return variacionPositivas;
+    }
+
+    public void setVariacionPositivas(long variacionPositivas) {
+        this.variacionPositivas = variacionPositivas;
+    }
+
+    public long getVariacionNegativas() {
+        return variacionNegativas;
+    }
+
+    public void setVariacionNegativas(long variacionNegativas) {
+        this.variacionNegativas = variacionNegativas;
+    }
+
+    public long getNuevosEmpleados() {
+        return nuevosEmpleados;
+    }
+
+    public void setNuevosEmpleados(long nuevosEmpleados) {
+        this.nuevosEmpleados = nuevosEmpleados;
+    }
+
+    public void acumular(long deltaPositivas, long deltaNegativas, long empleados) {
+        this.variacionPositivas += deltaPositivas;
+        this.variacionNegativas += deltaNegativas;
+        this.nuevosEmpleados += empleados;
+    }
+
+    public boolean isVacio() {
+        return variacionPositivas == 0 && variacionNegativas == 0 && nuevosEmpleados == 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        ResumenHora resumen = (ResumenHora) o;
+        return variacionPositivas == resumen.variacionPositivas && variacionNegativas == resumen.variacionNegativas && nuevosEmpleados == resumen.nuevosEmpleados && Objects.equals(encuestaId, resumen.encuestaId) && Objects.equals(hora, resumen.hora);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(encuestaId, hora, variacionPositivas, variacionNegativas, nuevosEmpleados);
+    }
+}
@@ -0,0 +1,30 @@
+package es.udc.ws.app.model.resumen;
+
+import es.udc.ws.util.configuration.ConfigurationParametersManager;
+
+public class ResumenHoraDaoFactory {
+    private final static String CLASS_NAME_PARAMETER = "ResumenHoraDaoFactory.className";
+    private static SqlResumenHoraDao dao = null;
+
+    private ResumenHoraDaoFactory() {
+    }
+
+
+    private static SqlResumenHoraDao getInstance() {
+        try {
+            String daoClassName = ConfigurationParametersManager.getParameter(CLASS_NAME_PARAMETER);
+            Class<?> daoClass = Class.forName(daoClassName);
+            dao = (SqlResumenHoraDao) daoClass.getDeclaredConstructor().newInstance();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+        return dao;
+    }
+
+    public synchronized static SqlResumenHoraDao getDao() {
+        if (dao == null) {
+            dao = getInstance();
+        }
+        return dao;
+    }
+}
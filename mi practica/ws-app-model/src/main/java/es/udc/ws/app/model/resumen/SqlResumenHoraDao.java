@@ -0,0 +1,13 @@
+package es.udc.ws.app.model.resumen;
+
+import java.sql.Connection;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface SqlResumenHoraDao {
+
+    public void acumular(Connection connection, List<ResumenHora> variaciones);
+
+    public List<ResumenHora> findByEncuestaId(Connection connection, Long encuestaId,
+                                              LocalDateTime desde, LocalDateTime hasta);
+}
@@ -0,0 +1,278 @@
+package es.udc.ws.app.model.surveyservice;
+
+import es.udc.ws.app.model.encuesta.Encuesta;
+import es.udc.ws.app.model.encuesta.SqlEncuestaDao;
+import es.udc.ws.app.model.resumen.ResumenHora;
+import es.udc.ws.app.model.resumen.SqlResumenHoraDao;
+import es.udc.ws.util.exceptions.InstanceNotFoundException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class AcumuladorVotos {
+
+    private static final Logger LOGGER = Logger.getLogger(AcumuladorVotos.class.getName());
+    private static final long ESPERA_CIERRE_SEGUNDOS = 30;
+
+    private final DataSource dataSource;
+    private final SqlEncuestaDao encuestaDao;
+    private final SqlResumenHoraDao resumenDao;
+    private final ConcurrentHashMap<Long, ContadoresPendientes> pendientes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<HoraEncuesta, ContadoresPendientes> resumenesPendientes =
+            new ConcurrentHashMap<>();
+    private final ReadWriteLock volcadoLock = new ReentrantReadWriteLock();
+    private final ReadWriteLock recalculoLock = new ReentrantReadWriteLock();
+    private final ScheduledExecutorService planificador;
+    private final Thread cierre;
+
+    public AcumuladorVotos(DataSource dataSource, SqlEncuestaDao encuestaDao, SqlResumenHoraDao resumenDao,
+                           long periodoVolcadoMillis) {
+        this.dataSource = dataSource;
+        this.encuestaDao = encuestaDao;
+        this.resumenDao = resumenDao;
+        this.planificador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "AcumuladorVotos-volcado");
+            thread.setDaemon(true);
+            return thread;
+        });
+        planificador.scheduleWithFixedDelay(this::volcarSinExcepciones,
+                periodoVolcadoMillis, periodoVolcadoMillis, TimeUnit.MILLISECONDS);
+        cierre = new Thread(this::cerrarPlanificadorYVolcar, "AcumuladorVotos-cierre");
+        Runtime.getRuntime().addShutdownHook(cierre);
+    }
+
+    public void registrar(ResumenHora variacion) {
+        if (variacion.isVacio()) {
+            return;
+        }
+        pendientes.compute(variacion.getEncuestaId(), (id, contadores) -> {
+            ContadoresPendientes actualizados = contadores == null ? new ContadoresPendientes() : contadores;
+            actualizados.acumular(variacion.getVariacionPositivas(), variacion.getVariacionNegativas(), 0);
+            return actualizados;
+        });
+
+        resumenesPendientes.compute(new HoraEncuesta(variacion.getEncuestaId(), variacion.getHora()),
+                (clave, resumen) -> {
+                    ContadoresPendientes actualizado = resumen == null ? new ContadoresPendientes() : resumen;
+                    actualizado.acumular(variacion.getVariacionPositivas(), variacion.getVariacionNegativas(),
+                            variacion.getNuevosEmpleados());
+                    return actualizado;
+                });
+    }
+
+    public Lock getRegistroLock() {
+        return recalculoLock.readLock();
+    }
+
+    public Encuesta aplicarPendientes(Encuesta encuesta) {
+        ContadoresPendientes contadores = pendientes.get(encuesta.getEncuestaId());
+        if (contadores != null) {
+            encuesta.setRespuestasPositivas(encuesta.getRespuestasPositivas() + contadores.positivas.sum());
+            encuesta.setRespuestasNegativas(encuesta.getRespuestasNegativas() + contadores.negativas.sum());
+        }
+        return encuesta;
+    }
+
+    public List<ResumenHora> aplicarPendientes(Long encuestaId, List<ResumenHora> resumenes,
+                                               LocalDateTime desde, LocalDateTime hasta) {
+        Map<LocalDateTime, ResumenHora> porHora = new TreeMap<>();
+        resumenes.forEach(resumen -> porHora.put(resumen.getHora(), resumen));
+
+        resumenesPendientes.forEach((clave, pendiente) -> {
+            if (clave.encuestaId().equals(encuestaId)
+                    && (desde == null || !clave.hora().isBefore(desde))
+                    && (hasta == null || clave.hora().isBefore(hasta))) {
+                ResumenHora variacion = pendiente.aResumen(clave);
+                if (!variacion.isVacio()) {
+                    porHora.computeIfAbsent(clave.hora(), hora -> new ResumenHora(encuestaId, hora)).acumular(
+                            variacion.getVariacionPositivas(), variacion.getVariacionNegativas(),
+                            variacion.getNuevosEmpleados());
+                }
+            }
+        });
+
+        return new ArrayList<>(porHora.values());
+    }
+
+    public <T, E extends Exception> T leerConsistente(LecturaConsistente<T, E> lectura) throws E {
+        volcadoLock.readLock().lock();
+        try {
+            return lectura.leer();
+        } finally {
+            volcadoLock.readLock().unlock();
+        }
+    }
+
+    public void volcar() {
+
+        volcadoLock.writeLock().lock();
+        try {
+            volcarLote();
+        } finally {
+            volcadoLock.writeLock().unlock();
+        }
+    }
+
+    public void recalcular(Runnable recalculo) {
+
+        recalculoLock.writeLock().lock();
+        try {
+            volcadoLock.writeLock().lock();
+            try {
+                volcarLote();
+                recalculo.run();
+                pendientes.clear();
+            } finally {
+                volcadoLock.writeLock().unlock();
+            }
+        } finally {
+            recalculoLock.writeLock().unlock();
+        }
+    }
+
+    private void volcarLote() {
+
+        Map<Long, long[]> lote = new HashMap<>();
+        pendientes.forEach((encuestaId, contadores) -> {
+            long positivas = contadores.positivas.sum();
+            long negativas = contadores.negativas.sum();
+            if (positivas != 0 || negativas != 0) {
+                lote.put(encuestaId, new long[] {positivas, negativas});
+            }
+        });
+
+        List<ResumenHora> resumenes = new ArrayList<>();
+        resumenesPendientes.forEach((clave, pendiente) -> {
+            ResumenHora variacion = pendiente.aResumen(clave);
+            if (!variacion.isVacio()) {
+                resumenes.add(variacion);
+                lote.putIfAbsent(clave.encuestaId(), new long[] {0, 0});
+            }
+        });
+
+        if (lote.isEmpty()) {
+            return;
+        }
+
+        try (Connection connection = dataSource.getConnection()) {
+            try {
+                connection.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+                connection.setAutoCommit(false);
+
+                Set<Long> eliminadas = new HashSet<>();
+                for (Map.Entry<Long, long[]> entrada : lote.entrySet()) {
+                    try {
+                        encuestaDao.updateContadores(connection, entrada.getKey(),
+                                entrada.getValue()[0], entrada.getValue()[1]);
+                    } catch (InstanceNotFoundException e) {
+                        LOGGER.log(Level.FINE, "Encuesta eliminada con votos pendientes: " + entrada.getKey());
+                        eliminadas.add(entrada.getKey());
+                    }
+                }
+
+                resumenDao.acumular(connection, resumenes.stream()
+                        .filter(resumen -> !eliminadas.contains(resumen.getEncuestaId())).toList());
+
+                connection.commit();
+
+            } catch (SQLException e) {
+                connection.rollback();
+                throw new RuntimeException(e);
+            } catch (RuntimeException | Error e) {
+                connection.rollback();
+                throw e;
+            }
+
+            lote.forEach((encuestaId, deltas) -> pendientes.computeIfPresent(encuestaId, (id, contadores) -> {
+                contadores.acumular(-deltas[0], -deltas[1], 0);
+                return contadores.isVacio() ? null : contadores;
+            }));
+            resumenes.forEach(variacion -> resumenesPendientes.computeIfPresent(
+                    new HoraEncuesta(variacion.getEncuestaId(), variacion.getHora()), (clave, resumen) -> {
+                        resumen.acumular(-variacion.getVariacionPositivas(), -variacion.getVariacionNegativas(),
+                                -variacion.getNuevosEmpleados());
+                        return resumen.isVacio() ? null : resumen;
+                    }));
+
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public void cerrar() {
+        try {
+            Runtime.getRuntime().removeShutdownHook(cierre);
+        } catch (IllegalStateException e) {
+            LOGGER.log(Level.FINE, "Cierre durante el apagado de la JVM", e);
+        }
+        cerrarPlanificadorYVolcar();
+    }
+
+    private void cerrarPlanificadorYVolcar() {
+        planificador.shutdown();
+        try {
+            if (!planificador.awaitTermination(ESPERA_CIERRE_SEGUNDOS, TimeUnit.SECONDS)) {
+                LOGGER.log(Level.WARNING, "El volcado de votos en curso no terminó a tiempo");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        volcarSinExcepciones();
+    }
+
+    private void volcarSinExcepciones() {
+        try {
+            volcar();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "No se pudieron volcar los contadores de votos", e);
+        }
+    }
+
+    @FunctionalInterface
+    public interface LecturaConsistente<T, E extends Exception> {
+        T leer() throws E;
+    }
+
+    private record HoraEncuesta(Long encuestaId, LocalDateTime hora) {
+    }
+
+    private static class ContadoresPendientes {
+        private final LongAdder positivas = new LongAdder();
+        private final LongAdder negativas = new LongAdder();
+        private final LongAdder nuevosEmpleados = new LongAdder();
+
+        private void acumular(long deltaPositivas, long deltaNegativas, long empleados) {
+            positivas.add(deltaPositivas);
+            negativas.add(deltaNegativas);
+            nuevosEmpleados.add(empleados);
+        }
+
+        private boolean isVacio() {
+            return positivas.sum() == 0 && negativas.sum() == 0 && nuevosEmpleados.sum() == 0;
+        }
+
+        private ResumenHora aResumen(HoraEncuesta clave) {
+            return new ResumenHora(clave.encuestaId(), clave.hora(), positivas.sum(), negativas.sum(),
+                    nuevosEmpleados.sum());
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package es.udc.ws.app.model.surveyservice;
+
+import es.udc.ws.app.model.encuesta.Encuesta;
+import es.udc.ws.app.model.encuesta.SqlEncuestaDao;
+import es.udc.ws.app.model.respuesta.SqlRespuestaDao;
+import es.udc.ws.util.exceptions.InstanceNotFoundException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class ArchivadorEncuestas {
+
+    private static final Logger LOGGER = Logger.getLogger(ArchivadorEncuestas.class.getName());
+    private static final int ENCUESTAS_POR_CONSULTA = 100;
+
+    private final DataSource dataSource;
+    private final SqlEncuestaDao encuestaDao;
+    private final SqlRespuestaDao respuestaDao;
+    private final int tamanoLote;
+    private final long margenMillis;
+    private final int mesesRetencion;
+    private final ScheduledExecutorService planificador;
+
+    public ArchivadorEncuestas(DataSource dataSource, SqlEncuestaDao encuestaDao, SqlRespuestaDao respuestaDao,
+                               long periodoMillis, int tamanoLote, long margenMillis, int mesesRetencion) {
+        this.dataSource = dataSource;
+        this.encuestaDao = encuestaDao;
+        this.respuestaDao = respuestaDao;
+        this.tamanoLote = tamanoLote;
+        this.margenMillis = margenMillis;
+        this.mesesRetencion = mesesRetencion;
+
+        if (periodoMillis > 0) {
+            this.planificador = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "ArchivadorEncuestas");
+                thread.setDaemon(true);
+                return thread;
+            });
+            planificador.scheduleWithFixedDelay(this::archivarSinExcepciones,
+                    periodoMillis, periodoMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.planificador = null;
+        }
+    }
+
+    public synchronized long archivar() {
+
+        mantenerParticiones();
+
+        long archivadas = 0;
+        List<Long> encuestaIds;
+
+        do {
+            LocalDateTime fechaFinAnterior = LocalDateTime.now().minus(margenMillis, ChronoUnit.MILLIS);
+            encuestaIds = enTransaccion(connection ->
+                    encuestaDao.findPorArchivar(connection, fechaFinAnterior, ENCUESTAS_POR_CONSULTA));
+
+            for (Long encuestaId : encuestaIds) {
+                if (cerrado()) {
+                    return archivadas;
+                }
+                archivadas += archivar(encuestaId);
+            }
+        } while (encuestaIds.size() == ENCUESTAS_POR_CONSULTA);
+
+        return archivadas;
+    }
+
+    private long archivar(Long encuestaId) {
+
+        long archivadas = 0;
+        int lote;
+
+        do {
+            lote = enTransaccion(connection -> {
+                try {
+                    Encuesta encuesta = encuestaDao.findForUpdate(connection, encuestaId);
+                    int movidas = respuestaDao.archivar(connection, encuestaId, encuesta.getFechaFin(), tamanoLote);
+                    if (movidas < tamanoLote) {
+                        encuestaDao.marcarFinalizada(connection, encuestaId);
+                    }
+                    return movidas;
+                } catch (InstanceNotFoundException e) {
+                    LOGGER.log(Level.FINE, "Encuesta eliminada durante el archivado: " + encuestaId);
+                    return 0;
+                }
+            });
+            archivadas += lote;
+        } while (lote == tamanoLote && !cerrado());
+
+        return archivadas;
+    }
+
+    private void mantenerParticiones() {
+
+        YearMonth mesActual = YearMonth.now();
+
+        try (Connection connection = dataSource.getConnection()) {
+            respuestaDao.mantenerParticionesArchivo(connection, mesActual.plusMonths(1),
+                    mesesRetencion > 0 ? mesActual.minusMonths(mesesRetencion) : null);
+        } catch (SQLException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "No se pudieron mantener las particiones de RespuestaArchivada", e);
+        }
+    }
+
+    public void cerrar() {
+        if (planificador != null) {
+            planificador.shutdown();
+        }
+    }
+
+    private boolean cerrado() {
+        return planificador != null && planificador.isShutdown();
+    }
+
+    private void archivarSinExcepciones() {
+        try {
+            long archivadas = archivar();
+            if (archivadas > 0) {
+                LOGGER.log(Level.FINE, "Respuestas archivadas: " + archivadas);
+            }
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "No se pudieron archivar las encuestas finalizadas", e);
+        }
+    }
+
+    private <T> T enTransaccion(OperacionTransaccional<T> operacion) {
+
+        try (Connection connection = dataSource.getConnection()) {
+            try {
+                connection.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+                connection.setAutoCommit(false);
+
+                T resultado = operacion.ejecutar(connection);
+
+                connection.commit();
+                return resultado;
+
+            } catch (RuntimeException | Error e) {
+                connection.rollback();
+                throw e;
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface OperacionTransaccional<T> {
+        T ejecutar(Connection connection);
+    }
+}
@@ -0,0 +1,34 @@
+package es.udc.ws.app.model.surveyservice;
+
+import es.udc.ws.app.model.encuesta.Encuesta;
+import es.udc.ws.app.model.respuesta.Respuesta;
+import es.udc.ws.app.model.resumen.ResumenHora;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public interface AsyncSurveyService {
+
+    public CompletableFuture<Encuesta> crearEncuesta(Encuesta encuesta);
+
+    public CompletableFuture<Encuesta> buscarEncuestaPorId(Long encuestaId);
+
+    public CompletableFuture<List<Encuesta>> buscarEncuestas(String keywords);
+
+    public CompletableFuture<Pagina<Encuesta>> buscarEncuestas(String keywords, int tamanoPagina, String cursor);
+
+    public CompletableFuture<Respuesta> responderEncuesta(Long encuestaId, String email, boolean respuestaPositiva);
+
+    public CompletableFuture<ResultadoImportacion> responderEncuestas(List<Respuesta> respuestas);
+
+    public CompletableFuture<Encuesta> cancelarEncuesta(Long encuestaId);
+
+    public CompletableFuture<List<Respuesta>> obtenerRespuestas(Long encuestaId, boolean soloAfirmativas);
+
+    public CompletableFuture<Pagina<Respuesta>> obtenerRespuestas(Long encuestaId, boolean soloAfirmativas,
+                                                                  int tamanoPagina, String cursor);
+
+    public CompletableFuture<List<ResumenHora>> obtenerResumen(Long encuestaId, LocalDateTime desde,
+                                                               LocalDateTime hasta);
+}
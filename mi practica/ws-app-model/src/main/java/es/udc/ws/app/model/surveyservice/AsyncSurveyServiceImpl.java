@@ -0,0 +1,104 @@
+package es.udc.ws.app.model.surveyservice;
+
+import es.udc.ws.app.model.encuesta.Encuesta;
+import es.udc.ws.app.model.respuesta.Respuesta;
+import es.udc.ws.app.model.resumen.ResumenHora;
+import es.udc.ws.util.concurrent.BoundedVirtualThreadExecutor;
+import es.udc.ws.util.configuration.ConfigurationParametersManager;
+import es.udc.ws.util.sql.DataSourceLocator;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static es.udc.ws.app.model.util.ModelConstants.SURVEY_DATA_SOURCE;
+
+public class AsyncSurveyServiceImpl implements AsyncSurveyService {
+
+    private static final String CONCURRENCIA_MAXIMA_PARAMETER = "AsyncSurveyServiceImpl.concurrenciaMaxima";
+    private static final int CONCURRENCIA_MAXIMA_POR_DEFECTO = 8;
+
+    private final SurveyService surveyService;
+    private final BoundedVirtualThreadExecutor executor;
+
+    public AsyncSurveyServiceImpl() {
+        this(SurveyServiceFactory.getService(), crearExecutor());
+    }
+
+    public AsyncSurveyServiceImpl(SurveyService surveyService, BoundedVirtualThreadExecutor executor) {
+        this.surveyService = surveyService;
+        this.executor = executor;
+    }
+
+    private static BoundedVirtualThreadExecutor crearExecutor() {
+        String concurrenciaMaxima = ConfigurationParametersManager.getParameter(CONCURRENCIA_MAXIMA_PARAMETER);
+
+        if (concurrenciaMaxima != null) {
+            return new BoundedVirtualThreadExecutor("survey-service", Integer.parseInt(concurrenciaMaxima.trim()));
+        }
+
+        return BoundedVirtualThreadExecutor.forDataSource("survey-service",
+                DataSourceLocator.getDataSource(SURVEY_DATA_SOURCE), CONCURRENCIA_MAXIMA_POR_DEFECTO);
+    }
+
+    @Override
+    public CompletableFuture<Encuesta> crearEncuesta(Encuesta encuesta) {
+        return executor.submit(() -> surveyService.crearEncuesta(encuesta));
+    }
+
+    @Override
+    public CompletableFuture<Encuesta> buscarEncuestaPorId(Long encuestaId) {
+        return executor.submit(() -> surveyService.buscarEncuestaPorId(encuestaId));
+    }
+
+    @Override
+    public CompletableFuture<List<Encuesta>> buscarEncuestas(String keywords) {
+        return executor.submit(() -> surveyService.buscarEncuestas(keywords));
+    }
+
+    @Override
+    public CompletableFuture<Pagina<Encuesta>> buscarEncuestas(String keywords, int tamanoPagina, String cursor) {
+        return executor.submit(() -> surveyService.buscarEncuestas(keywords, tamanoPagina, cursor));
+    }
+
+    @Override
+    public CompletableFuture<Respuesta> responderEncuesta(Long encuestaId, String email, boolean respuestaPositiva) {
+        return executor.submit(() -> surveyService.responderEncuesta(encuestaId, email, respuestaPositiva));
+    }
+
+    @Override
+    public CompletableFuture<ResultadoImportacion> responderEncuestas(List<Respuesta> respuestas) {
+        return executor.submit(() -> surveyService.responderEncuestas(respuestas));
+    }
+
+    @Override
+    public CompletableFuture<Encuesta> cancelarEncuesta(Long encuestaId) {
+        return executor.submit(() -> surveyService.cancelarEncuesta(encuestaId));
+    }
+
+    @Override
+    public CompletableFuture<List<Respuesta>> obtenerRespuestas(Long encuestaId, boolean soloAfirmativas) {
+        return executor.submit(() -> surveyService.obtenerRespuestas(encuestaId, soloAfirmativas));
+    }
+
+    @Override
+    public CompletableFuture<Pagina<Respuesta>> obtenerRespuestas(Long encuestaId, boolean soloAfirmativas,
+                                                                  int tamanoPagina, String cursor) {
+        return executor.submit(() -> surveyService.obtenerRespuestas(encuestaId, soloAfirmativas,
+                tamanoPagina, cursor));
+    }
+
+    @Override
+    public CompletableFuture<List<ResumenHora>> obtenerResumen(Long encuestaId, LocalDateTime desde,
+                                                               LocalDateTime hasta) {
+        return executor.submit(() -> surveyService.obtenerResumen(encuestaId, desde, hasta));
+    }
+
+    public int getConcurrenciaMaxima() {
+        return executor.getMaxConcurrency();
+    }
+
+    public void cerrar() {
+        executor.close();
+    }
+}
@@ -0,0 +1,53 @@
+package es.udc.ws.app.model.surveyservice;
+
+import es.udc.ws.util.exceptions.InputValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+class CursorPaginacion {
+
+    private static final char SEPARADOR = '|';
+
+    private final LocalDateTime fecha;
+    private final Long id;
+
+    private CursorPaginacion(LocalDateTime fecha, Long id) {
+        this.fecha = fecha;
+        this.id = id;
+    }
+
+    LocalDateTime getFecha() {
+        return fecha;
+    }
+
+    Long getId() {
+        return id;
+    }
+
+    static String codificar(LocalDateTime fecha, Long id) {
+        String valor = fecha.toString() + SEPARADOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static CursorPaginacion decodificar(String cursor) throws InputValidationException {
+
+        if (cursor == null) {
+            return null;
+        }
+
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separador = valor.indexOf(SEPARADOR);
+            if (separador < 0) {
+                throw new InputValidationException("Cursor de paginación no válido: " + cursor);
+            }
+            return new CursorPaginacion(LocalDateTime.parse(valor.substring(0, separador)),
+                    Long.valueOf(valor.substring(separador + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InputValidationException("Cursor de paginación no válido: " + cursor);
+        }
+    }
+}
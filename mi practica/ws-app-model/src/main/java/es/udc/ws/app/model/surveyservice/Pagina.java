@@ -0,0 +1,26 @@
+package es.udc.ws.app.model.surveyservice;
+
+import java.util.List;
+
+public class Pagina<T> {
+
+    private final List<T> elementos;
+    private final String siguienteCursor;
+
+    public Pagina(List<T> elementos, String siguienteCursor) {
+        this.elementos = elementos;
+        this.siguienteCursor = siguienteCursor;
+    }
+
+    public List<T> getElementos() {
+        return elementos;
+    }
+
+    public String getSiguienteCursor() {
+        return siguienteCursor;
+    }
+
+    public boolean haySiguiente() {
+        return siguienteCursor != null;
+    }
+}
@@ -0,0 +1,26 @@
+package es.udc.ws.app.model.surveyservice;
+
+public class ResultadoImportacion {
+
+    private final long nuevas;
+    private final long cambiadas;
+    private final long repetidas;
+
+    public ResultadoImportacion(long nuevas, long cambiadas, long repetidas) {
+        this.nuevas = nuevas;
+        this.cambiadas = cambiadas;
+        this.repetidas = repetidas;
+    }
+
+    public long getNuevas() {
+        return nuevas;
+    }
+
+    public long getCambiadas() {
+        return cambiadas;
+    }
+
+    public long getRepetidas() {
+        return repetidas;
+    }
+}
@@ -2,12 +2,14 @@ package es.udc.ws.app.model.surveyservice;
 
 import es.udc.ws.app.model.encuesta.Encuesta;
 import es.udc.ws.app.model.respuesta.Respuesta;
+import es.udc.ws.app.model.resumen.ResumenHora;
 import es.udc.ws.app.model.surveyservice.exceptions.EncuestaCanceladaException;
 import es.udc.ws.app.model.surveyservice.exceptions.EncuestaFinalizadaException;
 import es.udc.ws.app.model.surveyservice.exceptions.FechaFinExpiradaException;
 import es.udc.ws.util.exceptions.InputValidationException;
 import es.udc.ws.util.exceptions.InstanceNotFoundException;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface SurveyService {
@@ -22,14 +24,27 @@ public interface SurveyService {
 
     public List<Encuesta> buscarEncuestas(String keywords);
 
+    public Pagina<Encuesta> buscarEncuestas(String keywords, int tamanoPagina, String cursor)
+            throws InputValidationException;
+
 
     public Respuesta responderEncuesta(Long encuestaId, String email, boolean respuestaPositiva)
             throws InstanceNotFoundException, EncuestaFinalizadaException, EncuestaCanceladaException, InputValidationException;
 
+    public ResultadoImportacion responderEncuestas(List<Respuesta> respuestas)
+            throws InstanceNotFoundException, EncuestaFinalizadaException, EncuestaCanceladaException, InputValidationException;
+
 
     public Encuesta cancelarEncuesta(Long encuestaId)
             throws InstanceNotFoundException, EncuestaFinalizadaException, EncuestaCanceladaException;
 
     public List<Respuesta> obtenerRespuestas(Long encuestaId, boolean soloAfirmativas)
             throws InstanceNotFoundException;
+
+    public Pagina<Respuesta> obtenerRespuestas(Long encuestaId, boolean soloAfirmativas,
+                                               int tamanoPagina, String cursor)
+            throws InstanceNotFoundException, InputValidationException;
+
+    public List<ResumenHora> obtenerResumen(Long encuestaId, LocalDateTime desde, LocalDateTime hasta)
+            throws InstanceNotFoundException, InputValidationException;
 }
@@ -5,7 +5,9 @@ import es.udc.ws.util.configuration.ConfigurationParametersManager;
 public class SurveyServiceFactory {
 
     private final static String CLASS_NAME_PARAMETER = "SurveyServiceFactory.className";
+    private final static String ASYNC_CLASS_NAME_PARAMETER = "SurveyServiceFactory.asyncClassName";
     private static SurveyService service = null;
+    private static AsyncSurveyService asyncService = null;
 
     private SurveyServiceFactory() {
     }
@@ -27,4 +29,24 @@ public class SurveyServiceFactory {
         }
         return service;
     }
+
+    private static AsyncSurveyService getAsyncInstance() {
+        try {
+            String serviceClassName = ConfigurationParametersManager
+                    .getParameter(ASYNC_CLASS_NAME_PARAMETER);
+            Class<?> serviceClass = serviceClassName != null
+                    ? Class.forName(serviceClassName)
+                    : AsyncSurveyServiceImpl.class;
+            return (AsyncSurveyService) serviceClass.getDeclaredConstructor().newInstance();
+        } catch (Exception e) {
+            throw new RuntimeException("Error creando instancia de AsyncSurveyService", e);
+        }
+    }
+
+    public synchronized static AsyncSurveyService getAsyncService() {
+        if (asyncService == null) {
+            asyncService = getAsyncInstance();
+        }
+        return asyncService;
+    }
 }
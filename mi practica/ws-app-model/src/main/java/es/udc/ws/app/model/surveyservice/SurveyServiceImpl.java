@@ -5,11 +5,16 @@ import es.udc.ws.app.model.encuesta.SqlEncuestaDao;
 import es.udc.ws.app.model.encuesta.EncuestaDaoFactory;
 import es.udc.ws.app.model.encuesta.SqlEncuestaDao;
 import es.udc.ws.app.model.respuesta.Respuesta;
+import es.udc.ws.app.model.respuesta.ResultadoUpsert;
 import es.udc.ws.app.model.respuesta.SqlRespuestaDao;
 import es.udc.ws.app.model.respuesta.RespuestaDaoFactory;
+import es.udc.ws.app.model.resumen.ResumenHora;
+import es.udc.ws.app.model.resumen.ResumenHoraDaoFactory;
+import es.udc.ws.app.model.resumen.SqlResumenHoraDao;
 import es.udc.ws.app.model.surveyservice.exceptions.EncuestaCanceladaException;
 import es.udc.ws.app.model.surveyservice.exceptions.EncuestaFinalizadaException;
 import es.udc.ws.app.model.surveyservice.exceptions.FechaFinExpiradaException;
+import es.udc.ws.util.configuration.ConfigurationParametersManager;
 import es.udc.ws.util.exceptions.InputValidationException;
 import es.udc.ws.util.exceptions.InstanceNotFoundException;
 import es.udc.ws.util.sql.DataSourceLocator;
@@ -20,19 +25,68 @@ import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
 
 public class SurveyServiceImpl implements SurveyService {
 
+    private static final String PERIODO_VOLCADO_PARAMETER = "SurveyServiceImpl.periodoVolcadoVotos";
+    private static final String RECALCULAR_AL_INICIAR_PARAMETER = "SurveyServiceImpl.recalcularContadoresAlIniciar";
+    private static final String PERIODO_ARCHIVADO_PARAMETER = "SurveyServiceImpl.periodoArchivado";
+    private static final String TAMANO_LOTE_ARCHIVADO_PARAMETER = "SurveyServiceImpl.tamanoLoteArchivado";
+    private static final String MARGEN_ARCHIVADO_PARAMETER = "SurveyServiceImpl.margenArchivado";
+    private static final String MESES_RETENCION_ARCHIVO_PARAMETER = "SurveyServiceImpl.mesesRetencionArchivo";
+    private static final int TAMANO_LOTE_ARCHIVADO_POR_DEFECTO = 1000;
+    private static final long MARGEN_ARCHIVADO_POR_DEFECTO = 60000;
+    private static final int TAMANO_PAGINA_MAXIMO = 1000;
+
     private final DataSource dataSource;
     private final SqlEncuestaDao encuestaDao;
     private final SqlRespuestaDao respuestaDao;
+    private final SqlResumenHoraDao resumenDao;
+    private final AcumuladorVotos acumuladorVotos;
+    private final ArchivadorEncuestas archivadorEncuestas;
 
     public SurveyServiceImpl() {
+        this(periodoVolcadoConfigurado());
+    }
+
+    public SurveyServiceImpl(long periodoVolcadoVotosMillis) {
         dataSource = DataSourceLocator.getDataSource(SURVEY_DATA_SOURCE);
         encuestaDao = EncuestaDaoFactory.getDao();
         respuestaDao = RespuestaDaoFactory.getDao();
+        resumenDao = ResumenHoraDaoFactory.getDao();
+
+        if (periodoVolcadoVotosMillis > 0) {
+            if (Boolean.parseBoolean(ConfigurationParametersManager.getParameter(RECALCULAR_AL_INICIAR_PARAMETER))) {
+                recalcularContadores();
+            }
+            acumuladorVotos = new AcumuladorVotos(dataSource, encuestaDao, resumenDao, periodoVolcadoVotosMillis);
+        } else {
+            acumuladorVotos = null;
+        }
+
+        archivadorEncuestas = new ArchivadorEncuestas(dataSource, encuestaDao, respuestaDao,
+                parametroNumerico(PERIODO_ARCHIVADO_PARAMETER, 0),
+                (int) parametroNumerico(TAMANO_LOTE_ARCHIVADO_PARAMETER, TAMANO_LOTE_ARCHIVADO_POR_DEFECTO),
+                parametroNumerico(MARGEN_ARCHIVADO_PARAMETER, MARGEN_ARCHIVADO_POR_DEFECTO),
+                (int) parametroNumerico(MESES_RETENCION_ARCHIVO_PARAMETER, 0));
+    }
+
+    private static long periodoVolcadoConfigurado() {
+        return parametroNumerico(PERIODO_VOLCADO_PARAMETER, 0);
+    }
+
+    private static long parametroNumerico(String nombre, long valorPorDefecto) {
+        String valor = ConfigurationParametersManager.getParameter(nombre);
+        return valor == null ? valorPorDefecto : Long.parseLong(valor.trim());
     }
 
 
@@ -63,8 +117,60 @@ public class SurveyServiceImpl implements SurveyService {
     public List<Encuesta> buscarEncuestas(String palabraClave) {
         Objects.requireNonNull(palabraClave, "La palabra clave no puede ser nula");
 
+        if (acumuladorVotos == null) {
+            return buscarEncuestasEnBaseDeDatos(palabraClave);
+        }
+
+        return acumuladorVotos.leerConsistente(() -> {
+            List<Encuesta> encuestas = buscarEncuestasEnBaseDeDatos(palabraClave);
+            encuestas.forEach(acumuladorVotos::aplicarPendientes);
+            return encuestas;
+        });
+    }
+
+    private List<Encuesta> buscarEncuestasEnBaseDeDatos(String palabraClave) {
         try (Connection connection = dataSource.getConnection()) {
-            return encuestaDao.findByKeywords(palabraClave, true);
+            return encuestaDao.findByKeywords(connection, palabraClave, true);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public Pagina<Encuesta> buscarEncuestas(String palabraClave, int tamanoPagina, String cursor)
+            throws InputValidationException {
+        Objects.requireNonNull(palabraClave, "La palabra clave no puede ser nula");
+        PropertyValidator.validateLong("tamanoPagina", tamanoPagina, 1, TAMANO_PAGINA_MAXIMO);
+        CursorPaginacion anterior = CursorPaginacion.decodificar(cursor);
+
+        List<Encuesta> encuestas;
+        if (acumuladorVotos == null) {
+            encuestas = buscarPaginaDeEncuestas(palabraClave, tamanoPagina, anterior);
+        } else {
+            encuestas = acumuladorVotos.leerConsistente(() -> {
+                List<Encuesta> pagina = buscarPaginaDeEncuestas(palabraClave, tamanoPagina, anterior);
+                pagina.forEach(acumuladorVotos::aplicarPendientes);
+                return pagina;
+            });
+        }
+
+        String siguienteCursor = null;
+        if (encuestas.size() > tamanoPagina) {
+            encuestas = encuestas.subList(0, tamanoPagina);
+            Encuesta ultima = encuestas.get(tamanoPagina - 1);
+            siguienteCursor = CursorPaginacion.codificar(ultima.getFechaCreacion(), ultima.getEncuestaId());
+        }
+
+        return new Pagina<>(encuestas, siguienteCursor);
+    }
+
+    private List<Encuesta> buscarPaginaDeEncuestas(String palabraClave, int tamanoPagina,
+                                                   CursorPaginacion anterior) {
+        try (Connection connection = dataSource.getConnection()) {
+            return encuestaDao.findByKeywords(connection, palabraClave, true,
+                    anterior == null ? null : anterior.getFecha(),
+                    anterior == null ? null : anterior.getId(),
+                    tamanoPagina + 1);
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
@@ -77,6 +183,17 @@ public class SurveyServiceImpl implements SurveyService {
 
 
 
+        if (acumuladorVotos == null) {
+            return buscarEncuestaEnBaseDeDatos(encuestaId);
+        }
+
+        return acumuladorVotos.leerConsistente(
+                () -> acumuladorVotos.aplicarPendientes(buscarEncuestaEnBaseDeDatos(encuestaId)));
+    }
+
+    private Encuesta buscarEncuestaEnBaseDeDatos(Long encuestaId)
+            throws InstanceNotFoundException {
+
         try (Connection connection = dataSource.getConnection()) {
             return encuestaDao.find(connection, encuestaId);
         } catch (SQLException e) {
@@ -92,12 +209,30 @@ public class SurveyServiceImpl implements SurveyService {
 
         PropertyValidator.validateMandatoryString("email", emailEmpleado);
 
+        if (acumuladorVotos == null) {
+            return registrarRespuesta(encuestaId, emailEmpleado, afirmativa);
+        }
+
+        Lock registro = acumuladorVotos.getRegistroLock();
+        registro.lock();
+        try {
+            return registrarRespuesta(encuestaId, emailEmpleado, afirmativa);
+        } finally {
+            registro.unlock();
+        }
+    }
+
+    private Respuesta registrarRespuesta(Long encuestaId, String emailEmpleado, boolean afirmativa)
+            throws InstanceNotFoundException, EncuestaFinalizadaException, EncuestaCanceladaException {
+
         try (Connection connection = dataSource.getConnection()) {
             try {
-                connection.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+                connection.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
                 connection.setAutoCommit(false);
 
-                Encuesta encuesta = encuestaDao.find(connection, encuestaId);
+                Encuesta encuesta = acumuladorVotos == null
+                        ? encuestaDao.findForUpdate(connection, encuestaId)
+                        : encuestaDao.findForShare(connection, encuestaId);
 
                 if (encuesta.isCancelada()) {
                     throw new EncuestaCanceladaException(encuestaId);
@@ -107,43 +242,172 @@ public class SurveyServiceImpl implements SurveyService {
                     throw new EncuestaFinalizadaException(encuestaId, encuesta.getFechaFin());
                 }
 
-                LocalDateTime ahora = LocalDateTime.now().withNano(0);
+                Respuesta respuesta = new Respuesta(encuestaId, emailEmpleado, afirmativa);
+
+                ResultadoUpsert resultado = respuestaDao.upsert(connection, respuesta);
+
+                long deltaPositivas = 0;
+                long deltaNegativas = 0;
+                if (resultado == ResultadoUpsert.NUEVA) {
+                    deltaPositivas = afirmativa ? 1 : 0;
+                    deltaNegativas = afirmativa ? 0 : 1;
+                } else if (resultado == ResultadoUpsert.CAMBIADA) {
+                    deltaPositivas = afirmativa ? 1 : -1;
+                    deltaNegativas = afirmativa ? -1 : 1;
+                }
+
+                ResumenHora variacion = new ResumenHora(encuestaId, truncarAHora(respuesta.getFechaRespuesta()),
+                        deltaPositivas, deltaNegativas, resultado == ResultadoUpsert.NUEVA ? 1 : 0);
+
+                if (acumuladorVotos == null && resultado != ResultadoUpsert.REPETIDA) {
+                    encuestaDao.updateContadores(connection, encuestaId, deltaPositivas, deltaNegativas);
+                    resumenDao.acumular(connection, List.of(variacion));
+                }
+
+                connection.commit();
+
+                if (acumuladorVotos != null) {
+                    acumuladorVotos.registrar(variacion);
+                }
+
+                return respuesta;
 
-                Respuesta respuestaExistente =
-                        respuestaDao.findByEmailAndEncuestaId(connection, encuestaId, emailEmpleado);
+            } catch (InstanceNotFoundException | EncuestaFinalizadaException |
+                     EncuestaCanceladaException e) {
+                connection.commit();
+                throw e;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw new RuntimeException(e);
+            } catch (RuntimeException | Error e) {
+                connection.rollback();
+                throw e;
+            }
 
-                if (respuestaExistente == null) {
-                    Respuesta nueva = new Respuesta(encuestaId, emailEmpleado, afirmativa);
-                    nueva.setFechaRespuesta(ahora);
-                    respuestaDao.create(connection, nueva);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+
+    @Override
+    public ResultadoImportacion responderEncuestas(List<Respuesta> respuestas)
+            throws InstanceNotFoundException,
+            EncuestaFinalizadaException, EncuestaCanceladaException, InputValidationException {
+
+        Map<Long, Map<String, Respuesta>> respuestasPorEncuesta = new TreeMap<>();
+
+        for (Respuesta respuesta : respuestas) {
+            if (respuesta.getEncuestaId() == null) {
+                throw new InputValidationException("La respuesta no indica la encuesta");
+            }
+            PropertyValidator.validateMandatoryString("email", respuesta.getEmailEmpleado());
+            if (respuesta.getFechaRespuesta() == null) {
+                respuesta.setFechaRespuesta(LocalDateTime.now().withNano(0));
+            }
+            respuestasPorEncuesta.computeIfAbsent(respuesta.getEncuestaId(), id -> new LinkedHashMap<>())
+                    .put(respuesta.getEmailEmpleado(), respuesta);
+        }
 
-                    if (afirmativa) {
-                        encuesta.setRespuestasPositivas(encuesta.getRespuestasPositivas() + 1);
-                    } else {
-                        encuesta.setRespuestasNegativas(encuesta.getRespuestasNegativas() + 1);
+        if (acumuladorVotos == null) {
+            return registrarRespuestas(respuestasPorEncuesta);
+        }
+
+        Lock registro = acumuladorVotos.getRegistroLock();
+        registro.lock();
+        try {
+            return registrarRespuestas(respuestasPorEncuesta);
+        } finally {
+            registro.unlock();
+        }
+    }
+
+    private ResultadoImportacion registrarRespuestas(Map<Long, Map<String, Respuesta>> respuestasPorEncuesta)
+            throws InstanceNotFoundException, EncuestaFinalizadaException, EncuestaCanceladaException {
+
+        try (Connection connection = dataSource.getConnection()) {
+            try {
+                connection.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+                connection.setAutoCommit(false);
+
+                for (Long encuestaId : respuestasPorEncuesta.keySet()) {
+                    Encuesta encuesta = encuestaDao.findForUpdate(connection, encuestaId);
+
+                    if (encuesta.isCancelada()) {
+                        throw new EncuestaCanceladaException(encuestaId);
+                    }
+
+                    if (encuesta.getFechaFin().isBefore(LocalDateTime.now())) {
+                        throw new EncuestaFinalizadaException(encuestaId, encuesta.getFechaFin());
                     }
-                    encuestaDao.update(connection, encuesta);
-
-                } else {
-                    boolean anterior = respuestaExistente.isAfirmativa();
-                    respuestaExistente.setAfirmativa(afirmativa);
-                    respuestaExistente.setFechaRespuesta(ahora);
-                    respuestaDao.update(connection, respuestaExistente);
-
-                    if (anterior != afirmativa) {
-                        if (afirmativa) {
-                            encuesta.setRespuestasPositivas(encuesta.getRespuestasPositivas() + 1);
-                            encuesta.setRespuestasNegativas(encuesta.getRespuestasNegativas() - 1);
+                }
+
+                long nuevas = 0;
+                long cambiadas = 0;
+                long repetidas = 0;
+                List<ResumenHora> resumenes = new ArrayList<>();
+
+                for (Map.Entry<Long, Map<String, Respuesta>> entrada : respuestasPorEncuesta.entrySet()) {
+                    Long encuestaId = entrada.getKey();
+                    Map<String, Respuesta> respuestasEncuesta = entrada.getValue();
+
+                    Map<String, Respuesta> existentes = respuestaDao.findByEncuestaIdAndEmails(
+                            connection, encuestaId, respuestasEncuesta.keySet());
+
+                    List<Respuesta> aCrear = new ArrayList<>();
+                    List<Respuesta> aCambiar = new ArrayList<>();
+                    Map<LocalDateTime, ResumenHora> resumenesPorHora = new TreeMap<>();
+                    long deltaPositivas = 0;
+                    long deltaNegativas = 0;
+
+                    for (Respuesta respuesta : respuestasEncuesta.values()) {
+                        Respuesta existente = existentes.get(respuesta.getEmailEmpleado());
+                        boolean afirmativa = respuesta.isAfirmativa();
+
+                        if (existente == null) {
+                            aCrear.add(respuesta);
+                            deltaPositivas += afirmativa ? 1 : 0;
+                            deltaNegativas += afirmativa ? 0 : 1;
+                            resumenDeHora(resumenesPorHora, respuesta).acumular(
+                                    afirmativa ? 1 : 0, afirmativa ? 0 : 1, 1);
+                        } else if (existente.isAfirmativa() != afirmativa
+                                && respuesta.getFechaRespuesta().isAfter(existente.getFechaRespuesta())) {
+                            respuesta.setRespuestaId(existente.getRespuestaId());
+                            aCambiar.add(respuesta);
+                            deltaPositivas += afirmativa ? 1 : -1;
+                            deltaNegativas += afirmativa ? -1 : 1;
+                            resumenDeHora(resumenesPorHora, respuesta).acumular(
+                                    afirmativa ? 1 : -1, afirmativa ? -1 : 1, 0);
                         } else {
-                            encuesta.setRespuestasPositivas(encuesta.getRespuestasPositivas() - 1);
-                            encuesta.setRespuestasNegativas(encuesta.getRespuestasNegativas() + 1);
+                            respuesta.setRespuestaId(existente.getRespuestaId());
+                            respuesta.setAfirmativa(existente.isAfirmativa());
+                            respuesta.setFechaRespuesta(existente.getFechaRespuesta());
+                            repetidas++;
                         }
-                        encuestaDao.update(connection, encuesta);
+                    }
+
+                    respuestaDao.createBatch(connection, aCrear);
+                    respuestaDao.updateBatch(connection, aCambiar);
+                    nuevas += aCrear.size();
+                    cambiadas += aCambiar.size();
+                    resumenesPorHora.values().stream().filter(r -> !r.isVacio()).forEach(resumenes::add);
+
+                    if (acumuladorVotos == null && (deltaPositivas != 0 || deltaNegativas != 0)) {
+                        encuestaDao.updateContadores(connection, encuestaId, deltaPositivas, deltaNegativas);
                     }
                 }
 
+                if (acumuladorVotos == null) {
+                    resumenDao.acumular(connection, resumenes);
+                }
+
                 connection.commit();
-                return respuestaDao.findByEmailAndEncuestaId(connection, encuestaId, emailEmpleado);
+
+                if (acumuladorVotos != null) {
+                    resumenes.forEach(acumuladorVotos::registrar);
+                }
+
+                return new ResultadoImportacion(nuevas, cambiadas, repetidas);
 
             } catch (InstanceNotFoundException | EncuestaFinalizadaException |
                      EncuestaCanceladaException e) {
@@ -172,7 +436,7 @@ public class SurveyServiceImpl implements SurveyService {
                 connection.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
                 connection.setAutoCommit(false);
 
-                Encuesta encuesta = encuestaDao.find(connection, encuestaId);
+                Encuesta encuesta = encuestaDao.findForUpdate(connection, encuestaId);
 
                 if (encuesta.getFechaFin().isBefore(LocalDateTime.now())) {
                     throw new EncuestaFinalizadaException(encuestaId, encuesta.getFechaFin());
@@ -186,7 +450,7 @@ public class SurveyServiceImpl implements SurveyService {
                 encuestaDao.update(connection, encuesta);
 
                 connection.commit();
-                return encuesta;
+                return acumuladorVotos == null ? encuesta : acumuladorVotos.aplicarPendientes(encuesta);
 
             } catch (InstanceNotFoundException | EncuestaFinalizadaException | EncuestaCanceladaException e) {
                 connection.commit();
@@ -209,11 +473,191 @@ public class SurveyServiceImpl implements SurveyService {
     public List<Respuesta> obtenerRespuestas(Long encuestaId, boolean soloAfirmativas)
             throws InstanceNotFoundException {
 
+        try (Connection connection = dataSource.getConnection()) {
+            try {
+                connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+                connection.setAutoCommit(false);
+
+                Encuesta encuesta = encuestaDao.find(connection, encuestaId);
+                List<Respuesta> respuestas = respuestaDao.findByEncuestaId(connection, encuestaId, soloAfirmativas);
+                if (puedeTenerArchivadas(encuesta)) {
+                    respuestas = fusionar(respuestas, respuestaDao.findArchivadasByEncuestaId(connection, encuestaId,
+                            encuesta.getFechaFin(), soloAfirmativas, null, null, 0), 0);
+                }
+
+                connection.commit();
+
+                return respuestas;
+
+            } catch (InstanceNotFoundException e) {
+                connection.commit();
+                throw e;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw new RuntimeException(e);
+            } catch (RuntimeException | Error e) {
+                connection.rollback();
+                throw e;
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public Pagina<Respuesta> obtenerRespuestas(Long encuestaId, boolean soloAfirmativas,
+                                               int tamanoPagina, String cursor)
+            throws InstanceNotFoundException, InputValidationException {
+
+        PropertyValidator.validateLong("tamanoPagina", tamanoPagina, 1, TAMANO_PAGINA_MAXIMO);
+        CursorPaginacion anterior = CursorPaginacion.decodificar(cursor);
+
+        List<Respuesta> respuestas;
+        try (Connection connection = dataSource.getConnection()) {
+            try {
+                connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+                connection.setAutoCommit(false);
+
+                Encuesta encuesta = encuestaDao.find(connection, encuestaId);
+                respuestas = respuestaDao.findByEncuestaId(connection, encuestaId, soloAfirmativas,
+                        anterior == null ? null : anterior.getFecha(),
+                        anterior == null ? null : anterior.getId(),
+                        tamanoPagina + 1);
+                if (puedeTenerArchivadas(encuesta)) {
+                    respuestas = fusionar(respuestas, respuestaDao.findArchivadasByEncuestaId(connection,
+                            encuestaId, encuesta.getFechaFin(), soloAfirmativas,
+                            anterior == null ? null : anterior.getFecha(),
+                            anterior == null ? null : anterior.getId(),
+                            tamanoPagina + 1), tamanoPagina + 1);
+                }
+
+                connection.commit();
+
+            } catch (InstanceNotFoundException e) {
+                connection.commit();
+                throw e;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw new RuntimeException(e);
+            } catch (RuntimeException | Error e) {
+                connection.rollback();
+                throw e;
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+
+        String siguienteCursor = null;
+        if (respuestas.size() > tamanoPagina) {
+            respuestas = respuestas.subList(0, tamanoPagina);
+            Respuesta ultima = respuestas.get(tamanoPagina - 1);
+            siguienteCursor = CursorPaginacion.codificar(ultima.getFechaRespuesta(), ultima.getRespuestaId());
+        }
+
+        return new Pagina<>(respuestas, siguienteCursor);
+    }
+
+    private static boolean puedeTenerArchivadas(Encuesta encuesta) {
+        return encuesta.getFechaFin().isBefore(LocalDateTime.now());
+    }
+
+    private static List<Respuesta> fusionar(List<Respuesta> respuestas, List<Respuesta> archivadas, int limite) {
+        if (archivadas.isEmpty()) {
+            return respuestas;
+        }
+        List<Respuesta> todas = new ArrayList<>(respuestas.size() + archivadas.size());
+        todas.addAll(respuestas);
+        todas.addAll(archivadas);
+        todas.sort(Comparator.comparing(Respuesta::getFechaRespuesta)
+                .thenComparing(Respuesta::getRespuestaId).reversed());
+        return limite > 0 && todas.size() > limite ? todas.subList(0, limite) : todas;
+    }
+
+    @Override
+    public List<ResumenHora> obtenerResumen(Long encuestaId, LocalDateTime desde, LocalDateTime hasta)
+            throws InstanceNotFoundException, InputValidationException {
+
+        if (desde != null && hasta != null && !desde.isBefore(hasta)) {
+            throw new InputValidationException("El inicio del intervalo debe ser anterior a su fin");
+        }
+
+        LocalDateTime primeraHora = desde == null ? null : truncarAHora(desde);
+
+        if (acumuladorVotos == null) {
+            return buscarResumen(encuestaId, primeraHora, hasta);
+        }
+
+        return acumuladorVotos.leerConsistente(() -> acumuladorVotos.aplicarPendientes(encuestaId,
+                buscarResumen(encuestaId, primeraHora, hasta), primeraHora, hasta));
+    }
+
+    private List<ResumenHora> buscarResumen(Long encuestaId, LocalDateTime desde, LocalDateTime hasta)
+            throws InstanceNotFoundException {
+
         try (Connection connection = dataSource.getConnection()) {
             encuestaDao.find(connection, encuestaId);
-            return respuestaDao.findByEncuestaId(connection, encuestaId, soloAfirmativas);
+            return resumenDao.findByEncuestaId(connection, encuestaId, desde, hasta);
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
     }
+
+    private static LocalDateTime truncarAHora(LocalDateTime fecha) {
+        return fecha.truncatedTo(ChronoUnit.HOURS);
+    }
+
+    private static ResumenHora resumenDeHora(Map<LocalDateTime, ResumenHora> resumenesPorHora, Respuesta respuesta) {
+        LocalDateTime hora = truncarAHora(respuesta.getFechaRespuesta());
+        return resumenesPorHora.computeIfAbsent(hora, h -> new ResumenHora(respuesta.getEncuestaId(), h));
+    }
+
+    public void volcarContadores() {
+        if (acumuladorVotos != null) {
+            acumuladorVotos.volcar();
+        }
+    }
+
+    public void recalcularContadores() {
+        if (acumuladorVotos == null) {
+            recalcularContadoresEnBaseDeDatos();
+        } else {
+            acumuladorVotos.recalcular(this::recalcularContadoresEnBaseDeDatos);
+        }
+    }
+
+    private void recalcularContadoresEnBaseDeDatos() {
+        try (Connection connection = dataSource.getConnection()) {
+            try {
+                connection.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+                connection.setAutoCommit(false);
+
+                encuestaDao.recalculateContadores(connection);
+
+                connection.commit();
+
+            } catch (SQLException e) {
+                connection.rollback();
+                throw new RuntimeException(e);
+            } catch (RuntimeException | Error e) {
+                connection.rollback();
+                throw e;
+            }
+
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public long archivarEncuestas() {
+        return archivadorEncuestas.archivar();
+    }
+
+    public void cerrar() {
+        archivadorEncuestas.cerrar();
+        if (acumuladorVotos != null) {
+            acumuladorVotos.cerrar();
+        }
+    }
 }
@@ -1,3 +1,5 @@
+DROP TABLE IF EXISTS RespuestaArchivada;
+DROP TABLE IF EXISTS ResumenHora;
 DROP TABLE IF EXISTS Respuesta;
 DROP TABLE IF EXISTS Encuesta;
 
@@ -9,10 +11,14 @@ CREATE TABLE Encuesta (
                           respuestasPositivas BIGINT NOT NULL DEFAULT 0,
                           respuestasNegativas BIGINT NOT NULL DEFAULT 0,
                           cancelada BOOLEAN NOT NULL DEFAULT 0,
-                          CONSTRAINT EncuestaPK PRIMARY KEY (encuestaId)
+                          CONSTRAINT EncuestaPK PRIMARY KEY (encuestaId),
+                          INDEX EncuestaFechaCreacionIdx (fechaCreacion, encuestaId),
+                          FULLTEXT INDEX EncuestaPreguntaFT (pregunta)
 ) ENGINE = InnoDB;
 
 
+DROP TABLE IF EXISTS RespuestaArchivada;
+DROP TABLE IF EXISTS ResumenHora;
 DROP TABLE IF EXISTS Respuesta;
 DROP TABLE IF EXISTS Encuesta;
 
@@ -24,7 +30,9 @@ CREATE TABLE Encuesta (
                           respuestasPositivas BIGINT NOT NULL DEFAULT 0,
                           respuestasNegativas BIGINT NOT NULL DEFAULT 0,
                           cancelada BOOLEAN NOT NULL DEFAULT 0,
-                          CONSTRAINT EncuestaPK PRIMARY KEY (encuestaId)
+                          CONSTRAINT EncuestaPK PRIMARY KEY (encuestaId),
+                          INDEX EncuestaFechaCreacionIdx (fechaCreacion, encuestaId),
+                          FULLTEXT INDEX EncuestaPreguntaFT (pregunta)
 ) ENGINE = InnoDB;
 
 CREATE TABLE Respuesta (
@@ -34,11 +42,15 @@ CREATE TABLE Respuesta (
                            afirmativa BOOLEAN NOT NULL,
                            fechaRespuesta DATETIME NOT NULL,
                            CONSTRAINT RespuestaPK PRIMARY KEY (respuestaId),
+                           CONSTRAINT RespuestaEncuestaEmailUK UNIQUE (encuestaId, emailEmpleado),
+                           INDEX RespuestaEncuestaFechaIdx (encuestaId, fechaRespuesta, respuestaId),
                            CONSTRAINT RespuestaEncuestaFK FOREIGN KEY (encuestaId)
                                REFERENCES Encuesta(encuestaId) ON DELETE CASCADE
 ) ENGINE = InnoDB;
 
 
+DROP TABLE IF EXISTS RespuestaArchivada;
+DROP TABLE IF EXISTS ResumenHora;
 DROP TABLE IF EXISTS Respuesta;
 DROP TABLE IF EXISTS Encuesta;
 
@@ -50,7 +62,12 @@ CREATE TABLE Encuesta (
                           respuestasPositivas BIGINT NOT NULL DEFAULT 0,
                           respuestasNegativas BIGINT NOT NULL DEFAULT 0,
                           cancelada BOOLEAN NOT NULL DEFAULT 0,
-                          CONSTRAINT EncuestaPK PRIMARY KEY (encuestaId)
+                          finalizada BOOLEAN NOT NULL DEFAULT 0,
+                          version BIGINT NOT NULL DEFAULT 0,
+                          CONSTRAINT EncuestaPK PRIMARY KEY (encuestaId),
+                          INDEX EncuestaFechaCreacionIdx (fechaCreacion, encuestaId),
+                          INDEX EncuestaFinalizadaFechaFinIdx (finalizada, fechaFin),
+                          FULLTEXT INDEX EncuestaPreguntaFT (pregunta)
 ) ENGINE = InnoDB;
 
 CREATE TABLE Respuesta (
@@ -60,6 +77,8 @@ CREATE TABLE Respuesta (
                            afirmativa BOOLEAN NOT NULL,
                            fechaRespuesta DATETIME NOT NULL,
                            CONSTRAINT RespuestaPK PRIMARY KEY (respuestaId),
+                           CONSTRAINT RespuestaEncuestaEmailUK UNIQUE (encuestaId, emailEmpleado),
+                           INDEX RespuestaEncuestaFechaIdx (encuestaId, fechaRespuesta, respuestaId),
                            CONSTRAINT RespuestaEncuestaFK FOREIGN KEY (encuestaId)
                                REFERENCES Encuesta(encuestaId) ON DELETE CASCADE
 ) ENGINE = InnoDB;
@@ -71,6 +90,33 @@ CREATE TABLE Respuesta (
                            afirmativa BOOLEAN NOT NULL,
                            fechaRespuesta DATETIME NOT NULL,
                            CONSTRAINT RespuestaPK PRIMARY KEY (respuestaId),
+                           CONSTRAINT RespuestaEncuestaEmailUK UNIQUE (encuestaId, emailEmpleado),
+                           INDEX RespuestaEncuestaFechaIdx (encuestaId, fechaRespuesta, respuestaId),
                            CONSTRAINT RespuestaEncuestaFK FOREIGN KEY (encuestaId)
                                REFERENCES Encuesta(encuestaId) ON DELETE CASCADE
 ) ENGINE = InnoDB;
+
+CREATE TABLE ResumenHora (
+                             encuestaId BIGINT NOT NULL,
+                             hora DATETIME NOT NULL,
+                             variacionPositivas BIGINT NOT NULL DEFAULT 0,
+                             variacionNegativas BIGINT NOT NULL DEFAULT 0,
+                             nuevosEmpleados BIGINT NOT NULL DEFAULT 0,
+                             CONSTRAINT ResumenHoraPK PRIMARY KEY (encuestaId, hora),
+                             CONSTRAINT ResumenHoraEncuestaFK FOREIGN KEY (encuestaId)
+                                 REFERENCES Encuesta(encuestaId) ON DELETE CASCADE
+) ENGINE = InnoDB;
+
+CREATE TABLE RespuestaArchivada (
+                                    respuestaId BIGINT NOT NULL,
+                                    encuestaId BIGINT NOT NULL,
+                                    emailEmpleado VARCHAR(255) NOT NULL,
+                                    afirmativa BOOLEAN NOT NULL,
+                                    fechaRespuesta DATETIME NOT NULL,
+                                    fechaFinEncuesta DATETIME NOT NULL,
+                                    CONSTRAINT RespuestaArchivadaPK PRIMARY KEY (respuestaId, fechaFinEncuesta),
+                                    INDEX RespuestaArchivadaEncuestaFechaIdx (encuestaId, fechaRespuesta, respuestaId)
+) ENGINE = InnoDB
+    PARTITION BY RANGE COLUMNS (fechaFinEncuesta) (
+        PARTITION pFuturo VALUES LESS THAN (MAXVALUE)
+    );
@@ -0,0 +1,15 @@
+ALTER TABLE Encuesta
+    ADD COLUMN finalizada BOOLEAN NOT NULL DEFAULT 0,
+    ADD INDEX EncuestaFinalizadaFechaFinIdx (finalizada, fechaFin);
+
+CREATE TABLE RespuestaArchivada (
+                                    respuestaId BIGINT NOT NULL,
+                                    encuestaId BIGINT NOT NULL,
+                                    emailEmpleado VARCHAR(255) NOT NULL,
+                                    afirmativa BOOLEAN NOT NULL,
+                                    fechaRespuesta DATETIME NOT NULL,
+                                    CONSTRAINT RespuestaArchivadaPK PRIMARY KEY (respuestaId),
+                                    INDEX RespuestaArchivadaEncuestaFechaIdx (encuestaId, fechaRespuesta, respuestaId),
+                                    CONSTRAINT RespuestaArchivadaEncuestaFK FOREIGN KEY (encuestaId)
+                                        REFERENCES Encuesta(encuestaId) ON DELETE CASCADE
+) ENGINE = InnoDB;
@@ -0,0 +1,2 @@
+ALTER TABLE Encuesta
+    ADD FULLTEXT INDEX EncuestaPreguntaFT (pregunta);
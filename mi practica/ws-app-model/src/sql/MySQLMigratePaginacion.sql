@@ -0,0 +1,5 @@
+ALTER TABLE Encuesta
+    ADD INDEX EncuestaFechaCreacionIdx (fechaCreacion, encuestaId);
+
+ALTER TABLE Respuesta
+    ADD INDEX RespuestaEncuestaFechaIdx (encuestaId, fechaRespuesta, respuestaId);
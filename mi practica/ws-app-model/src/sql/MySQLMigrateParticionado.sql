@@ -0,0 +1,19 @@
+ALTER TABLE RespuestaArchivada
+    DROP FOREIGN KEY RespuestaArchivadaEncuestaFK;
+
+ALTER TABLE RespuestaArchivada
+    ADD COLUMN fechaFinEncuesta DATETIME NULL;
+
+UPDATE RespuestaArchivada r
+    JOIN Encuesta e ON e.encuestaId = r.encuestaId
+    SET r.fechaFinEncuesta = e.fechaFin;
+
+ALTER TABLE RespuestaArchivada
+    MODIFY COLUMN fechaFinEncuesta DATETIME NOT NULL,
+    DROP PRIMARY KEY,
+    ADD CONSTRAINT RespuestaArchivadaPK PRIMARY KEY (respuestaId, fechaFinEncuesta);
+
+ALTER TABLE RespuestaArchivada
+    PARTITION BY RANGE COLUMNS (fechaFinEncuesta) (
+        PARTITION pFuturo VALUES LESS THAN (MAXVALUE)
+    );
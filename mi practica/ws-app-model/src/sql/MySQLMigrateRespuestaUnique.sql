@@ -0,0 +1,16 @@
+DELETE r FROM Respuesta r
+    JOIN Respuesta masReciente
+        ON masReciente.encuestaId = r.encuestaId
+        AND masReciente.emailEmpleado = r.emailEmpleado
+        AND (masReciente.fechaRespuesta > r.fechaRespuesta
+            OR (masReciente.fechaRespuesta = r.fechaRespuesta
+                AND masReciente.respuestaId > r.respuestaId));
+
+UPDATE Encuesta e SET
+    respuestasPositivas = (SELECT COUNT(*) FROM Respuesta r
+                           WHERE r.encuestaId = e.encuestaId AND r.afirmativa = TRUE),
+    respuestasNegativas = (SELECT COUNT(*) FROM Respuesta r
+                           WHERE r.encuestaId = e.encuestaId AND r.afirmativa = FALSE);
+
+ALTER TABLE Respuesta
+    ADD CONSTRAINT RespuestaEncuestaEmailUK UNIQUE (encuestaId, emailEmpleado);
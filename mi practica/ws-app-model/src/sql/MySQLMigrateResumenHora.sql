@@ -0,0 +1,16 @@
+CREATE TABLE ResumenHora (
+                             encuestaId BIGINT NOT NULL,
+                             hora DATETIME NOT NULL,
+                             variacionPositivas BIGINT NOT NULL DEFAULT 0,
+                             variacionNegativas BIGINT NOT NULL DEFAULT 0,
+                             nuevosEmpleados BIGINT NOT NULL DEFAULT 0,
+                             CONSTRAINT ResumenHoraPK PRIMARY KEY (encuestaId, hora),
+                             CONSTRAINT ResumenHoraEncuestaFK FOREIGN KEY (encuestaId)
+                                 REFERENCES Encuesta(encuestaId) ON DELETE CASCADE
+) ENGINE = InnoDB;
+
+INSERT INTO ResumenHora (encuestaId, hora, variacionPositivas, variacionNegativas, nuevosEmpleados)
+    SELECT encuestaId, DATE_FORMAT(fechaRespuesta, '%Y-%m-%d %H:00:00'),
+           SUM(afirmativa = TRUE), SUM(afirmativa = FALSE), COUNT(*)
+    FROM Respuesta
+    GROUP BY encuestaId, DATE_FORMAT(fechaRespuesta, '%Y-%m-%d %H:00:00');
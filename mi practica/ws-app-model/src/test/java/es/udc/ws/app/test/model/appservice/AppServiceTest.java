@@ -1,21 +1,34 @@
 package es.udc.ws.app.test.model.appservice;
 
+import es.udc.ws.app.model.encuesta.CacheSqlEncuestaDao;
 import es.udc.ws.app.model.encuesta.Encuesta;
 import es.udc.ws.app.model.encuesta.EncuestaDaoFactory;
 import es.udc.ws.app.model.encuesta.SqlEncuestaDao;
+import es.udc.ws.app.model.respuesta.AbstractSqlResouestaDao;
+import es.udc.ws.app.model.respuesta.Jdbc3CcSqlRespuestaDao;
 import es.udc.ws.app.model.respuesta.Respuesta;
 import es.udc.ws.app.model.respuesta.RespuestaDaoFactory;
+import es.udc.ws.app.model.respuesta.ResultadoUpsert;
 import es.udc.ws.app.model.respuesta.SqlRespuestaDao;
+import es.udc.ws.app.model.resumen.ResumenHora;
+import es.udc.ws.app.model.surveyservice.AsyncSurveyService;
+import es.udc.ws.app.model.surveyservice.AsyncSurveyServiceImpl;
+import es.udc.ws.app.model.surveyservice.Pagina;
+import es.udc.ws.app.model.surveyservice.ResultadoImportacion;
 import es.udc.ws.app.model.surveyservice.SurveyService;
 import es.udc.ws.app.model.surveyservice.SurveyServiceFactory;
+import es.udc.ws.app.model.surveyservice.SurveyServiceImpl;
 import es.udc.ws.app.model.surveyservice.exceptions.EncuestaCanceladaException;
 import es.udc.ws.app.model.surveyservice.exceptions.EncuestaFinalizadaException;
 import es.udc.ws.app.model.surveyservice.exceptions.FechaFinExpiradaException;
 import es.udc.ws.util.exceptions.InputValidationException;
 import es.udc.ws.util.exceptions.InstanceNotFoundException;
-import es.udc.ws.util.sql.SimpleDataSource;
+import es.udc.ws.util.sql.PooledDataSource;
 import es.udc.ws.util.sql.DataSourceLocator;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import es.udc.ws.app.model.encuesta.Jdbc3CcSqlEncuestaDao;
 
 
@@ -23,8 +36,25 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
 import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static es.udc.ws.app.model.util.ModelConstants.SURVEY_DATA_SOURCE;
@@ -37,7 +67,7 @@ public class AppServiceTest {
     @BeforeAll
     public static void init() {
         System.setProperty("test.mode", "true");
-        DataSource dataSource = new SimpleDataSource();
+        DataSource dataSource = new PooledDataSource();
         DataSourceLocator.addDataSource(SURVEY_DATA_SOURCE, dataSource);
         surveyService = SurveyServiceFactory.getService();
     }
@@ -140,6 +170,77 @@ public class AppServiceTest {
         assertTrue(todas.size() >= 2);
     }
 
+    @Test
+    public void testBuscarEncuestasFullText() throws Exception {
+
+        Encuesta relevante = crearEncuestaDePrueba("Clasificacion clasificacion clasificacion zeta",
+                LocalDateTime.now().plusDays(5));
+        Encuesta reciente = crearEncuestaDePrueba("Clasificacion quincenal", LocalDateTime.now().plusDays(5));
+        Encuesta ajena = crearEncuestaDePrueba("Pregunta ajena", LocalDateTime.now().plusDays(5));
+
+        try {
+            assertEquals(List.of(relevante, reciente), surveyService.buscarEncuestas("clasificacion"));
+
+            assertEquals(List.of(reciente), surveyService.buscarEncuestas("CLASIF QUINC"));
+            assertEquals(List.of(relevante), surveyService.buscarEncuestas("clasificacion zet"));
+            assertTrue(surveyService.buscarEncuestas("clasificacion ajena").isEmpty());
+
+            assertTrue(surveyService.buscarEncuestas("lasificacion").isEmpty());
+
+            assertEquals(List.of(reciente), surveyService.buscarEncuestas("n qu"));
+        } finally {
+            eliminarEncuestas(relevante, reciente, ajena);
+        }
+    }
+
+    @Test
+    public void testBuscarEncuestasLike() throws Exception {
+
+        Encuesta primera = crearEncuestaDePrueba("Clasificacion quincenal", LocalDateTime.now().plusDays(5));
+        Encuesta segunda = crearEncuestaDePrueba("Clasificacion clasificacion clasificacion zeta",
+                LocalDateTime.now().plusDays(5));
+
+        try (Connection conn = DataSourceLocator.getDataSource(SURVEY_DATA_SOURCE).getConnection()) {
+
+            SqlEncuestaDao daoLike = new Jdbc3CcSqlEncuestaDao(false);
+            assertEquals(Set.of(primera, segunda), new HashSet<>(daoLike.findByKeywords(conn, "lasificacion", true)));
+            assertEquals(List.of(primera), daoLike.findByKeywords(conn, "ion quin", true));
+            assertTrue(daoLike.findByKeywords(conn, "quincenal clasificacion", true).isEmpty());
+
+            SqlEncuestaDao daoFullText = new Jdbc3CcSqlEncuestaDao(true);
+            assertEquals(Set.of(primera, segunda),
+                    new HashSet<>(daoFullText.findByKeywords(sinIndiceFullText(conn), "clasificacion", true)));
+            assertEquals(Set.of(primera, segunda),
+                    new HashSet<>(daoFullText.findByKeywords(conn, "lasificacion", true)));
+            assertEquals(List.of(primera), daoFullText.findByKeywords(conn, "clasificacion quin", true));
+        } finally {
+            eliminarEncuestas(primera, segunda);
+        }
+    }
+
+    private static Connection sinIndiceFullText(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("prepareStatement") && ((String) args[0]).contains("MATCH")) {
+                        throw new SQLException("Can't find FULLTEXT index matching the column list", "HY000", 1191);
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private void eliminarEncuestas(Encuesta... encuestas) throws Exception {
+        try (Connection conn = DataSourceLocator.getDataSource(SURVEY_DATA_SOURCE).getConnection()) {
+            SqlEncuestaDao dao = new Jdbc3CcSqlEncuestaDao();
+            for (Encuesta encuesta : encuestas) {
+                dao.remove(conn, encuesta.getEncuestaId());
+            }
+        }
+    }
+
     @Test
     public void testBuscarEncuestasNoIncluyeCanceladasNiExpiradas()
             throws Exception {
@@ -158,6 +259,50 @@ public class AppServiceTest {
     }
 
 
+    @Test
+    public void testBuscarEncuestasPaginadas() throws Exception {
+
+        String clave = "Paginada" + System.nanoTime();
+        List<Long> creadas = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            creadas.add(crearEncuestaDePrueba(clave + " " + i, LocalDateTime.now().plusDays(1)).getEncuestaId());
+        }
+
+        List<Long> recorridas = new ArrayList<>();
+        String cursor = null;
+        int paginas = 0;
+        do {
+            Pagina<Encuesta> pagina = surveyService.buscarEncuestas(clave, 3, cursor);
+            assertTrue(pagina.getElementos().size() <= 3);
+            pagina.getElementos().forEach(e -> recorridas.add(e.getEncuestaId()));
+            cursor = pagina.getSiguienteCursor();
+            paginas++;
+        } while (cursor != null);
+
+        assertEquals(3, paginas);
+        assertEquals(7, recorridas.size());
+        assertTrue(recorridas.containsAll(creadas));
+
+        assertThrows(InputValidationException.class, () -> surveyService.buscarEncuestas(clave, 0, null));
+        assertThrows(InputValidationException.class, () -> surveyService.buscarEncuestas(clave, 3, "no-es-un-cursor"));
+    }
+
+    @Test
+    public void testBuscarEncuestasSinConexionesAnidadas() throws Exception {
+
+        PooledDataSource dataSource = (PooledDataSource) DataSourceLocator.getDataSource(SURVEY_DATA_SOURCE);
+        long anidadas = dataSource.getNestedBorrowCount();
+
+        surveyService.buscarEncuestas("café");
+        surveyService.buscarEncuestas("café", 3, null);
+        assertEquals(anidadas, dataSource.getNestedBorrowCount());
+
+        try (Connection connection = dataSource.getConnection()) {
+            assertThrows(SQLException.class, dataSource::getConnection);
+        }
+        assertEquals(anidadas + 1, dataSource.getNestedBorrowCount());
+    }
+
     @Test
     public void testResponderEncuesta()
             throws Exception {
@@ -187,6 +332,424 @@ public class AppServiceTest {
         assertFalse(respuestas.get(0).isAfirmativa());
     }
 
+    @Test
+    public void testResponderEncuestaConcurrente() throws Exception {
+
+        Encuesta encuesta = crearEncuestaDePrueba("¿Votación concurrente?", LocalDateTime.now().plusDays(5));
+        Long encuestaId = encuesta.getEncuestaId();
+
+        int empleados = 2000;
+        int votos = 8000;
+        ExecutorService executor = Executors.newFixedThreadPool(64);
+        List<Future<Respuesta>> resultados = new ArrayList<>();
+
+        for (int i = 0; i < votos; i++) {
+            String email = "concurrente" + (i % empleados) + "@udc.es";
+            boolean afirmativa = ThreadLocalRandom.current().nextBoolean();
+            resultados.add(executor.submit(() -> surveyService.responderEncuesta(encuestaId, email, afirmativa)));
+        }
+
+        for (Future<Respuesta> resultado : resultados) {
+            assertNotNull(resultado.get().getRespuestaId());
+        }
+        executor.shutdown();
+
+        List<Respuesta> respuestas = surveyService.obtenerRespuestas(encuestaId, false);
+        long afirmativas = respuestas.stream().filter(Respuesta::isAfirmativa).count();
+        Encuesta encuestaFinal = surveyService.buscarEncuestaPorId(encuestaId);
+
+        assertEquals(empleados, respuestas.size());
+        assertEquals(afirmativas, encuestaFinal.getRespuestasPositivas());
+        assertEquals(empleados - afirmativas, encuestaFinal.getRespuestasNegativas());
+    }
+
+    @Test
+    public void testResponderEncuestaEscrituraDiferida() throws Exception {
+
+        SurveyServiceImpl servicioDiferido = new SurveyServiceImpl(3600000);
+
+        try {
+            Encuesta encuesta = crearEncuestaDePrueba("¿Escritura diferida?", LocalDateTime.now().plusDays(5));
+            Long encuestaId = encuesta.getEncuestaId();
+
+            servicioDiferido.responderEncuesta(encuestaId, "diferido1@udc.es", true);
+            servicioDiferido.responderEncuesta(encuestaId, "diferido2@udc.es", false);
+            servicioDiferido.responderEncuesta(encuestaId, "diferido1@udc.es", false);
+
+            assertEquals(0, surveyService.buscarEncuestaPorId(encuestaId).getTotalRespuestas());
+
+            Encuesta conPendientes = servicioDiferido.buscarEncuestaPorId(encuestaId);
+            assertEquals(0, conPendientes.getRespuestasPositivas());
+            assertEquals(2, conPendientes.getRespuestasNegativas());
+
+            servicioDiferido.volcarContadores();
+
+            Encuesta volcada = surveyService.buscarEncuestaPorId(encuestaId);
+            assertEquals(0, volcada.getRespuestasPositivas());
+            assertEquals(2, volcada.getRespuestasNegativas());
+            assertEquals(volcada, servicioDiferido.buscarEncuestaPorId(encuestaId));
+
+            try (Connection connection = DataSourceLocator.getDataSource(SURVEY_DATA_SOURCE).getConnection()) {
+                EncuestaDaoFactory.getDao().updateContadores(connection, encuestaId, 7, 7);
+            }
+            servicioDiferido.recalcularContadores();
+
+            Encuesta recalculada = surveyService.buscarEncuestaPorId(encuestaId);
+            assertEquals(0, recalculada.getRespuestasPositivas());
+            assertEquals(2, recalculada.getRespuestasNegativas());
+        } finally {
+            servicioDiferido.cerrar();
+        }
+    }
+
+    @Test
+    public void testVolcadoConcurrenteEscrituraDiferida() throws Exception {
+
+        SurveyServiceImpl servicioDiferido = new SurveyServiceImpl(3600000);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        Long encuestaId;
+
+        try {
+            encuestaId = crearEncuestaDePrueba("¿Volcados concurrentes?", LocalDateTime.now().plusDays(5))
+                    .getEncuestaId();
+
+            for (int ronda = 0; ronda < 4; ronda++) {
+                for (int i = 0; i < 100; i++) {
+                    servicioDiferido.responderEncuesta(encuestaId, "volcado" + ronda + "." + i + "@udc.es",
+                            i % 4 != 0);
+                }
+
+                CountDownLatch salida = new CountDownLatch(1);
+                List<Future<?>> volcados = new ArrayList<>();
+                for (int i = 0; i < 16; i++) {
+                    volcados.add(executor.submit(() -> {
+                        salida.await();
+                        servicioDiferido.volcarContadores();
+                        return null;
+                    }));
+                }
+                salida.countDown();
+                for (Future<?> volcado : volcados) {
+                    volcado.get();
+                }
+
+                Encuesta volcada = surveyService.buscarEncuestaPorId(encuestaId);
+                assertEquals(75 * (ronda + 1), volcada.getRespuestasPositivas());
+                assertEquals(25 * (ronda + 1), volcada.getRespuestasNegativas());
+            }
+        } finally {
+            executor.shutdown();
+            servicioDiferido.cerrar();
+        }
+
+        Encuesta volcada = surveyService.buscarEncuestaPorId(encuestaId);
+        assertEquals(300, volcada.getRespuestasPositivas());
+        assertEquals(100, volcada.getRespuestasNegativas());
+    }
+
+    @Test
+    public void testResponderEncuestasConcurrenteEscrituraDiferida() throws Exception {
+
+        SurveyServiceImpl servicioDiferido = new SurveyServiceImpl(3600000);
+        ExecutorService executor = Executors.newFixedThreadPool(17);
+        Long encuestaId;
+
+        try {
+            encuestaId = crearEncuestaDePrueba("¿Importación con votos sueltos?", LocalDateTime.now().plusDays(5))
+                    .getEncuestaId();
+
+            int empleados = 500;
+            for (int ronda = 0; ronda < 4; ronda++) {
+                List<Respuesta> respuestas = new ArrayList<>();
+                for (int i = 0; i < empleados; i++) {
+                    respuestas.add(new Respuesta(encuestaId, "importacion" + i + "@udc.es", (i + ronda) % 3 != 0));
+                }
+
+                CountDownLatch salida = new CountDownLatch(1);
+                List<Future<?>> tareas = new ArrayList<>();
+                tareas.add(executor.submit(() -> {
+                    salida.await();
+                    return servicioDiferido.responderEncuestas(respuestas);
+                }));
+                for (int hilo = 0; hilo < 16; hilo++) {
+                    int primero = hilo;
+                    tareas.add(executor.submit(() -> {
+                        salida.await();
+                        for (int i = primero; i < empleados; i += 16) {
+                            servicioDiferido.responderEncuesta(encuestaId, "importacion" + i + "@udc.es",
+                                    ThreadLocalRandom.current().nextBoolean());
+                        }
+                        return null;
+                    }));
+                }
+                salida.countDown();
+                for (Future<?> tarea : tareas) {
+                    tarea.get();
+                }
+            }
+
+            servicioDiferido.volcarContadores();
+        } finally {
+            executor.shutdown();
+            servicioDiferido.cerrar();
+        }
+
+        List<Respuesta> respuestas = surveyService.obtenerRespuestas(encuestaId, false);
+        long afirmativas = respuestas.stream().filter(Respuesta::isAfirmativa).count();
+        Encuesta encuestaFinal = surveyService.buscarEncuestaPorId(encuestaId);
+
+        assertEquals(500, respuestas.size());
+        assertEquals(afirmativas, encuestaFinal.getRespuestasPositivas());
+        assertEquals(500 - afirmativas, encuestaFinal.getRespuestasNegativas());
+    }
+
+    @Test
+    public void testRecalcularContadoresConcurrenteEscrituraDiferida() throws Exception {
+
+        SurveyServiceImpl servicioDiferido = new SurveyServiceImpl(3600000);
+        ExecutorService executor = Executors.newFixedThreadPool(17);
+        Long encuestaId;
+
+        try {
+            encuestaId = crearEncuestaDePrueba("¿Recalculo con votos sueltos?", LocalDateTime.now().plusDays(5))
+                    .getEncuestaId();
+
+            CountDownLatch salida = new CountDownLatch(1);
+            CountDownLatch votando = new CountDownLatch(16);
+            List<Future<?>> tareas = new ArrayList<>();
+            for (int hilo = 0; hilo < 16; hilo++) {
+                int primero = hilo;
+                tareas.add(executor.submit(() -> {
+                    salida.await();
+                    try {
+                        for (int i = primero; i < 320; i += 16) {
+                            servicioDiferido.responderEncuesta(encuestaId, "recalculo" + i + "@udc.es", i % 4 != 0);
+                        }
+                    } finally {
+                        votando.countDown();
+                    }
+                    return null;
+                }));
+            }
+            tareas.add(executor.submit(() -> {
+                salida.await();
+                do {
+                    servicioDiferido.recalcularContadores();
+                } while (votando.getCount() > 0);
+                return null;
+            }));
+            salida.countDown();
+            for (Future<?> tarea : tareas) {
+                tarea.get();
+            }
+
+            Encuesta conPendientes = servicioDiferido.buscarEncuestaPorId(encuestaId);
+            assertEquals(240, conPendientes.getRespuestasPositivas());
+            assertEquals(80, conPendientes.getRespuestasNegativas());
+
+            servicioDiferido.volcarContadores();
+        } finally {
+            executor.shutdown();
+            servicioDiferido.cerrar();
+        }
+
+        Encuesta volcada = surveyService.buscarEncuestaPorId(encuestaId);
+        assertEquals(240, volcada.getRespuestasPositivas());
+        assertEquals(80, volcada.getRespuestasNegativas());
+    }
+
+    @Test
+    public void testResumenEscrituraDiferidaConcurrente() throws Exception {
+
+        SurveyServiceImpl servicioDiferido = new SurveyServiceImpl(3600000);
+        ExecutorService executor = Executors.newFixedThreadPool(17);
+        Long encuestaId;
+
+        try {
+            encuestaId = crearEncuestaDePrueba("¿Resumen diferido?", LocalDateTime.now().plusDays(5))
+                    .getEncuestaId();
+            servicioDiferido.responderEncuesta(encuestaId, "resumen@udc.es", true);
+            servicioDiferido.volcarContadores();
+            assertArrayEquals(new long[] {1, 0, 1},
+                    totalesResumen(surveyService.obtenerResumen(encuestaId, null, null)));
+
+            CountDownLatch bloqueado = new CountDownLatch(1);
+            CountDownLatch liberar = new CountDownLatch(1);
+            Future<?> bloqueo = executor.submit(() -> {
+                try (Connection connection = DataSourceLocator.getDataSource(SURVEY_DATA_SOURCE).getConnection()) {
+                    connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+                    connection.setAutoCommit(false);
+                    try (PreparedStatement preparedStatement = connection.prepareStatement(
+                            "SELECT hora FROM ResumenHora WHERE encuestaId = ? FOR UPDATE")) {
+                        preparedStatement.setLong(1, encuestaId);
+                        preparedStatement.executeQuery();
+                    }
+                    bloqueado.countDown();
+                    liberar.await();
+                    connection.rollback();
+                }
+                return null;
+            });
+            bloqueado.await();
+
+            try {
+                CountDownLatch salida = new CountDownLatch(1);
+                List<Future<?>> votos = new ArrayList<>();
+                for (int hilo = 0; hilo < 16; hilo++) {
+                    int primero = hilo;
+                    votos.add(executor.submit(() -> {
+                        salida.await();
+                        for (int i = primero; i < 320; i += 16) {
+                            servicioDiferido.responderEncuesta(encuestaId, "resumen" + i + "@udc.es", i % 4 != 0);
+                        }
+                        return null;
+                    }));
+                }
+                salida.countDown();
+                for (Future<?> voto : votos) {
+                    voto.get(30, TimeUnit.SECONDS);
+                }
+            } finally {
+                liberar.countDown();
+                bloqueo.get();
+            }
+
+            assertArrayEquals(new long[] {1, 0, 1},
+                    totalesResumen(surveyService.obtenerResumen(encuestaId, null, null)));
+            assertArrayEquals(new long[] {241, 80, 321},
+                    totalesResumen(servicioDiferido.obtenerResumen(encuestaId, null, null)));
+
+            servicioDiferido.volcarContadores();
+
+            assertArrayEquals(new long[] {241, 80, 321},
+                    totalesResumen(surveyService.obtenerResumen(encuestaId, null, null)));
+            assertEquals(surveyService.obtenerResumen(encuestaId, null, null),
+                    servicioDiferido.obtenerResumen(encuestaId, null, null));
+        } finally {
+            executor.shutdown();
+            servicioDiferido.cerrar();
+        }
+    }
+
+    private static long[] totalesResumen(List<ResumenHora> resumen) {
+        long[] totales = new long[3];
+        for (ResumenHora hora : resumen) {
+            totales[0] += hora.getVariacionPositivas();
+            totales[1] += hora.getVariacionNegativas();
+            totales[2] += hora.getNuevosEmpleados();
+        }
+        return totales;
+    }
+
+    @Test
+    public void testResponderEncuestas() throws Exception {
+
+        Encuesta encuesta = crearEncuestaDePrueba("Encuesta importada", LocalDateTime.now().plusDays(1));
+        Encuesta otra = crearEncuestaDePrueba("Otra encuesta importada", LocalDateTime.now().plusDays(1));
+        Long encuestaId = encuesta.getEncuestaId();
+
+        surveyService.responderEncuesta(encuestaId, "previa.si@udc.es", true);
+        surveyService.responderEncuesta(encuestaId, "previa.no@udc.es", false);
+
+        int total = 5000;
+        List<Respuesta> respuestas = new ArrayList<>();
+        for (int i = 0; i < total; i++) {
+            respuestas.add(new Respuesta(encuestaId, "importado" + i + "@udc.es", i % 4 != 0));
+        }
+        respuestas.add(new Respuesta(null, encuestaId, "previa.si@udc.es", false,
+                LocalDateTime.now().withNano(0).plusSeconds(1)));
+        respuestas.add(new Respuesta(encuestaId, "previa.no@udc.es", false));
+        respuestas.add(new Respuesta(otra.getEncuestaId(), "importado0@udc.es", true));
+        respuestas.add(new Respuesta(otra.getEncuestaId(), "importado0@udc.es", false));
+
+        ResultadoImportacion resultado = surveyService.responderEncuestas(respuestas);
+
+        assertEquals(total + 1, resultado.getNuevas());
+        assertEquals(1, resultado.getCambiadas());
+        assertEquals(1, resultado.getRepetidas());
+
+        Encuesta importada = surveyService.buscarEncuestaPorId(encuestaId);
+        assertEquals(total * 3 / 4, importada.getRespuestasPositivas());
+        assertEquals(total / 4 + 2, importada.getRespuestasNegativas());
+        assertEquals(total + 2, surveyService.obtenerRespuestas(encuestaId, false).size());
+
+        Encuesta otraImportada = surveyService.buscarEncuestaPorId(otra.getEncuestaId());
+        assertEquals(0, otraImportada.getRespuestasPositivas());
+        assertEquals(1, otraImportada.getRespuestasNegativas());
+
+        ResultadoImportacion repetida = surveyService.responderEncuestas(respuestas.subList(0, 10));
+        assertEquals(0, repetida.getNuevas());
+        assertEquals(10, repetida.getRepetidas());
+
+        LocalDateTime anterior = LocalDateTime.now().minusDays(1).withNano(0);
+        ResultadoImportacion atrasada = surveyService.responderEncuestas(List.of(
+                new Respuesta(null, encuestaId, "previa.si@udc.es", true, anterior),
+                new Respuesta(null, encuestaId, "previa.no@udc.es", true, anterior)));
+        assertEquals(0, atrasada.getCambiadas());
+        assertEquals(2, atrasada.getRepetidas());
+        assertEquals(importada, surveyService.buscarEncuestaPorId(encuestaId));
+        assertTrue(surveyService.obtenerRespuestas(encuestaId, false).stream()
+                .filter(r -> r.getEmailEmpleado().startsWith("previa."))
+                .noneMatch(r -> r.isAfirmativa() || r.getFechaRespuesta().equals(anterior)));
+
+        Encuesta cancelada = crearEncuestaDePrueba("Encuesta importada cancelada", LocalDateTime.now().plusDays(1));
+        surveyService.cancelarEncuesta(cancelada.getEncuestaId());
+        Encuesta sinImportar = crearEncuestaDePrueba("Encuesta sin importar", LocalDateTime.now().plusDays(1));
+
+        assertThrows(EncuestaCanceladaException.class, () -> surveyService.responderEncuestas(List.of(
+                new Respuesta(sinImportar.getEncuestaId(), "a@udc.es", true),
+                new Respuesta(cancelada.getEncuestaId(), "a@udc.es", true))));
+        assertTrue(surveyService.obtenerRespuestas(sinImportar.getEncuestaId(), false).isEmpty());
+
+        assertThrows(InstanceNotFoundException.class, () -> surveyService.responderEncuestas(List.of(
+                new Respuesta(ID_INEXISTENTE, "a@udc.es", true))));
+        assertThrows(InputValidationException.class, () -> surveyService.responderEncuestas(List.of(
+                new Respuesta(encuestaId, "", true))));
+    }
+
+    @Test
+    public void testUpsertRespuestaRepetida() throws Exception {
+
+        Encuesta encuesta = crearEncuestaDePrueba("¿Upsert repetido?", LocalDateTime.now().plusDays(1));
+        Long encuestaId = encuesta.getEncuestaId();
+        LocalDateTime primera = LocalDateTime.now().minusHours(3).withNano(0);
+
+        try (Connection conn = DataSourceLocator.getDataSource(SURVEY_DATA_SOURCE).getConnection()) {
+            Jdbc3CcSqlRespuestaDao jdbc3CcDao = new Jdbc3CcSqlRespuestaDao();
+            AbstractSqlResouestaDao daoSinUpsertNativo = new AbstractSqlResouestaDao() {
+                @Override
+                public Respuesta create(Connection connection, Respuesta respuesta) {
+                    return jdbc3CcDao.create(connection, respuesta);
+                }
+            };
+            List<AbstractSqlResouestaDao> daos = List.of(daoSinUpsertNativo, jdbc3CcDao);
+            for (int i = 0; i < daos.size(); i++) {
+                AbstractSqlResouestaDao dao = daos.get(i);
+                String email = "upsert" + i + "@udc.es";
+
+                Respuesta nueva = new Respuesta(null, encuestaId, email, true, primera);
+                assertEquals(ResultadoUpsert.NUEVA, dao.upsert(conn, nueva));
+
+                Respuesta repetida = new Respuesta(null, encuestaId, email, true, primera.plusHours(1));
+                assertEquals(ResultadoUpsert.REPETIDA, dao.upsert(conn, repetida));
+                assertEquals(nueva.getRespuestaId(), repetida.getRespuestaId());
+                assertEquals(primera, repetida.getFechaRespuesta());
+                Respuesta guardada = dao.findByEmailAndEncuestaId(conn, encuestaId, email);
+                assertTrue(guardada.isAfirmativa());
+                assertEquals(primera, guardada.getFechaRespuesta());
+
+                Respuesta cambiada = new Respuesta(null, encuestaId, email, false, primera.plusHours(2));
+                assertEquals(ResultadoUpsert.CAMBIADA, dao.upsert(conn, cambiada));
+                assertEquals(nueva.getRespuestaId(), cambiada.getRespuestaId());
+                guardada = dao.findByEmailAndEncuestaId(conn, encuestaId, email);
+                assertFalse(guardada.isAfirmativa());
+                assertEquals(primera.plusHours(2), guardada.getFechaRespuesta());
+            }
+        } finally {
+            eliminarEncuestas(encuesta);
+        }
+    }
+
     @Test
     public void testResponderEncuestaNoEncontrada() {
         assertThrows(InstanceNotFoundException.class, () -> {
@@ -243,6 +806,21 @@ public class AppServiceTest {
         assertTrue(encuestaDeBD.isCancelada());
     }
 
+    @Test
+    public void testVersionEncuesta() throws Exception {
+        Encuesta encuesta = crearEncuestaDePrueba("Encuesta versionada", LocalDateTime.now().plusDays(1));
+        Long encuestaId = encuesta.getEncuestaId();
+        assertEquals(0, surveyService.buscarEncuestaPorId(encuestaId).getVersion());
+
+        surveyService.responderEncuesta(encuestaId, "version@udc.es", true);
+        long respondida = surveyService.buscarEncuestaPorId(encuestaId).getVersion();
+        assertTrue(respondida > 0);
+        assertEquals(respondida, surveyService.buscarEncuestas("Encuesta versionada").get(0).getVersion());
+
+        surveyService.cancelarEncuesta(encuestaId);
+        assertTrue(surveyService.buscarEncuestaPorId(encuestaId).getVersion() > respondida);
+    }
+
 
     @Test
     public void testCancelarEncuestaNoEncontrada() {
@@ -295,6 +873,40 @@ public class AppServiceTest {
 
     }
 
+    @Test
+    public void testObtenerRespuestasPaginadas() throws Exception {
+        Encuesta encuesta = crearEncuestaDePrueba("Encuesta con respuestas paginadas", LocalDateTime.now().plusDays(1));
+
+        for (int i = 0; i < 5; i++) {
+            surveyService.responderEncuesta(encuesta.getEncuestaId(), "paginado" + i + "@udc.es", i % 2 == 0);
+        }
+
+        Pagina<Respuesta> primera = surveyService.obtenerRespuestas(encuesta.getEncuestaId(), false, 2, null);
+        assertEquals(2, primera.getElementos().size());
+        assertTrue(primera.haySiguiente());
+
+        Pagina<Respuesta> segunda = surveyService.obtenerRespuestas(encuesta.getEncuestaId(), false, 2,
+                primera.getSiguienteCursor());
+        assertEquals(2, segunda.getElementos().size());
+
+        Pagina<Respuesta> tercera = surveyService.obtenerRespuestas(encuesta.getEncuestaId(), false, 2,
+                segunda.getSiguienteCursor());
+        assertEquals(1, tercera.getElementos().size());
+        assertFalse(tercera.haySiguiente());
+
+        List<Respuesta> todas = new ArrayList<>(primera.getElementos());
+        todas.addAll(segunda.getElementos());
+        todas.addAll(tercera.getElementos());
+        assertEquals(5, todas.stream().map(Respuesta::getRespuestaId).distinct().count());
+
+        Pagina<Respuesta> afirmativas = surveyService.obtenerRespuestas(encuesta.getEncuestaId(), true, 10, null);
+        assertEquals(3, afirmativas.getElementos().size());
+        assertFalse(afirmativas.haySiguiente());
+
+        assertThrows(InstanceNotFoundException.class, () ->
+                surveyService.obtenerRespuestas(ID_INEXISTENTE, false, 2, null));
+    }
+
     @Test
     public void testObtenerRespuestasNoEncontrada() {
         assertThrows(InstanceNotFoundException.class, () -> {
@@ -305,6 +917,142 @@ public class AppServiceTest {
         });
     }
 
+    @Test
+    public void testArchivarEncuestas() throws Exception {
+
+        SurveyServiceImpl servicio = new SurveyServiceImpl(0);
+        SqlRespuestaDao respuestaDao = RespuestaDaoFactory.getDao();
+        DataSource dataSource = DataSourceLocator.getDataSource(SURVEY_DATA_SOURCE);
+
+        try {
+            Encuesta finalizada = crearEncuestaDePrueba("Encuesta archivable", LocalDateTime.now().minusDays(1));
+            Encuesta abierta = crearEncuestaDePrueba("Encuesta no archivable", LocalDateTime.now().plusDays(1));
+            Long finalizadaId = finalizada.getEncuestaId();
+            LocalDateTime fecha = LocalDateTime.now().minusDays(2).withNano(0);
+
+            int total = 2500;
+            List<Respuesta> respuestas = new ArrayList<>();
+            for (int i = 0; i < total; i++) {
+                respuestas.add(new Respuesta(null, finalizadaId, "archivado" + i + "@udc.es", i % 2 == 0,
+                        fecha.plusSeconds(i / 3)));
+            }
+            try (Connection connection = dataSource.getConnection()) {
+                respuestaDao.createBatch(connection, respuestas);
+            }
+            servicio.recalcularContadores();
+            surveyService.responderEncuesta(abierta.getEncuestaId(), "abierta@udc.es", true);
+
+            assertTrue(servicio.archivarEncuestas() >= total);
+            assertEquals(0, servicio.archivarEncuestas());
+
+            try (Connection connection = dataSource.getConnection()) {
+                assertTrue(respuestaDao.findByEncuestaId(connection, finalizadaId, false).isEmpty());
+                assertEquals(total, respuestaDao.findArchivadasByEncuestaId(connection, finalizadaId,
+                        finalizada.getFechaFin(), false, null, null, 0).size());
+                assertEquals(1, respuestaDao.findByEncuestaId(connection, abierta.getEncuestaId(), false).size());
+            }
+
+            assertEquals(total, surveyService.obtenerRespuestas(finalizadaId, false).size());
+            assertEquals(total / 2, surveyService.obtenerRespuestas(finalizadaId, true).size());
+
+            List<Respuesta> recorridas = new ArrayList<>();
+            String cursor = null;
+            do {
+                Pagina<Respuesta> pagina = surveyService.obtenerRespuestas(finalizadaId, false, 700, cursor);
+                recorridas.addAll(pagina.getElementos());
+                cursor = pagina.getSiguienteCursor();
+            } while (cursor != null);
+            assertEquals(surveyService.obtenerRespuestas(finalizadaId, false), recorridas);
+
+            servicio.recalcularContadores();
+            Encuesta recalculada = surveyService.buscarEncuestaPorId(finalizadaId);
+            assertEquals(total / 2, recalculada.getRespuestasPositivas());
+            assertEquals(total / 2, recalculada.getRespuestasNegativas());
+
+            try (Connection connection = dataSource.getConnection()) {
+                EncuestaDaoFactory.getDao().remove(connection, finalizadaId);
+                assertTrue(respuestaDao.findArchivadasByEncuestaId(connection, finalizadaId,
+                        finalizada.getFechaFin(), false, null, null, 0).isEmpty());
+            }
+        } finally {
+            servicio.cerrar();
+        }
+    }
+
+    @Test
+    public void testMantenerParticionesArchivo() throws Exception {
+
+        SqlRespuestaDao respuestaDao = RespuestaDaoFactory.getDao();
+        DataSource dataSource = DataSourceLocator.getDataSource(SURVEY_DATA_SOURCE);
+        YearMonth hasta = YearMonth.now().plusMonths(2);
+
+        try (Connection connection = dataSource.getConnection()) {
+            respuestaDao.mantenerParticionesArchivo(connection, hasta, null);
+            List<String> particiones = particionesArchivo(connection);
+            respuestaDao.mantenerParticionesArchivo(connection, hasta, null);
+
+            assertEquals(particiones, particionesArchivo(connection));
+            assertTrue(particiones.contains("p" + hasta.format(DateTimeFormatter.ofPattern("yyyyMM"))));
+            assertTrue(particiones.contains("pFuturo"));
+        }
+    }
+
+    private List<String> particionesArchivo(Connection connection) throws Exception {
+        List<String> particiones = new ArrayList<>();
+        try (PreparedStatement preparedStatement = connection.prepareStatement(
+                "SELECT PARTITION_NAME FROM INFORMATION_SCHEMA.PARTITIONS WHERE TABLE_SCHEMA = DATABASE()"
+                        + " AND TABLE_NAME = 'RespuestaArchivada' ORDER BY PARTITION_ORDINAL_POSITION")) {
+            ResultSet rs = preparedStatement.executeQuery();
+            while (rs.next()) {
+                particiones.add(rs.getString(1));
+            }
+        }
+        return particiones;
+    }
+
+    @Test
+    public void testObtenerResumen() throws Exception {
+
+        Encuesta encuesta = crearEncuestaDePrueba("Encuesta resumida", LocalDateTime.now().plusDays(1));
+        Long encuestaId = encuesta.getEncuestaId();
+        LocalDateTime horaAnterior = LocalDateTime.now().minusHours(3).truncatedTo(ChronoUnit.HOURS);
+
+        surveyService.responderEncuestas(List.of(
+                new Respuesta(null, encuestaId, "a@udc.es", true, horaAnterior.plusMinutes(5)),
+                new Respuesta(null, encuestaId, "b@udc.es", true, horaAnterior.plusMinutes(10)),
+                new Respuesta(null, encuestaId, "c@udc.es", false, horaAnterior.plusMinutes(15))));
+
+        surveyService.responderEncuesta(encuestaId, "a@udc.es", false);
+        surveyService.responderEncuesta(encuestaId, "b@udc.es", true);
+        surveyService.responderEncuesta(encuestaId, "d@udc.es", true);
+
+        List<ResumenHora> resumen = surveyService.obtenerResumen(encuestaId, null, null);
+
+        assertEquals(new ResumenHora(encuestaId, horaAnterior, 2, 1, 3), resumen.get(0));
+        long positivas = 0;
+        long negativas = 0;
+        long empleados = 0;
+        for (ResumenHora hora : resumen) {
+            positivas += hora.getVariacionPositivas();
+            negativas += hora.getVariacionNegativas();
+            empleados += hora.getNuevosEmpleados();
+        }
+        Encuesta actual = surveyService.buscarEncuestaPorId(encuestaId);
+        assertEquals(actual.getRespuestasPositivas(), positivas);
+        assertEquals(actual.getRespuestasNegativas(), negativas);
+        assertEquals(4, empleados);
+
+        List<ResumenHora> recientes = surveyService.obtenerResumen(encuestaId, horaAnterior.plusHours(1), null);
+        assertEquals(resumen.subList(1, resumen.size()), recientes);
+        assertEquals(List.of(resumen.get(0)),
+                surveyService.obtenerResumen(encuestaId, horaAnterior.plusMinutes(30), horaAnterior.plusHours(1)));
+
+        assertThrows(InputValidationException.class, () ->
+                surveyService.obtenerResumen(encuestaId, horaAnterior, horaAnterior));
+        assertThrows(InstanceNotFoundException.class, () ->
+                surveyService.obtenerResumen(ID_INEXISTENTE, null, null));
+    }
+
 
 
     @Test
@@ -430,6 +1178,186 @@ public class AppServiceTest {
         assertNotNull(respuestaDao);
     }
 
+    @Test
+    public void testCacheSqlEncuestaDao() throws Exception {
+
+        var ds = DataSourceLocator.getDataSource(SURVEY_DATA_SOURCE);
+        try (Connection conn = ds.getConnection()) {
+            CacheSqlEncuestaDao dao = new CacheSqlEncuestaDao(new Jdbc3CcSqlEncuestaDao(), 2, 60000);
+
+            Encuesta primera = dao.create(conn, new Encuesta("Cache 1", LocalDateTime.now().plusDays(1).withNano(0)));
+            Encuesta segunda = new Jdbc3CcSqlEncuestaDao().create(conn,
+                    new Encuesta("Cache 2", LocalDateTime.now().plusDays(1).withNano(0)));
+
+            assertEquals(primera, dao.findForUpdate(conn, primera.getEncuestaId()));
+            assertEquals(segunda, dao.findForShare(conn, segunda.getEncuestaId()));
+            assertEquals(0, dao.getTamano());
+
+            assertEquals(primera, dao.find(conn, primera.getEncuestaId()));
+            assertEquals(1, dao.getFallos());
+            assertEquals(primera, dao.find(conn, primera.getEncuestaId()));
+            assertEquals(1, dao.getAciertos());
+
+            assertEquals(segunda, dao.find(conn, segunda.getEncuestaId()));
+            assertEquals(2, dao.getFallos());
+            assertEquals(segunda, dao.find(conn, segunda.getEncuestaId()));
+            assertEquals(2, dao.getAciertos());
+
+            Encuesta modificada = dao.find(conn, primera.getEncuestaId());
+            modificada.setPregunta("No guardada");
+            assertEquals("Cache 1", dao.find(conn, primera.getEncuestaId()).getPregunta());
+
+            dao.updateContadores(conn, primera.getEncuestaId(), 2, 1);
+            Encuesta conVotos = dao.find(conn, primera.getEncuestaId());
+            assertEquals(2, conVotos.getRespuestasPositivas());
+            assertEquals(1, conVotos.getRespuestasNegativas());
+
+            conVotos.setCancelada(true);
+            dao.update(conn, conVotos);
+            assertTrue(dao.find(conn, primera.getEncuestaId()).isCancelada());
+            assertTrue(new Jdbc3CcSqlEncuestaDao().find(conn, primera.getEncuestaId()).isCancelada());
+
+            Encuesta tercera = dao.create(conn, new Encuesta("Cache 3", LocalDateTime.now().plusDays(1).withNano(0)));
+            assertEquals(tercera, dao.find(conn, tercera.getEncuestaId()));
+            assertEquals(2, dao.getTamano());
+            assertEquals(1, dao.getExpulsiones());
+            assertEquals(4, dao.getAciertos());
+            assertEquals(5, dao.getFallos());
+            assertEquals(4.0 / 9, dao.getTasaAciertos(), 1e-9);
+
+            dao.remove(conn, tercera.getEncuestaId());
+            assertThrows(InstanceNotFoundException.class, () -> dao.find(conn, tercera.getEncuestaId()));
+
+            dao.remove(conn, primera.getEncuestaId());
+            dao.remove(conn, segunda.getEncuestaId());
+        }
+    }
+
+    @Test
+    public void testCacheSqlEncuestaDaoBusquedas() throws Exception {
+
+        var ds = DataSourceLocator.getDataSource(SURVEY_DATA_SOURCE);
+        try (Connection conn = ds.getConnection()) {
+            CacheSqlEncuestaDao dao = new CacheSqlEncuestaDao(new Jdbc3CcSqlEncuestaDao(), 10, 60000, 10, 60000);
+
+            Encuesta abierta = dao.create(conn,
+                    new Encuesta("Busqueda cacheada abierta", LocalDateTime.now().plusDays(1).withNano(0)));
+            Encuesta proxima = dao.create(conn,
+                    new Encuesta("Busqueda cacheada proxima", LocalDateTime.now().plusSeconds(2).withNano(0)));
+
+            List<Encuesta> encontradas = dao.findByKeywords(conn, "busqueda CACHEADA", true);
+            assertEquals(2, encontradas.size());
+            encontradas.get(0).setPregunta("No guardada");
+            assertEquals(2, dao.findByKeywords(conn, "Busqueda cacheada", true).stream()
+                    .filter(e -> e.getPregunta().startsWith("Busqueda")).count());
+            assertEquals(1, dao.getAciertosBusquedas());
+            assertEquals(1, dao.getFallosBusquedas());
+
+            dao.updateContadores(conn, abierta.getEncuestaId(), 1, 0);
+            assertEquals(1, dao.findByKeywords(conn, "busqueda cacheada", true).stream()
+                    .mapToLong(Encuesta::getRespuestasPositivas).sum());
+            assertEquals(2, dao.getFallosBusquedas());
+
+            Encuesta nueva = dao.create(conn,
+                    new Encuesta("Otra busqueda cacheada", LocalDateTime.now().plusDays(1).withNano(0)));
+            assertEquals(3, dao.findByKeywords(conn, "busqueda cacheada", true).size());
+
+            nueva.setPregunta("Sin coincidencias");
+            dao.update(conn, nueva);
+            assertEquals(2, dao.findByKeywords(conn, "busqueda cacheada", true).size());
+
+            Thread.sleep(Duration.between(LocalDateTime.now(), proxima.getFechaFin()).toMillis() + 100);
+            assertEquals(List.of(abierta.getEncuestaId()), dao.findByKeywords(conn, "busqueda cacheada", true)
+                    .stream().map(Encuesta::getEncuestaId).toList());
+            assertEquals(2, dao.findByKeywords(conn, "busqueda cacheada", false).size());
+
+            dao.remove(conn, proxima.getEncuestaId());
+            assertEquals(1, dao.findByKeywords(conn, "busqueda cacheada", false).size());
+            assertTrue(dao.getTasaAciertosBusquedas() > 0);
+
+            dao.remove(conn, abierta.getEncuestaId());
+            dao.remove(conn, nueva.getEncuestaId());
+        }
+    }
+
+    @Test
+    public void testCacheSqlEncuestaDaoRollback() throws Exception {
+
+        var ds = DataSourceLocator.getDataSource(SURVEY_DATA_SOURCE);
+        try (Connection conn = ds.getConnection()) {
+            CacheSqlEncuestaDao dao = new CacheSqlEncuestaDao(new Jdbc3CcSqlEncuestaDao(), 10, 60000, 10, 60000);
+
+            Encuesta encuesta = dao.create(conn,
+                    new Encuesta("Votos deshechos en cache", LocalDateTime.now().plusDays(1).withNano(0)));
+            Long encuestaId = encuesta.getEncuestaId();
+            assertEquals(encuesta, dao.find(conn, encuestaId));
+            assertEquals(1, dao.findByKeywords(conn, "votos deshechos", true).size());
+
+            ExecutorService otroHilo = Executors.newSingleThreadExecutor();
+            conn.setAutoCommit(false);
+            try {
+                dao.updateContadores(conn, encuestaId, 3, 2);
+                Encuesta sinConfirmar = otroHilo.submit(() -> {
+                    try (Connection otra = ds.getConnection()) {
+                        dao.findByKeywords(otra, "votos deshechos", true);
+                        return dao.find(otra, encuestaId);
+                    }
+                }).get();
+                assertEquals(0, sinConfirmar.getRespuestasPositivas());
+                assertEquals(0, sinConfirmar.getRespuestasNegativas());
+            } finally {
+                conn.rollback();
+                conn.setAutoCommit(true);
+                otroHilo.shutdown();
+            }
+
+            Encuesta trasRollback = dao.find(conn, encuestaId);
+            assertEquals(0, trasRollback.getRespuestasPositivas());
+            assertEquals(0, trasRollback.getRespuestasNegativas());
+            assertEquals(encuesta.getVersion(), trasRollback.getVersion());
+
+            Encuesta buscada = dao.findByKeywords(conn, "votos deshechos", true).get(0);
+            assertEquals(0, buscada.getRespuestasPositivas());
+            assertEquals(0, buscada.getRespuestasNegativas());
+            assertEquals(encuesta.getVersion(), buscada.getVersion());
+
+            dao.remove(conn, encuestaId);
+        }
+    }
+
+    @Test
+    public void testServicioAsincrono() throws Exception {
+
+        AsyncSurveyService asyncService = SurveyServiceFactory.getAsyncService();
+        assertSame(asyncService, SurveyServiceFactory.getAsyncService());
+        assertEquals(((PooledDataSource) DataSourceLocator.getDataSource(SURVEY_DATA_SOURCE)).getMaxSize(),
+                ((AsyncSurveyServiceImpl) asyncService).getConcurrenciaMaxima());
+
+        Encuesta encuesta = asyncService.crearEncuesta(
+                new Encuesta("Encuesta asincrona", LocalDateTime.now().plusDays(1).withNano(0))).get();
+
+        int votos = 200;
+        List<CompletableFuture<Respuesta>> respuestas = new ArrayList<>();
+        for (int i = 0; i < votos; i++) {
+            respuestas.add(asyncService.responderEncuesta(encuesta.getEncuestaId(), "async" + i + "@udc.es", i % 2 == 0));
+        }
+        CompletableFuture.allOf(respuestas.toArray(new CompletableFuture[0])).get();
+
+        Encuesta votada = asyncService.buscarEncuestaPorId(encuesta.getEncuestaId()).get();
+        assertEquals(votos / 2, votada.getRespuestasPositivas());
+        assertEquals(votos / 2, votada.getRespuestasNegativas());
+        assertEquals(votos, asyncService.obtenerRespuestas(encuesta.getEncuestaId(), false).get().size());
+
+        ExecutionException noEncontrada = assertThrows(ExecutionException.class,
+                () -> asyncService.buscarEncuestaPorId(ID_INEXISTENTE).get());
+        assertInstanceOf(InstanceNotFoundException.class, noEncontrada.getCause());
+
+        asyncService.cancelarEncuesta(encuesta.getEncuestaId()).get();
+        ExecutionException cancelada = assertThrows(ExecutionException.class,
+                () -> asyncService.responderEncuesta(encuesta.getEncuestaId(), "async0@udc.es", true).get());
+        assertInstanceOf(EncuestaCanceladaException.class, cancelada.getCause());
+    }
+
     @Test
     public void testAbstractSqlEncuestaDaoCoverage() throws Exception {
 
@@ -462,11 +1390,11 @@ public class AppServiceTest {
             assertThrows(InstanceNotFoundException.class, () -> dao.update(conn, falsa));
 
 
-            var todas = dao.findByKeywords("DAO", false);
+            var todas = dao.findByKeywords(conn, "DAO", false);
             assertTrue(todas.stream().anyMatch(e -> e.getPregunta().contains("DAO")));
 
 
-            var noFinalizadas = dao.findByKeywords("DAO", true);
+            var noFinalizadas = dao.findByKeywords(conn, "DAO", true);
             assertTrue(noFinalizadas.stream().allMatch(e -> e.getFechaFin().isAfter(LocalDateTime.now())));
 
 